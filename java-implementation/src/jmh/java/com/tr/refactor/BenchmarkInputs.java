@@ -0,0 +1,92 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entradas dos benchmarks, geradas a partir de examples/before-refactoring/s_base.java.
+ * 
+ * O corpo da classe é repetido N vezes; a partir da segunda cópia os nomes
+ * PowerBuilder recebem o sufixo _N, como num arquivo real com muitos membros
+ * diferentes (e o cache de nomes não acerta sempre).
+ */
+public final class BenchmarkInputs {
+    
+    /**
+     * Tamanhos usados nos parâmetros @Param dos benchmarks.
+     */
+    public enum Size {
+        SMALL(1), MEDIUM(50), LARGE(1_000);
+        
+        final int copies;
+        
+        Size(int copies) {
+            this.copies = copies;
+        }
+    }
+    
+    private static final String EXAMPLE = "s_base.java";
+    private static final Pattern POWERBUILDER_NAME =
+        Pattern.compile("\\b(of_\\w+|g[ils]\\w+|gdc\\w+|a(?:o|s|dc|b|l|i)_\\w+)\\b");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    
+    private BenchmarkInputs() {
+    }
+    
+    /**
+     * Código-fonte do exemplo original.
+     */
+    static String example() {
+        try (InputStream in = BenchmarkInputs.class.getClassLoader().getResourceAsStream(EXAMPLE)) {
+            if (in == null) {
+                throw new IllegalStateException("Exemplo não encontrado no classpath: " + EXAMPLE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Gera um arquivo com o corpo da classe do exemplo repetido size.copies vezes.
+     */
+    static String generate(Size size) {
+        String example = example();
+        int bodyStart = example.indexOf('{', example.indexOf("public class s_base")) + 1;
+        int bodyEnd = example.lastIndexOf('}');
+        String header = example.substring(0, bodyStart);
+        String body = example.substring(bodyStart, bodyEnd);
+        
+        StringBuilder sb = new StringBuilder(example.length() * size.copies);
+        sb.append(header);
+        for (int copy = 0; copy < size.copies; copy++) {
+            if (copy == 0) {
+                sb.append(body);
+            } else {
+                Matcher matcher = POWERBUILDER_NAME.matcher(body);
+                String suffix = "_" + copy;
+                sb.append(matcher.replaceAll(result -> result.group(1) + suffix));
+            }
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+    
+    /**
+     * Identificadores distintos do arquivo gerado, na ordem em que aparecem.
+     */
+    static String[] identifiers(Size size) {
+        Set<String> names = new LinkedHashSet<>();
+        Matcher matcher = IDENTIFIER.matcher(generate(size));
+        while (matcher.find()) {
+            names.add(matcher.group());
+        }
+        return names.toArray(new String[0]);
+    }
+}
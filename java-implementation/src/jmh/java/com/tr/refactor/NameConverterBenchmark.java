@@ -0,0 +1,59 @@
+package com.tr.refactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de nomes (NameConverter.convert*) sobre os identificadores do
+ * exemplo, com e sem o cache de conversões.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NameConverterBenchmark {
+    
+    @Param({"0", "50000"})
+    int cacheSize;
+    
+    @Param({"MEDIUM"})
+    BenchmarkInputs.Size size;
+    
+    private NameConverter converter;
+    private String[] names;
+    
+    @Setup
+    public void setUp() {
+        converter = new NameConverter(new ConversionCache(cacheSize));
+        names = BenchmarkInputs.identifiers(size);
+    }
+    
+    @Benchmark
+    public void convertVariableNames(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(converter.convertVariableName(name));
+        }
+    }
+    
+    @Benchmark
+    public void convertMethodNames(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(converter.convertMethodName(name));
+        }
+    }
+    
+    @Benchmark
+    public void convertClassNames(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(converter.convertClassName(name));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tr.refactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classificação de identificadores pelo PowerBuilderPatternMatcher.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PatternMatcherBenchmark {
+    
+    @Param({"MEDIUM"})
+    BenchmarkInputs.Size size;
+    
+    private PowerBuilderPatternMatcher matcher;
+    private String[] names;
+    
+    @Setup
+    public void setUp() {
+        matcher = new PowerBuilderPatternMatcher();
+        names = BenchmarkInputs.identifiers(size);
+    }
+    
+    @Benchmark
+    public void classify(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(matcher.classify(name));
+        }
+    }
+    
+    @Benchmark
+    public void isPowerBuilderVariableName(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(matcher.isPowerBuilderVariableName(name));
+        }
+    }
+}
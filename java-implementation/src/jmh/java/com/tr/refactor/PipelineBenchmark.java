@@ -0,0 +1,64 @@
+package com.tr.refactor;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho completo de um arquivo, sem E/S: pré-filtro, parse, limpeza de
+ * wrappers, renomeação e impressão do código refatorado.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PipelineBenchmark {
+    
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    BenchmarkInputs.Size size;
+    
+    @Param({"true", "false"})
+    boolean preserveComments;
+    
+    private RefactorEngine engine;
+    private RefactorWorker worker;
+    private String source;
+    private byte[] sourceBytes;
+    
+    @Setup
+    public void setUp() {
+        RefactorOptions options = new RefactorOptions();
+        options.setDryRun(true);
+        options.setCreateBackup(false);
+        engine = new RefactorEngine(Path.of("."), Path.of("."), options);
+        worker = new RefactorWorker(preserveComments);
+        source = BenchmarkInputs.generate(size);
+        sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public String refactorFile() {
+        Set<RefactorRule> activeRules = TriggerScanner.scan(sourceBytes);
+        CompilationUnit cu = worker.javaParser.parse(source).getResult().orElseThrow();
+        
+        FileOutcome outcome = new FileOutcome(Path.of("s_base.java"));
+        try {
+            if (!engine.applyRules(cu, activeRules, worker, outcome)) {
+                return null;
+            }
+            return worker.printer.print(cu);
+        } finally {
+            worker.wrapperCleaner.resetCounter();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tr.refactor;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MobilizeWrapperCleaner.cleanMobilizeWrappers sobre árvores já parseadas.
+ * 
+ * O cleaner altera a árvore, então cada invocação recebe uma cópia nova
+ * (criada fora da medição).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WrapperCleanerBenchmark {
+    
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    BenchmarkInputs.Size size;
+    
+    private MobilizeWrapperCleaner cleaner;
+    private CompilationUnit parsed;
+    private CompilationUnit unit;
+    
+    @Setup(Level.Trial)
+    public void parse() {
+        cleaner = new MobilizeWrapperCleaner();
+        parsed = new JavaParser().parse(BenchmarkInputs.generate(size)).getResult().orElseThrow();
+    }
+    
+    @Setup(Level.Invocation)
+    public void copy() {
+        unit = parsed.clone();
+    }
+    
+    @Benchmark
+    public boolean cleanMobilizeWrappers() {
+        return cleaner.cleanMobilizeWrappers(unit);
+    }
+}
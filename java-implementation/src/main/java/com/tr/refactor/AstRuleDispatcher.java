@@ -0,0 +1,150 @@
+package com.tr.refactor;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Aplica várias regras de transformação com uma única travessia da AST.
+ * 
+ * Cada regra declara o tipo de nó que lhe interessa (e, para chamadas de
+ * método, o nome do método). A travessia em pré-ordem distribui os nós entre
+ * as regras interessadas; depois as regras são executadas na ordem em que
+ * foram registradas, cada uma sobre os seus nós na ordem da travessia.
+ * 
+ * O resultado é o mesmo de chamar cu.findAll(...) uma vez por regra: antes de
+ * cada regra são descartados os nós que regras anteriores desligaram da árvore
+ * (ex.: o escopo de um isTrue() removido), exatamente os nós que um novo
+ * findAll não encontraria.
+ */
+public class AstRuleDispatcher {
+    
+    private final List<Rule<?>> rules = new ArrayList<>();
+    private final Map<Class<?>, List<Rule<?>>> rulesByType = new HashMap<>();
+    private final Map<String, List<Rule<?>>> rulesByMethodName = new HashMap<>();
+    private Runnable checkpoint;
+    
+    /**
+     * Registra uma regra para todos os nós do tipo informado.
+     * 
+     * @param nodeType Classe concreta do nó (ex.: ClassOrInterfaceType.class)
+     * @param action Transformação aplicada a cada nó
+     */
+    public <N extends Node> void on(Class<N> nodeType, Consumer<N> action) {
+        Rule<N> rule = new Rule<>(nodeType, action);
+        rules.add(rule);
+        rulesByType.computeIfAbsent(nodeType, type -> new ArrayList<>()).add(rule);
+    }
+    
+    /**
+     * Registra uma regra apenas para chamadas de um método com o nome informado.
+     * 
+     * @param methodName Nome do método (ex.: "isTrue")
+     * @param action Transformação aplicada a cada chamada
+     */
+    public void onMethodCall(String methodName, Consumer<MethodCallExpr> action) {
+        Rule<MethodCallExpr> rule = new Rule<>(MethodCallExpr.class, action);
+        rules.add(rule);
+        rulesByMethodName.computeIfAbsent(methodName, name -> new ArrayList<>()).add(rule);
+    }
+    
+    /**
+     * Define uma ação chamada a cada nó visitado e antes de cada regra, usada
+     * para cancelar arquivos que estouram o tempo limite (null desativa).
+     */
+    public void setCheckpoint(Runnable checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+    
+    /**
+     * Percorre a árvore uma vez e aplica todas as regras registradas.
+     * 
+     * @param root Raiz da árvore (normalmente a CompilationUnit)
+     */
+    public void dispatch(Node root) {
+        rules.forEach(Rule::clear);
+        
+        root.walk(Node.TreeTraversal.PREORDER, this::route);
+        
+        for (int i = 0; i < rules.size(); i++) {
+            if (checkpoint != null) {
+                checkpoint.run();
+            }
+            rules.get(i).apply(root, i > 0);
+        }
+    }
+    
+    private void route(Node node) {
+        if (checkpoint != null) {
+            checkpoint.run();
+        }
+        
+        List<Rule<?>> byType = rulesByType.get(node.getClass());
+        if (byType != null) {
+            byType.forEach(rule -> rule.collect(node));
+        }
+        
+        if (node instanceof MethodCallExpr && !rulesByMethodName.isEmpty()) {
+            List<Rule<?>> byName = rulesByMethodName.get(((MethodCallExpr) node).getNameAsString());
+            if (byName != null) {
+                byName.forEach(rule -> rule.collect(node));
+            }
+        }
+    }
+    
+    /**
+     * Verifica se o nó ainda está ligado à raiz (não foi removido por outra regra).
+     */
+    private static boolean isAttached(Node node, Node root) {
+        Node current = node;
+        while (current != root) {
+            Node parent = current.getParentNode().orElse(null);
+            if (parent == null) {
+                return false;
+            }
+            current = parent;
+        }
+        return true;
+    }
+    
+    private static final class Rule<N extends Node> {
+        
+        private final Class<N> nodeType;
+        private final Consumer<N> action;
+        private final List<N> nodes = new ArrayList<>();
+        
+        Rule(Class<N> nodeType, Consumer<N> action) {
+            this.nodeType = nodeType;
+            this.action = action;
+        }
+        
+        void collect(Node node) {
+            nodes.add(nodeType.cast(node));
+        }
+        
+        void clear() {
+            nodes.clear();
+        }
+        
+        void apply(Node root, boolean treeMayHaveChanged) {
+            List<N> targets = nodes;
+            if (treeMayHaveChanged) {
+                // Filtra antes de aplicar: nós desligados pela própria regra
+                // continuam sendo processados, como no forEach sobre findAll
+                targets = new ArrayList<>(nodes.size());
+                for (N node : nodes) {
+                    if (isAttached(node, root)) {
+                        targets.add(node);
+                    }
+                }
+            }
+            targets.forEach(action);
+            nodes.clear();
+        }
+    }
+}
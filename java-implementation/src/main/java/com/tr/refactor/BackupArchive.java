@@ -0,0 +1,296 @@
+package com.tr.refactor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Backup dos originais num único zip por execução (--backup-mode archive).
+ * 
+ * As threads de escrita só entregam o conteúdo original; a compressão e a
+ * gravação rodam numa thread própria, alimentada por uma fila limitada (fila
+ * cheia bloqueia quem entrega, limitando a memória). O zip só é criado se
+ * algum arquivo for alterado.
+ * 
+ * Uma execução interrompida deixa o zip sem o diretório central, mas cada
+ * entrada já gravada continua recuperável pelo cabeçalho local (ex.: zip -FF).
+ * 
+ * Durabilidade: flush() espera as entradas já entregues e faz o fsync do zip
+ * (o diário de progresso o chama antes de cada lote), e awaitDurable() segura
+ * quem vai sobrescrever o original (refatoração in-place) até a sua entrada
+ * estar no disco. Os pedidos de fsync que chegam juntos são atendidos por um
+ * único fsync.
+ */
+public class BackupArchive implements Closeable, Flushable {
+    
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final Entry END = new Entry(null, null);
+    private static final Entry SYNC = new Entry(null, null);
+    
+    private final Path archiveFile;
+    private final BlockingQueue<Entry> queue;
+    private final Thread thread;
+    private final Object syncLock = new Object();
+    private volatile IOException failure;
+    private volatile int entries = 0;
+    private long queued = 0;
+    private long synced = 0;
+    private long syncRequested = 0;
+    private boolean closed = false;
+    // Só usado pela thread do zip
+    private byte[] chunk;
+    
+    /**
+     * @param queueCapacity Originais aguardando compressão antes de bloquear a escrita
+     */
+    public BackupArchive(Path archiveFile, int queueCapacity) {
+        this.archiveFile = archiveFile;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.thread = new Thread(this::run, "refactor-backup");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * Caminho padrão do zip: ao lado do diretório de saída, com a data da execução.
+     */
+    public static Path defaultLocation(Path outputDir, LocalDateTime startedAt) {
+        Path absolute = outputDir.toAbsolutePath().normalize();
+        String name = absolute.getFileName() != null ? absolute.getFileName().toString() : "root";
+        Path parent = absolute.getParent() != null ? absolute.getParent() : absolute;
+        return parent.resolve(name + ".backup-" + TIMESTAMP.format(startedAt) + ".zip");
+    }
+    
+    /**
+     * Entrega um original para o zip; bloqueia se a fila estiver cheia.
+     * 
+     * @param entryName Caminho relativo dentro do zip (separador '/')
+     * @param content Conteúdo de position até limit (pode ser um arquivo mapeado); não é alterado
+     * @return Número da entrega, para awaitDurable()
+     * @throws IOException Se a gravação do zip já falhou
+     */
+    public synchronized long add(String entryName, ByteBuffer content) throws IOException {
+        checkFailure();
+        try {
+            queue.put(new Entry(entryName, content.duplicate()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrompido em " + entryName);
+        }
+        return ++queued;
+    }
+    
+    /**
+     * Espera até a entrega (e as anteriores) estar gravada no zip e no disco.
+     * 
+     * @param sequence Número devolvido por add()
+     * @throws IOException Se a gravação do zip falhou
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        boolean request;
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            request = syncRequested < sequence;
+            syncRequested = Math.max(syncRequested, sequence);
+        }
+        try {
+            if (request) {
+                // Acorda a thread do zip caso ela já tenha esvaziado a fila
+                queue.put(SYNC);
+            }
+            synchronized (syncLock) {
+                while (synced < sequence && failure == null) {
+                    syncLock.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrompido: " + archiveFile);
+        }
+        checkFailure();
+    }
+    
+    /**
+     * Espera os originais já entregues e faz o fsync do zip.
+     */
+    @Override
+    public void flush() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = queued;
+        }
+        awaitDurable(sequence);
+    }
+    
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("Falha ao gravar o backup " + archiveFile + ": " + error.getMessage(), error);
+        }
+    }
+    
+    private void run() {
+        FileChannel channel = null;
+        ZipOutputStream zip = null;
+        long written = 0;
+        try {
+            while (true) {
+                Entry entry = queue.take();
+                if (entry == END) {
+                    if (zip != null && failure == null) {
+                        zip.finish();
+                        sync(zip, channel, written);
+                    }
+                    break;
+                }
+                if (failure != null) {
+                    // Continua esvaziando a fila para não travar as threads de escrita
+                    continue;
+                }
+                try {
+                    if (entry != SYNC) {
+                        if (zip == null) {
+                            Files.createDirectories(archiveFile.toAbsolutePath().getParent());
+                            channel = FileChannel.open(archiveFile, StandardOpenOption.CREATE,
+                                                       StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                            zip = new ZipOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                        }
+                        writeEntry(zip, entry);
+                        entries++;
+                        written++;
+                    }
+                    // Um fsync por rajada: só quando a fila esvazia
+                    if (zip != null && queue.isEmpty()) {
+                        syncIfRequested(zip, channel, written);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    synchronized (syncLock) {
+                        syncLock.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new InterruptedIOException("Backup interrompido: " + archiveFile);
+        } finally {
+            try {
+                if (zip != null) {
+                    zip.close();
+                } else if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            synchronized (syncLock) {
+                syncLock.notifyAll();
+            }
+        }
+    }
+    
+    private void writeEntry(ZipOutputStream zip, Entry entry) throws IOException {
+        zip.putNextEntry(new ZipEntry(entry.name));
+        ByteBuffer content = entry.content;
+        if (content.hasArray()) {
+            zip.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        } else {
+            // Buffer direto ou mapeado: copia em blocos
+            if (chunk == null) {
+                chunk = new byte[64 * 1024];
+            }
+            while (content.hasRemaining()) {
+                int count = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, count);
+                zip.write(chunk, 0, count);
+            }
+        }
+        zip.closeEntry();
+    }
+    
+    /**
+     * Fsync do zip se alguém espera por uma entrada já gravada; fica para a
+     * próxima fila vazia enquanto houver originais chegando.
+     */
+    private void syncIfRequested(ZipOutputStream zip, FileChannel channel, long written) throws IOException {
+        synchronized (syncLock) {
+            if (syncRequested <= synced) {
+                return;
+            }
+        }
+        sync(zip, channel, written);
+    }
+    
+    private void sync(ZipOutputStream zip, FileChannel channel, long written) throws IOException {
+        zip.flush();
+        channel.force(false);
+        synchronized (syncLock) {
+            synced = written;
+            syncLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Espera a gravação dos originais pendentes e fecha o zip.
+     * 
+     * @throws IOException Se algum original não pôde ser gravado
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrompido: " + archiveFile);
+        }
+        if (failure != null) {
+            throw new IOException("Falha ao gravar o backup " + archiveFile + ": " + failure.getMessage(), failure);
+        }
+    }
+    
+    /**
+     * Originais gravados no zip.
+     */
+    public int getEntries() {
+        return entries;
+    }
+    
+    public Path getArchiveFile() {
+        return archiveFile;
+    }
+    
+    private static final class Entry {
+        final String name;
+        final ByteBuffer content;
+        
+        Entry(String name, ByteBuffer content) {
+            this.name = name;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.tr.refactor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache limitado e thread-safe das conversões de nomes do NameConverter.
+ * 
+ * O código Mobilize repete os mesmos identificadores milhares de vezes
+ * (adc_valor, of_get_valor, gsCgcEmp...), então cada conversão é calculada
+ * uma vez por execução e reaproveitada por todos os arquivos e threads.
+ * 
+ * O cache é dividido em segmentos LRU independentes (LinkedHashMap em ordem
+ * de acesso, cada um com seu lock) para reduzir contenção entre threads.
+ * Quando um segmento enche, a entrada menos usada é descartada.
+ */
+public class ConversionCache {
+    
+    /**
+     * Tipo de conversão; faz parte da chave porque o mesmo nome converte de
+     * forma diferente como classe, método ou variável.
+     */
+    public enum Kind {
+        CLASS, METHOD, VARIABLE
+    }
+    
+    public static final int DEFAULT_MAX_SIZE = 50_000;
+    
+    private static final int MAX_SEGMENTS = 16;
+    
+    private final int maxSize;
+    private final Segment[] segments;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * @param maxSize Número máximo de entradas (0 desativa o cache)
+     */
+    public ConversionCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, this.maxSize / 64))));
+        int segmentCapacity = (this.maxSize + segmentCount - 1) / segmentCount;
+        
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+    
+    /**
+     * Retorna a conversão do nome, calculando-a com o conversor se ainda não
+     * estiver no cache. O conversor deve ser uma função pura.
+     * 
+     * @param kind Tipo de conversão
+     * @param name Nome original (não nulo)
+     * @param converter Função de conversão
+     * @return Nome convertido
+     */
+    public String get(Kind kind, String name, Function<String, String> converter) {
+        if (maxSize == 0) {
+            return converter.apply(name);
+        }
+        
+        Key key = new Key(kind, name);
+        int spread = key.hashCode() ^ (key.hashCode() >>> 16);
+        Segment segment = segments[(spread & Integer.MAX_VALUE) % segments.length];
+        
+        String cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        
+        // Calcula fora do lock; duas threads podem calcular o mesmo nome, sem problema
+        misses.increment();
+        String converted = converter.apply(name);
+        synchronized (segment) {
+            segment.put(key, converted);
+        }
+        return converted;
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * Número atual de entradas no cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+    
+    private final class Segment extends LinkedHashMap<Key, String> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int capacity;
+        
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+    
+    private static final class Key {
+        private final Kind kind;
+        private final String name;
+        private final int hash;
+        
+        Key(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+            this.hash = 31 * kind.ordinal() + name.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return kind == other.kind && Objects.equals(name, other.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
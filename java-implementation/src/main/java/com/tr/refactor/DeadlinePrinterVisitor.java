@@ -0,0 +1,40 @@
+package com.tr.refactor;
+
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.printer.DefaultPrettyPrinterVisitor;
+import com.github.javaparser.printer.configuration.PrinterConfiguration;
+
+/**
+ * Visitor de impressão que verifica o prazo do arquivo a cada comando,
+ * chamada de método e inicializador de array, os nós que se repetem aos
+ * milhares nos arquivos gerados. A saída é a mesma do visitor padrão.
+ */
+class DeadlinePrinterVisitor extends DefaultPrettyPrinterVisitor {
+    
+    private final FileDeadline deadline;
+    
+    DeadlinePrinterVisitor(PrinterConfiguration configuration, FileDeadline deadline) {
+        super(configuration);
+        this.deadline = deadline;
+    }
+    
+    @Override
+    public void visit(ExpressionStmt n, Void arg) {
+        deadline.tick();
+        super.visit(n, arg);
+    }
+    
+    @Override
+    public void visit(MethodCallExpr n, Void arg) {
+        deadline.tick();
+        super.visit(n, arg);
+    }
+    
+    @Override
+    public void visit(ArrayInitializerExpr n, Void arg) {
+        deadline.tick();
+        super.visit(n, arg);
+    }
+}
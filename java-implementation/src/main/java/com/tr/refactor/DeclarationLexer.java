@@ -0,0 +1,691 @@
+package com.tr.refactor;
+
+import com.github.javaparser.GeneratedJavaParserTokenManager;
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
+import com.github.javaparser.Range;
+import com.github.javaparser.SimpleCharStream;
+import com.github.javaparser.Token;
+import com.github.javaparser.TokenMgrException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.javaparser.GeneratedJavaParserConstants.*;
+
+/**
+ * Localiza, só pelos tokens do JavaParser, as declarações que as regras de
+ * nomenclatura renomeiam: classes e interfaces, métodos, parâmetros de
+ * métodos e campos. É o caminho do modo léxico (--lexer-renames), que não
+ * monta a CompilationUnit dos arquivos que só precisam de renomeações.
+ * 
+ * Reconhece exatamente os nós que o caminho com AST renomeia: construtores,
+ * variáveis locais, parâmetros de construtores e lambdas e as referências
+ * aos nomes ficam como estão. Classes anônimas e locais são percorridas como
+ * as demais.
+ * 
+ * O arquivo é promovido para o caminho com AST (scan() retorna false) quando:
+ * - aparece um token das regras estruturais (isTrue, setScale, createDecimal,
+ *   WebMapAtomicReference), fora de comentários e strings;
+ * - há enum, record, @interface ou classes seladas;
+ * - um corpo de classe tem algo fora do esperado, inclusive os erros de
+ *   sintaxe que os tokens revelam (chaves desbalanceadas, token inválido).
+ * Erros de sintaxe que só o parser percebe não são detectados: o arquivo é
+ * renomeado em vez de gerar o warning de falha no parse.
+ * 
+ * Uma instância por RefactorWorker, reaproveitada entre arquivos.
+ */
+public class DeclarationLexer {
+    
+    // Tipos de escopo (a pilha acompanha parênteses, colchetes e chaves)
+    private static final int FILE = 0;
+    private static final int TYPE = 1;
+    private static final int BLOCK = 2;
+    private static final int PAREN = 3;
+    private static final int BRACKET = 4;
+    private static final int PARAMS = 5;
+    
+    // Fases de um membro no corpo de um tipo
+    private static final int HEADER = 0;
+    private static final int INITIALIZER = 1;
+    private static final int AFTER_PARAMS = 2;
+    
+    // Anotação em andamento no cabeçalho de um membro ou parâmetro
+    private static final int NO_ANNOTATION = 0;
+    private static final int ANNOTATION_NAME = 1;
+    private static final int AFTER_ANNOTATION_NAME = 2;
+    
+    private final SimpleCharStream stream = new SimpleCharStream(Providers.provider(""));
+    private final GeneratedJavaParserTokenManager tokens = new GeneratedJavaParserTokenManager(stream);
+    private final List<Scope> scopes = new ArrayList<>();
+    private final List<Declaration> declarations = new ArrayList<>();
+    private int depth;
+    private int prevKind;
+    private int newDepth;
+    private boolean afterCreation;
+    private boolean expectTypeName;
+    private String pendingType;
+    private int pendingTypeDepth;
+    private String promotion;
+    private boolean readFailed;
+    
+    public DeclarationLexer() {
+        tokens.setStoreTokens(false);
+    }
+    
+    /**
+     * Uma declaração renomeável encontrada no arquivo.
+     */
+    public static final class Declaration {
+        private final TransformationEvent.Kind kind;
+        private final String name;
+        private final Range range;
+        
+        Declaration(TransformationEvent.Kind kind, String name, Range range) {
+            this.kind = kind;
+            this.name = name;
+            this.range = range;
+        }
+        
+        /**
+         * CLASS_NAME, METHOD_NAME, PARAMETER_NAME ou FIELD_NAME.
+         */
+        public TransformationEvent.Kind getKind() {
+            return kind;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Posição só do identificador, sem os colchetes de declaradores no
+         * estilo C (int giA[]): o mesmo trecho que o caminho com AST edita.
+         */
+        public Range getRange() {
+            return range;
+        }
+    }
+    
+    /**
+     * Lê os tokens do arquivo e guarda as declarações, na ordem do código
+     * (a mesma em que o caminho com AST as visita).
+     * 
+     * @param provider Conteúdo do arquivo
+     * @return false se o arquivo precisa do caminho com AST (ver getPromotion)
+     */
+    public boolean scan(Provider provider) {
+        reset();
+        stream.reInit(new TrackingProvider(provider));
+        stream.setTabSize(1);
+        tokens.ReInit(stream);
+        
+        try {
+            for (Token token = tokens.getNextToken(); token.kind != EOF; token = tokens.getNextToken()) {
+                if (token.kind != CTRL_Z && !accept(token)) {
+                    return false;
+                }
+                prevKind = token.kind;
+            }
+        } catch (TokenMgrException e) {
+            return promote("erro léxico");
+        }
+        
+        // O token manager trata falhas de leitura como fim do arquivo
+        if (readFailed) {
+            return promote("falha na leitura do arquivo");
+        }
+        if (depth != 1 || expectTypeName || pendingType != null) {
+            return promote("chaves ou parênteses desbalanceados");
+        }
+        return true;
+    }
+    
+    /**
+     * Declarações do último arquivo lido por scan().
+     */
+    public List<Declaration> getDeclarations() {
+        return declarations;
+    }
+    
+    /**
+     * Motivo da promoção para o caminho com AST, ou null.
+     */
+    public String getPromotion() {
+        return promotion;
+    }
+    
+    private void reset() {
+        declarations.clear();
+        depth = 0;
+        push(FILE);
+        prevKind = EOF;
+        newDepth = -1;
+        afterCreation = false;
+        expectTypeName = false;
+        pendingType = null;
+        promotion = null;
+        readFailed = false;
+    }
+    
+    private boolean accept(Token token) {
+        int kind = token.kind;
+        switch (kind) {
+            case ENUM, RECORD, SEALED, NON_SEALED, PERMITS -> {
+                return promote("declaração " + token.image);
+            }
+            case INTERFACE -> {
+                if (prevKind == AT) {
+                    return promote("declaração @interface");
+                }
+            }
+            case IDENTIFIER -> {
+                if (isStructuralToken(token.image)) {
+                    return promote("token de regra estrutural " + token.image);
+                }
+            }
+            default -> {
+            }
+        }
+        
+        boolean anonymousBody = afterCreation;
+        afterCreation = false;
+        
+        // Nome logo depois de class/interface
+        if (expectTypeName) {
+            if (!isName(kind)) {
+                return unexpected(token);
+            }
+            expectTypeName = false;
+            declare(TransformationEvent.Kind.CLASS_NAME, token);
+            pendingType = token.image;
+            pendingTypeDepth = depth;
+            return true;
+        }
+        if (pendingType != null && depth == pendingTypeDepth) {
+            return typeHeaderToken(token);
+        }
+        
+        Scope scope = top();
+        boolean accepted = switch (scope.kind) {
+            case FILE -> fileToken(token);
+            case TYPE -> memberToken(scope, token, anonymousBody);
+            case PARAMS -> parameterToken(scope, token);
+            default -> codeToken(token, anonymousBody);
+        };
+        return accepted && promotion == null;
+    }
+    
+    /**
+     * Fora de qualquer tipo: package, imports, anotações e declarações de tipos.
+     */
+    private boolean fileToken(Token token) {
+        switch (token.kind) {
+            case CLASS, INTERFACE -> expectTypeName = true;
+            case LPAREN -> push(PAREN);
+            case RPAREN -> {
+                return pop(PAREN) != null || unexpected(token);
+            }
+            case LBRACE, RBRACE, LBRACKET, RBRACKET -> {
+                return unexpected(token);
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Entre "class Nome" e a chave do corpo: parâmetros de tipo, extends e implements.
+     */
+    private boolean typeHeaderToken(Token token) {
+        switch (token.kind) {
+            case LBRACE -> {
+                push(TYPE).typeName = pendingType;
+                pendingType = null;
+            }
+            case LPAREN -> push(PAREN);
+            case DOT, COMMA, LT, GT, EXTENDS, IMPLEMENTS, SUPER, HOOK, BIT_AND, AT -> {
+            }
+            default -> {
+                return isName(token.kind) || unexpected(token);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Código (corpos de métodos, inicializações, argumentos): só importam as
+     * classes locais e anônimas e o balanceamento.
+     */
+    private boolean codeToken(Token token, boolean anonymousBody) {
+        int level = depth;
+        switch (token.kind) {
+            case LPAREN -> {
+                boolean creation = newDepth == level;
+                push(PAREN).creation = creation;
+            }
+            case RPAREN -> {
+                Scope paren = pop(PAREN);
+                if (paren == null) {
+                    return unexpected(token);
+                }
+                afterCreation = paren.creation;
+            }
+            case LBRACKET -> push(BRACKET);
+            case RBRACKET -> {
+                return pop(BRACKET) != null || unexpected(token);
+            }
+            case LBRACE -> push(anonymousBody ? TYPE : BLOCK);
+            case RBRACE -> {
+                return pop(BLOCK) != null || unexpected(token);
+            }
+            case NEW -> {
+                // Tipo::new é referência a construtor, não criação
+                newDepth = prevKind == DOUBLECOLON ? -1 : depth;
+                return true;
+            }
+            case CLASS, INTERFACE -> {
+                // Literal Tipo.class ou classe local
+                if (prevKind != DOT) {
+                    expectTypeName = true;
+                }
+            }
+            default -> {
+                if (newDepth == level && !continuesCreation(token.kind)) {
+                    newDepth = -1;
+                }
+                return true;
+            }
+        }
+        // O "new" em andamento terminou sem corpo anônimo possível
+        if (newDepth == level) {
+            newDepth = -1;
+        }
+        return true;
+    }
+    
+    /**
+     * Corpo de um tipo: cabeçalhos de campos, métodos, construtores e
+     * inicializadores, e a inicialização dos campos.
+     */
+    private boolean memberToken(Scope scope, Token token, boolean anonymousBody) {
+        int kind = token.kind;
+        if (scope.phase == INITIALIZER) {
+            switch (kind) {
+                case COMMA -> {
+                    if (scope.angle == 0) {
+                        // Próximo declarador: o tipo já foi visto
+                        scope.resetMember();
+                        scope.names = 1;
+                        newDepth = -1;
+                        return true;
+                    }
+                }
+                case SEMICOLON -> {
+                    if (scope.angle != 0) {
+                        return unexpected(token);
+                    }
+                    scope.resetMember();
+                    newDepth = -1;
+                    return true;
+                }
+                case LT -> {
+                    // Argumentos de tipo de new Tipo<...> e de Tipo.<T>metodo()
+                    if (newDepth == depth || prevKind == DOT) {
+                        scope.angle++;
+                    }
+                    return true;
+                }
+                case GT -> {
+                    if (scope.angle > 0) {
+                        scope.angle--;
+                    }
+                    return true;
+                }
+                case RBRACE -> {
+                    return unexpected(token);
+                }
+                default -> {
+                }
+            }
+            return codeToken(token, anonymousBody);
+        }
+        
+        if (scope.phase == AFTER_PARAMS) {
+            switch (kind) {
+                case LBRACE -> push(BLOCK);
+                case SEMICOLON -> scope.resetMember();
+                case THROWS, DOT, COMMA, LBRACKET, RBRACKET -> {
+                }
+                default -> {
+                    return isName(kind) || unexpected(token);
+                }
+            }
+            return true;
+        }
+        
+        if (!annotationToken(scope, token)) {
+            return true;
+        }
+        switch (kind) {
+            case LPAREN -> {
+                // Lista de parâmetros: o nome vem logo antes
+                if (scope.angle != 0 || !isName(prevKind) || scope.candidate == null) {
+                    return unexpected(token);
+                }
+                boolean method = scope.names > 1;
+                if (!method && !scope.candidate.image.equals(scope.typeName)) {
+                    return unexpected(token);
+                }
+                if (method) {
+                    declare(TransformationEvent.Kind.METHOD_NAME, scope.candidate);
+                }
+                scope.phase = AFTER_PARAMS;
+                push(PARAMS).renameParameters = method;
+            }
+            case ASSIGN, COMMA, SEMICOLON -> {
+                if (scope.angle > 0 && kind == COMMA) {
+                    return true;
+                }
+                if (scope.angle != 0) {
+                    return unexpected(token);
+                }
+                if (scope.candidate == null) {
+                    // ";" solto no corpo da classe
+                    return (kind == SEMICOLON && scope.names == 0) || unexpected(token);
+                }
+                if (!scope.clean || scope.names < 2) {
+                    return unexpected(token);
+                }
+                declare(TransformationEvent.Kind.FIELD_NAME, scope.candidate);
+                scope.resetMember();
+                if (kind == ASSIGN) {
+                    scope.phase = INITIALIZER;
+                } else if (kind == COMMA) {
+                    scope.names = 1;
+                }
+            }
+            case LBRACE -> {
+                // Bloco inicializador (static { ... } ou { ... })
+                if (scope.names > 0 || scope.angle > 0) {
+                    return unexpected(token);
+                }
+                push(BLOCK);
+            }
+            case RBRACE -> {
+                if (scope.names > 0 || scope.angle > 0 || pop(TYPE) == null) {
+                    return unexpected(token);
+                }
+            }
+            case CLASS, INTERFACE -> {
+                scope.resetMember();
+                expectTypeName = true;
+            }
+            case LT -> {
+                scope.angle++;
+                scope.clean = false;
+            }
+            case GT -> {
+                if (--scope.angle < 0) {
+                    return unexpected(token);
+                }
+                scope.clean = false;
+            }
+            case LBRACKET, RBRACKET -> {
+                // Dimensões: int[] valores ou int valores[]
+            }
+            case DOT, HOOK, EXTENDS, SUPER, BIT_AND -> scope.clean = false;
+            case BOOLEAN, BYTE, CHAR, SHORT, INT, LONG, FLOAT, DOUBLE, VOID -> {
+                if (scope.angle == 0) {
+                    scope.names++;
+                }
+                scope.clean = false;
+            }
+            case PUBLIC, PROTECTED, PRIVATE, STATIC, FINAL, ABSTRACT, TRANSIENT, VOLATILE, SYNCHRONIZED,
+                 NATIVE, STRICTFP, _DEFAULT -> scope.clean = false;
+            default -> {
+                if (!isName(kind)) {
+                    return unexpected(token);
+                }
+                if (scope.angle == 0) {
+                    scope.names++;
+                    scope.candidate = token;
+                    scope.clean = true;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Parâmetros de um método ou construtor: o nome é o último identificador
+     * antes da vírgula ou do ")" (fora de argumentos de tipo e anotações).
+     */
+    private boolean parameterToken(Scope scope, Token token) {
+        if (!annotationToken(scope, token)) {
+            return true;
+        }
+        switch (token.kind) {
+            case COMMA, RPAREN -> {
+                if (token.kind == COMMA && scope.angle > 0) {
+                    return true;
+                }
+                if (scope.angle != 0) {
+                    return unexpected(token);
+                }
+                if (scope.candidate != null && scope.clean && scope.renameParameters) {
+                    declare(TransformationEvent.Kind.PARAMETER_NAME, scope.candidate);
+                }
+                scope.resetMember();
+                if (token.kind == RPAREN) {
+                    pop(PARAMS);
+                }
+            }
+            case LT -> {
+                scope.angle++;
+                scope.clean = false;
+            }
+            case GT -> {
+                if (--scope.angle < 0) {
+                    return unexpected(token);
+                }
+                scope.clean = false;
+            }
+            case LBRACKET, RBRACKET -> {
+            }
+            case THIS -> scope.candidate = null;
+            case DOT, ELLIPSIS, HOOK, EXTENDS, SUPER, BIT_AND, FINAL,
+                 BOOLEAN, BYTE, CHAR, SHORT, INT, LONG, FLOAT, DOUBLE -> scope.clean = false;
+            default -> {
+                if (!isName(token.kind)) {
+                    return unexpected(token);
+                }
+                if (scope.angle == 0) {
+                    scope.candidate = token;
+                    scope.clean = true;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Consome os tokens de uma anotação (@Nome, @a.b.Nome, @Nome(...)). Um
+     * "@" sem nome promove o arquivo.
+     * 
+     * @return false se o token pertence à anotação e já foi tratado
+     */
+    private boolean annotationToken(Scope scope, Token token) {
+        int kind = token.kind;
+        if (scope.annotation == AFTER_ANNOTATION_NAME) {
+            if (kind == DOT) {
+                scope.annotation = ANNOTATION_NAME;
+                return false;
+            }
+            scope.annotation = NO_ANNOTATION;
+            if (kind == LPAREN) {
+                push(PAREN);
+                return false;
+            }
+        } else if (scope.annotation == ANNOTATION_NAME) {
+            if (!isName(kind)) {
+                promotion = "anotação inesperada na linha " + token.beginLine;
+                return false;
+            }
+            scope.annotation = AFTER_ANNOTATION_NAME;
+            return false;
+        } else if (kind == AT) {
+            scope.annotation = ANNOTATION_NAME;
+            return false;
+        }
+        return true;
+    }
+    
+    private void declare(TransformationEvent.Kind kind, Token token) {
+        Range range = Range.range(token.beginLine, token.beginColumn, token.endLine, token.endColumn);
+        declarations.add(new Declaration(kind, token.image, range));
+    }
+    
+    private Scope push(int kind) {
+        if (depth == scopes.size()) {
+            scopes.add(new Scope());
+        }
+        Scope scope = scopes.get(depth++);
+        scope.kind = kind;
+        scope.typeName = null;
+        scope.creation = false;
+        scope.renameParameters = false;
+        scope.resetMember();
+        return scope;
+    }
+    
+    /**
+     * Fecha o escopo do topo se ele é do tipo esperado (um "}" fecha um
+     * bloco ou um corpo de tipo).
+     * 
+     * @return O escopo fechado, ou null se o topo é de outro tipo
+     */
+    private Scope pop(int kind) {
+        Scope scope = top();
+        boolean matches = scope.kind == kind
+            || (kind == BLOCK && scope.kind == TYPE)
+            || (kind == PAREN && scope.kind == PARAMS);
+        if (!matches || depth == 1) {
+            return null;
+        }
+        depth--;
+        
+        // Fim do corpo de um método, inicializador ou tipo aninhado: próximo membro
+        Scope parent = top();
+        if (parent.kind == TYPE && parent.phase != INITIALIZER && scope.kind != PAREN && scope.kind != PARAMS) {
+            parent.resetMember();
+        }
+        return scope;
+    }
+    
+    private Scope top() {
+        return scopes.get(depth - 1);
+    }
+    
+    private boolean unexpected(Token token) {
+        if (promotion != null) {
+            return false;
+        }
+        return promote("'" + token.image + "' inesperado na linha " + token.beginLine);
+    }
+    
+    private boolean promote(String reason) {
+        if (promotion == null) {
+            promotion = reason;
+        }
+        return false;
+    }
+    
+    private static boolean isName(int kind) {
+        return switch (kind) {
+            case IDENTIFIER, YIELD, REQUIRES, TO, WITH, OPEN, OPENS, USES, MODULE, EXPORTS, PROVIDES,
+                 TRANSITIVE -> true;
+            default -> false;
+        };
+    }
+    
+    /**
+     * Tokens que podem separar o "new" do "(" ou "[" da criação: o tipo, seus
+     * argumentos de tipo e anotações. Qualquer outro (;, ::, operadores)
+     * encerra a criação.
+     */
+    private static boolean continuesCreation(int kind) {
+        return switch (kind) {
+            case DOT, LT, GT, COMMA, HOOK, EXTENDS, SUPER, AT, BOOLEAN, BYTE, CHAR, SHORT, INT, LONG, FLOAT,
+                 DOUBLE -> true;
+            default -> isName(kind);
+        };
+    }
+    
+    private static boolean isStructuralToken(String image) {
+        return switch (image) {
+            case "isTrue", "setScale", "createDecimal", "WebMapAtomicReference" -> true;
+            default -> false;
+        };
+    }
+    
+    /**
+     * Um nível da pilha; os objetos são reaproveitados entre arquivos.
+     */
+    private static final class Scope {
+        int kind;
+        // TYPE: nome original do tipo (null em classe anônima)
+        String typeName;
+        // PAREN: argumentos de "new Tipo(...)", que pode ter corpo anônimo
+        boolean creation;
+        // PARAMS: parâmetros de método (os de construtor não são renomeados)
+        boolean renameParameters;
+        
+        // Membro (TYPE) ou parâmetro (PARAMS) em andamento
+        int phase;
+        int angle;
+        int names;
+        int annotation;
+        Token candidate;
+        boolean clean;
+        
+        void resetMember() {
+            phase = HEADER;
+            angle = 0;
+            names = 0;
+            annotation = NO_ANNOTATION;
+            candidate = null;
+            clean = false;
+        }
+    }
+    
+    /**
+     * Guarda se a leitura falhou: o token manager engole a exceção e
+     * devolve EOF.
+     */
+    private final class TrackingProvider implements Provider {
+        
+        private final Provider delegate;
+        
+        TrackingProvider(Provider delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            try {
+                return delegate.read(buffer, offset, length);
+            } catch (IOException | RuntimeException e) {
+                readFailed = true;
+                throw e;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
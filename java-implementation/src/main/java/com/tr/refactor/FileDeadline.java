@@ -0,0 +1,120 @@
+package com.tr.refactor;
+
+import com.github.javaparser.Provider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Prazo do arquivo atual de um worker (--file-timeout).
+ * 
+ * A JVM não interrompe código preso em CPU, então o cancelamento é
+ * cooperativo: o parser, a travessia das regras e o printer chamam check()
+ * ou tick() em pontos regulares, e o prazo vencido lança
+ * FileTimeoutException, liberando o worker para o próximo arquivo.
+ * 
+ * Uma instância por RefactorWorker. Sem prazo, check() não lê o relógio.
+ */
+class FileDeadline {
+    
+    // Chamadas de tick() entre leituras do relógio (potência de 2)
+    private static final int TICK_STRIDE = 64;
+    
+    private long budgetNanos = 0;
+    private long deadlineNanos = 0;
+    private int ticks = 0;
+    
+    /**
+     * Inicia o prazo do arquivo.
+     * 
+     * @param budgetNanos Tempo limite total do arquivo (0 = sem limite)
+     * @param spentNanos Tempo já gasto nos estágios anteriores
+     */
+    void start(long budgetNanos, long spentNanos) {
+        this.budgetNanos = budgetNanos;
+        this.deadlineNanos = System.nanoTime() + budgetNanos - spentNanos;
+        this.ticks = 0;
+    }
+    
+    void clear() {
+        this.budgetNanos = 0;
+    }
+    
+    /**
+     * Lança FileTimeoutException se o prazo venceu.
+     */
+    void check() {
+        if (budgetNanos > 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new FileTimeoutException(budgetNanos);
+        }
+    }
+    
+    /**
+     * Versão barata de check() para laços quentes: só lê o relógio de
+     * TICK_STRIDE em TICK_STRIDE chamadas.
+     */
+    void tick() {
+        if (budgetNanos > 0 && (++ticks & (TICK_STRIDE - 1)) == 0) {
+            check();
+        }
+    }
+    
+    /**
+     * Entrada do parser que decodifica os bytes do arquivo (sem o BOM) direto
+     * no buffer do parser, sem montar uma String com o arquivo inteiro, e
+     * verifica o prazo a cada bloco lido.
+     * 
+     * @param source Bytes do arquivo, de position até limit; o buffer não é alterado
+     */
+    Provider provider(ByteBuffer source, SourceEncoding encoding) {
+        ByteBuffer bytes = source.duplicate();
+        bytes.position(bytes.position() + encoding.getBomLength());
+        return new DeadlineProvider(bytes, encoding.newDecoder(), this);
+    }
+    
+    /**
+     * Equivale a Providers.provider(InputStream, Charset), sem o stream
+     * intermediário e falhando em bytes inválidos, mais a verificação do
+     * prazo. O JavaParser converte as exceções em problemas do parse; quem
+     * chama o parse verifica o prazo de novo para distinguir os dois casos.
+     */
+    private static final class DeadlineProvider implements Provider {
+        
+        private final ByteBuffer source;
+        private final CharsetDecoder decoder;
+        private final FileDeadline deadline;
+        private boolean finished = false;
+        
+        DeadlineProvider(ByteBuffer source, CharsetDecoder decoder, FileDeadline deadline) {
+            this.source = source;
+            this.decoder = decoder;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            deadline.check();
+            if (finished) {
+                return -1;
+            }
+            CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+            CoderResult result = decoder.decode(source, out, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow() && decoder.flush(out).isUnderflow()) {
+                finished = true;
+            }
+            int count = out.position() - offset;
+            return count > 0 || !finished ? count : -1;
+        }
+        
+        @Override
+        public void close() {
+            // Nada a liberar: o buffer é de quem chamou
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.tr.refactor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado do processamento de um único arquivo.
+ * 
+ * Cada worker preenche o seu próprio FileOutcome, sem compartilhar estado;
+ * o engine depois consolida os resultados no RefactorResult na ordem dos
+ * arquivos, para que o relatório seja o mesmo com qualquer número de threads.
+ */
+public class FileOutcome {
+    
+    private final Path file;
+    private boolean refactored = false;
+    private boolean skipped = false;
+    private boolean resumed = false;
+    private boolean outputUnchanged = false;
+    private boolean prefiltered = false;
+    private boolean reprinted = false;
+    private boolean lexed = false;
+    private boolean timedOut = false;
+    private int skippedRules = 0;
+    private String contentHash;
+    private String outputHash;
+    private int transformations = 0;
+    private final List<String> warnings = new ArrayList<>();
+    private final List<String> messages = new ArrayList<>();
+    private final List<TransformationEvent> events = new ArrayList<>();
+    private boolean recordingEvents = false;
+    private long bytesRead = 0;
+    
+    // Tempo por fase em nanossegundos (null quando --metrics está desligado)
+    private long[] phaseNanos;
+    
+    // Renomeações por TransformationEvent.Kind, para os eventos JFR
+    private final int[] renameCounts = new int[TransformationEvent.Kind.values().length];
+    
+    public FileOutcome(Path file) {
+        this.file = file;
+    }
+    
+    public void markRefactored() {
+        this.refactored = true;
+    }
+    
+    /**
+     * Marca o arquivo como pulado pelo modo incremental.
+     */
+    public void markSkipped() {
+        this.skipped = true;
+    }
+    
+    /**
+     * Marca que a saída gerada já estava gravada e não foi regravada.
+     */
+    public void markOutputUnchanged() {
+        this.outputUnchanged = true;
+    }
+    
+    /**
+     * Marca que o patch não se aplicava e a saída foi reimpressa (--output-mode patch).
+     */
+    public void markReprinted() {
+        this.reprinted = true;
+    }
+    
+    /**
+     * Marca que o arquivo foi renomeado só pelos tokens, sem parse (--lexer-renames).
+     */
+    public void markLexed() {
+        this.lexed = true;
+    }
+    
+    /**
+     * Marca o arquivo como já concluído pela execução interrompida (--resume).
+     */
+    public void markResumed() {
+        this.resumed = true;
+    }
+    
+    /**
+     * Marca o arquivo como descartado pelo pré-filtro (nenhum token de regra).
+     */
+    public void markPrefiltered() {
+        this.prefiltered = true;
+    }
+    
+    /**
+     * Marca o arquivo como cancelado por estourar o tempo limite (--file-timeout).
+     */
+    public void markTimedOut() {
+        this.timedOut = true;
+    }
+    
+    /**
+     * Número de regras desligadas pelo pré-filtro neste arquivo.
+     */
+    public void setSkippedRules(int skippedRules) {
+        this.skippedRules = skippedRules;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public void setOutputHash(String outputHash) {
+        this.outputHash = outputHash;
+    }
+    
+    public void incrementTransformations() {
+        this.transformations++;
+    }
+    
+    public void addTransformations(int count) {
+        this.transformations += count;
+    }
+    
+    public void addWarning(String warning) {
+        this.warnings.add(warning);
+    }
+    
+    /**
+     * Registra uma mensagem de log (modo verbose) para ser impressa na consolidação.
+     */
+    public void log(String message) {
+        this.messages.add(message);
+    }
+    
+    /**
+     * Ativa a coleta de eventos de transformação (log DEBUG ou relatório).
+     */
+    public void setRecordingEvents(boolean recordingEvents) {
+        this.recordingEvents = recordingEvents;
+    }
+    
+    public boolean isRecordingEvents() {
+        return recordingEvents;
+    }
+    
+    /**
+     * Registra um evento de transformação; ignorado se a coleta está desativada.
+     */
+    public void addEvent(TransformationEvent event) {
+        if (recordingEvents) {
+            this.events.add(event);
+        }
+    }
+    
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+    
+    /**
+     * Ativa a medição de tempo por fase (--metrics).
+     */
+    public void enableTimings() {
+        this.phaseNanos = new long[RefactorMetrics.Phase.values().length];
+    }
+    
+    public boolean isTimingEnabled() {
+        return phaseNanos != null;
+    }
+    
+    /**
+     * Soma o tempo de uma fase; ignorado se a medição está desativada.
+     */
+    public void addPhaseTime(RefactorMetrics.Phase phase, long nanos) {
+        if (phaseNanos != null) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+    }
+    
+    /**
+     * Situação final do arquivo: timeout, failed, resumed, skipped, prefiltered,
+     * refactored ou unchanged.
+     */
+    public String getStatus() {
+        if (timedOut) {
+            return "timeout";
+        }
+        if (!warnings.isEmpty()) {
+            return "failed";
+        }
+        if (resumed) {
+            return "resumed";
+        }
+        if (skipped) {
+            return "skipped";
+        }
+        if (prefiltered) {
+            return "prefiltered";
+        }
+        return refactored ? "refactored" : "unchanged";
+    }
+    
+    /**
+     * Conta uma renomeação (as transformações do cleaner são contadas por ele).
+     */
+    public void countRename(TransformationEvent.Kind kind) {
+        renameCounts[kind.ordinal()]++;
+    }
+    
+    // Getters
+    public Path getFile() {
+        return file;
+    }
+    
+    public boolean isRefactored() {
+        return refactored;
+    }
+    
+    public boolean isSkipped() {
+        return skipped;
+    }
+    
+    public boolean isResumed() {
+        return resumed;
+    }
+    
+    public boolean isOutputUnchanged() {
+        return outputUnchanged;
+    }
+    
+    public boolean isLexed() {
+        return lexed;
+    }
+    
+    public boolean isReprinted() {
+        return reprinted;
+    }
+    
+    public boolean isPrefiltered() {
+        return prefiltered;
+    }
+    
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+    
+    public int getSkippedRules() {
+        return skippedRules;
+    }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public String getOutputHash() {
+        return outputHash;
+    }
+    
+    public int getTransformations() {
+        return transformations;
+    }
+    
+    public List<String> getWarnings() {
+        return warnings;
+    }
+    
+    public List<String> getMessages() {
+        return messages;
+    }
+    
+    public List<TransformationEvent> getEvents() {
+        return events;
+    }
+    
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public long[] getPhaseNanos() {
+        return phaseNanos;
+    }
+    
+    /**
+     * Soma do tempo de todas as fases (0 se a medição está desativada).
+     */
+    public long getTimedNanos() {
+        long total = 0;
+        if (phaseNanos != null) {
+            for (long nanos : phaseNanos) {
+                total += nanos;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Renomeações por regra, indexadas por TransformationEvent.Kind.ordinal().
+     */
+    public int[] getRenameCounts() {
+        return renameCounts;
+    }
+}
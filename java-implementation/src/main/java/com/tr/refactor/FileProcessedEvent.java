@@ -0,0 +1,36 @@
+package com.tr.refactor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de um arquivo processado, do início da leitura ao fim da escrita.
+ * 
+ * Emitido na thread do worker, então aparece na mesma linha do tempo que os
+ * eventos de GC e de I/O da JVM.
+ */
+@Name("com.tr.refactor.FileProcessed")
+@Label("Arquivo processado")
+@Category("Payroll Refactor")
+@Description("Processamento completo de um arquivo .java")
+@StackTrace(false)
+final class FileProcessedEvent extends jdk.jfr.Event {
+    
+    @Label("Arquivo")
+    String path;
+    
+    @Label("Tamanho")
+    @DataAmount
+    long size;
+    
+    @Label("Resultado")
+    @Description("failed, skipped, prefiltered, refactored ou unchanged")
+    String outcome;
+    
+    @Label("Transformações")
+    int transformations;
+}
@@ -0,0 +1,31 @@
+package com.tr.refactor;
+
+import java.util.Locale;
+
+/**
+ * Lançada quando um arquivo estoura o tempo limite (--file-timeout).
+ * 
+ * Não checada para atravessar as regras e o printer, que rodam dentro de
+ * visitors do JavaParser; o engine a converte em warning do arquivo.
+ */
+public class FileTimeoutException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long budgetNanos;
+    
+    public FileTimeoutException(long budgetNanos) {
+        super("Tempo limite de " + format(budgetNanos) + " excedido");
+        this.budgetNanos = budgetNanos;
+    }
+    
+    private static String format(long nanos) {
+        return nanos < 1_000_000_000L
+            ? String.format(Locale.ROOT, "%d ms", nanos / 1_000_000)
+            : String.format(Locale.ROOT, "%.1f s", nanos / 1e9);
+    }
+    
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+}
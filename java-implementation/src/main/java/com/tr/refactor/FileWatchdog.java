@@ -0,0 +1,103 @@
+package com.tr.refactor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigia os arquivos em processamento (--slow-file-threshold).
+ * 
+ * Cada thread avisa quando começa e termina um estágio de um arquivo; uma
+ * thread de fundo verifica periodicamente e registra em log os arquivos que
+ * passaram do limite, de novo a cada múltiplo do limite enquanto continuarem
+ * rodando. Só observa: o cancelamento é feito pelo prazo (--file-timeout).
+ */
+class FileWatchdog implements AutoCloseable {
+    
+    static final String LOGGER_NAME = "com.tr.refactor.watchdog";
+    static final Logger LOG = LoggerFactory.getLogger(LOGGER_NAME);
+    
+    private final long thresholdNanos;
+    private final Map<Thread, Running> running = new ConcurrentHashMap<>();
+    private final Set<Path> slowFiles = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    
+    /**
+     * @param thresholdNanos Tempo de processamento a partir do qual o arquivo é logado
+     */
+    FileWatchdog(long thresholdNanos) {
+        this.thresholdNanos = thresholdNanos;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "refactor-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // Verifica algumas vezes por limite, sem acordar mais de uma vez por ms
+        long periodNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+            Math.min(TimeUnit.SECONDS.toNanos(1), thresholdNanos / 4));
+        scheduler.scheduleAtFixedRate(this::inspect, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * A thread atual começou um estágio do arquivo.
+     * 
+     * @param spentNanos Tempo já gasto com o arquivo nos estágios anteriores
+     */
+    void begin(Path file, long spentNanos) {
+        running.put(Thread.currentThread(), new Running(file, System.nanoTime() - spentNanos));
+    }
+    
+    /**
+     * A thread atual terminou o estágio.
+     */
+    void end() {
+        running.remove(Thread.currentThread());
+    }
+    
+    /**
+     * Arquivos que passaram do limite pelo menos uma vez.
+     */
+    int getSlowFiles() {
+        return slowFiles.size();
+    }
+    
+    private void inspect() {
+        long now = System.nanoTime();
+        running.forEach((thread, entry) -> {
+            long elapsed = now - entry.startNanos;
+            if (elapsed >= entry.nextReportNanos) {
+                slowFiles.add(entry.file);
+                entry.nextReportNanos = (elapsed / thresholdNanos + 1) * thresholdNanos;
+                LOG.warn("🐢 Arquivo ainda em processamento há {} s: {} ({})",
+                         String.format(Locale.ROOT, "%.1f", elapsed / 1e9), entry.file, thread.getName());
+            }
+        });
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
+    private final class Running {
+        final Path file;
+        final long startNanos;
+        
+        // Só acessado pela thread do watchdog
+        long nextReportNanos = thresholdNanos;
+        
+        Running(Path file, long startNanos) {
+            this.file = file;
+            this.startNanos = startNanos;
+        }
+    }
+}
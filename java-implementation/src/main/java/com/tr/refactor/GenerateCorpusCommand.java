@@ -0,0 +1,71 @@
+package com.tr.refactor;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Subcomando que gera um corpus sintético Mobilize para testes de escala.
+ * 
+ * Exemplo: payroll-refactor generate-corpus /tmp/corpus --files 1000 --lines 2000 --seed 7
+ */
+@Command(
+    name = "generate-corpus",
+    mixinStandardHelpOptions = true,
+    description = "Gera um corpus sintético no estilo Mobilize (determinístico pela semente)"
+)
+public class GenerateCorpusCommand implements Callable<Integer> {
+    
+    @Parameters(index = "0", description = "Diretório onde os arquivos serão gerados")
+    private Path outputDir;
+    
+    @Option(names = {"-n", "--files"}, paramLabel = "N", description = "Número de arquivos (padrão: 100)")
+    private int files = 100;
+    
+    @Option(names = {"--lines"}, paramLabel = "N", description = "Linhas por arquivo (padrão: 500)")
+    private int linesPerFile = 500;
+    
+    @Option(names = {"--seed"}, description = "Semente do gerador (padrão: 42)")
+    private long seed = 42L;
+    
+    @Option(names = {"--is-true-density"}, description = "Fração de instruções com isTrue() (padrão: 0.30)")
+    private double isTrueDensity = 0.30;
+    
+    @Option(names = {"--create-decimal-density"}, description = "Fração de instruções com createDecimal() (padrão: 0.20)")
+    private double createDecimalDensity = 0.20;
+    
+    @Option(names = {"--set-scale-density"}, description = "Fração de instruções com setScale() (padrão: 0.15)")
+    private double setScaleDensity = 0.15;
+    
+    @Option(names = {"--web-map-density"}, description = "Fração de instruções com WebMapAtomicReference (padrão: 0.05)")
+    private double webMapDensity = 0.05;
+    
+    @Option(names = {"--of-method-density"}, description = "Fração de métodos com prefixo of_ (padrão: 0.80)")
+    private double ofMethodDensity = 0.80;
+    
+    @Option(names = {"--pb-name-density"}, description = "Fração de campos/parâmetros com nomes gs/adc_ (padrão: 0.70)")
+    private double powerBuilderNameDensity = 0.70;
+    
+    @Override
+    public Integer call() throws Exception {
+        MobilizeCorpusGenerator generator = new MobilizeCorpusGenerator();
+        generator.setFiles(files);
+        generator.setLinesPerFile(linesPerFile);
+        generator.setSeed(seed);
+        generator.setIsTrueDensity(isTrueDensity);
+        generator.setCreateDecimalDensity(createDecimalDensity);
+        generator.setSetScaleDensity(setScaleDensity);
+        generator.setWebMapDensity(webMapDensity);
+        generator.setOfMethodDensity(ofMethodDensity);
+        generator.setPowerBuilderNameDensity(powerBuilderNameDensity);
+        
+        List<Path> generated = generator.generate(outputDir);
+        System.out.println("🧬 Corpus gerado: " + generated.size() + " arquivos em " + outputDir
+            + " (semente " + seed + ")");
+        return 0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.tr.refactor;
+
+import com.github.javaparser.Range;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Relatório da refatoração em JSON Lines, gravado à medida que os arquivos
+ * são consolidados.
+ * 
+ * Cada linha é um objeto JSON independente:
+ * - {"type":"file", ...}: um por arquivo, com status, transformações e warnings
+ * - {"type":"transformation", ...}: um por transformação, logo após o arquivo
+ * - {"type":"summary", ...}: totais, gravado ao fechar o relatório
+ * 
+ * Nada é acumulado em memória além do buffer de escrita. Não é thread-safe:
+ * o RefactorEngine só escreve a partir da thread de consolidação.
+ */
+public class JsonLinesReportWriter implements Closeable {
+    
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(256);
+    
+    public JsonLinesReportWriter(Path reportFile) throws IOException {
+        this(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8));
+    }
+    
+    public JsonLinesReportWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+    
+    /**
+     * Grava o registro do arquivo seguido de um registro por transformação.
+     * 
+     * @param path Caminho relativo do arquivo (separador '/')
+     * @param outcome Resultado do arquivo
+     */
+    public void writeFile(String path, FileOutcome outcome) throws IOException {
+        line.setLength(0);
+        line.append("{\"type\":\"file\",\"path\":");
+        appendString(path);
+        line.append(",\"status\":\"").append(outcome.getStatus()).append('"');
+        line.append(",\"transformations\":").append(outcome.getTransformations());
+        line.append(",\"warnings\":[");
+        for (int i = 0; i < outcome.getWarnings().size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendString(outcome.getWarnings().get(i));
+        }
+        line.append("]}\n");
+        writer.append(line);
+        
+        for (TransformationEvent event : outcome.getEvents()) {
+            writeTransformation(path, event);
+        }
+    }
+    
+    private void writeTransformation(String path, TransformationEvent event) throws IOException {
+        line.setLength(0);
+        line.append("{\"type\":\"transformation\",\"path\":");
+        appendString(path);
+        line.append(",\"rule\":\"").append(event.getKind()).append('"');
+        
+        Range range = event.getRange();
+        if (range != null) {
+            line.append(",\"line\":").append(range.begin.line)
+                .append(",\"column\":").append(range.begin.column)
+                .append(",\"endLine\":").append(range.end.line)
+                .append(",\"endColumn\":").append(range.end.column);
+        }
+        
+        line.append(",\"identifier\":");
+        appendString(event.getIdentifier());
+        line.append(",\"replacement\":");
+        appendString(event.getReplacement());
+        line.append("}\n");
+        writer.append(line);
+    }
+    
+    /**
+     * Grava o registro final com os totais da execução.
+     */
+    public void writeSummary(RefactorResult result) throws IOException {
+        line.setLength(0);
+        line.append("{\"type\":\"summary\"")
+            .append(",\"processed\":").append(result.getProcessedFiles())
+            .append(",\"skipped\":").append(result.getSkippedFiles())
+            .append(",\"resumed\":").append(result.getResumedFiles())
+            .append(",\"prefiltered\":").append(result.getPrefilteredFiles())
+            .append(",\"unchangedWrites\":").append(result.getUnchangedWrites())
+            .append(",\"timedOut\":").append(result.getTimedOutFiles())
+            .append(",\"transformations\":").append(result.getTransformationsApplied())
+            .append(",\"warnings\":").append(result.getWarningCount())
+            .append(",\"success\":").append(result.isSuccess())
+            .append("}\n");
+        writer.append(line);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+    
+    private void appendString(String value) {
+        JsonStrings.append(line, value);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tr.refactor;
+
+/**
+ * Escape de strings JSON para os arquivos gerados à mão (relatório e métricas).
+ */
+final class JsonStrings {
+    
+    private JsonStrings() {
+    }
+    
+    /**
+     * Acrescenta uma string JSON (ou null) com os escapes obrigatórios.
+     */
+    static void append(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
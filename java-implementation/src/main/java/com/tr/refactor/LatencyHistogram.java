@@ -0,0 +1,89 @@
+package com.tr.refactor;
+
+/**
+ * Histograma de latências com memória fixa.
+ * 
+ * Os valores (em nanossegundos) caem em buckets log-lineares: cada potência
+ * de 2 é dividida em 16 faixas iguais, o que dá erro relativo de no máximo
+ * 6,25% nos percentis. O máximo e o total são exatos.
+ * 
+ * Não é thread-safe: o RefactorEngine só registra na thread de consolidação.
+ */
+public final class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+    
+    /**
+     * Registra um valor (negativos contam como zero).
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[indexOf(v)]++;
+        count++;
+        total += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+    
+    /**
+     * Valor abaixo do qual estão percentile% das amostras (limite superior do bucket).
+     * 
+     * @param percentile Percentil entre 0 e 100
+     * @return Valor aproximado, ou 0 se o histograma está vazio
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public long getMax() {
+        return max;
+    }
+    
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+}
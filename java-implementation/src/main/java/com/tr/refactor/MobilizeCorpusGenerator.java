@@ -0,0 +1,275 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gera corpora sintéticos no estilo do código Mobilize (s_base.java,
+ * ExemploAntes.java) para testes de escala e benchmarks.
+ * 
+ * Cada arquivo é uma classe uo_sintetico_N com campos, métodos of_* e
+ * chamadas isTrue/createDecimal/setScale/WebMapAtomicReference nas densidades
+ * configuradas. O conteúdo depende só da semente e do índice do arquivo:
+ * a mesma semente gera sempre os mesmos bytes, com qualquer número de arquivos.
+ */
+public class MobilizeCorpusGenerator {
+    
+    private static final String[] TERMS = {
+        "salario", "base", "taxa", "valor", "evento", "empresa", "folha", "desconto", "calculo", "ferias"
+    };
+    private static final int FIELDS_PER_TYPE = 4;
+    private static final int PACKAGES = 10;
+    
+    private int files = 100;
+    private int linesPerFile = 500;
+    private long seed = 42L;
+    
+    // Fração das instruções de cada tipo (a soma deve ser no máximo 1)
+    private double isTrueDensity = 0.30;
+    private double createDecimalDensity = 0.20;
+    private double setScaleDensity = 0.15;
+    private double webMapDensity = 0.05;
+    
+    // Fração dos métodos com prefixo of_ e dos campos/parâmetros com nomes PowerBuilder
+    private double ofMethodDensity = 0.80;
+    private double powerBuilderNameDensity = 0.70;
+    
+    /**
+     * Gera todos os arquivos no diretório informado (pkg0..pkg9/ArquivoN.java).
+     * 
+     * @return Arquivos gerados, na ordem dos índices
+     */
+    public List<Path> generate(Path outputDir) throws IOException {
+        validateDensities();
+        
+        List<Path> generated = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path dir = outputDir.resolve("pkg" + (i % PACKAGES));
+            Files.createDirectories(dir);
+            Path file = dir.resolve("Arquivo" + i + ".java");
+            Files.writeString(file, generateFile(i), StandardCharsets.UTF_8);
+            generated.add(file);
+        }
+        return generated;
+    }
+    
+    /**
+     * Gera o conteúdo do arquivo de índice informado.
+     */
+    public String generateFile(int index) {
+        validateDensities();
+        
+        // Semente própria por arquivo: o arquivo N não depende dos anteriores
+        Random random = new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+        FileBuilder builder = new FileBuilder(index, random);
+        return builder.build();
+    }
+    
+    private void validateDensities() {
+        double total = isTrueDensity + createDecimalDensity + setScaleDensity + webMapDensity;
+        if (total > 1.0) {
+            throw new IllegalArgumentException("A soma das densidades de chamadas não pode passar de 1: " + total);
+        }
+    }
+    
+    /**
+     * Monta um arquivo linha a linha até atingir linesPerFile.
+     */
+    private final class FileBuilder {
+        
+        private final int index;
+        private final Random random;
+        private final StringBuilder sb = new StringBuilder();
+        private final String[] decimalFields = new String[FIELDS_PER_TYPE];
+        private final String[] stringFields = new String[FIELDS_PER_TYPE];
+        private int lines = 0;
+        private int locals = 0;
+        
+        FileBuilder(int index, Random random) {
+            this.index = index;
+            this.random = random;
+        }
+        
+        String build() {
+            line("package com.dominio.sintetico.pkg" + (index % PACKAGES) + ";");
+            line("");
+            line("import com.mobilize.jwebmap.models.Structure;");
+            line("import com.mobilize.jwebmap.datatypes.WebMapAtomicReference;");
+            line("import static com.mobilize.jwebmap.datatypes.BigDecimalHelper.*;");
+            line("import static com.mobilize.jwebmap.datatypes.BooleanHelper.isTrue;");
+            line("import java.math.BigDecimal;");
+            line("");
+            line("/**");
+            line(" * Arquivo sintético " + index + " (semente " + seed + ")");
+            line(" */");
+            line("public class uo_sintetico_" + index + " extends Structure {");
+            line("    ");
+            
+            for (int i = 0; i < FIELDS_PER_TYPE; i++) {
+                String term = term();
+                decimalFields[i] = fieldName("gdc", "valor", term, i);
+                stringFields[i] = fieldName("gs", "nome", term, i);
+                line("    protected BigDecimal " + decimalFields[i] + " = " + decimalInitializer() + ";");
+                line("    protected String " + stringFields[i] + " = \"\";");
+            }
+            
+            int method = 0;
+            // Reserva 1 linha para o fechamento da classe
+            while (lines + 4 < linesPerFile) {
+                method(method++);
+            }
+            line("}");
+            return sb.toString();
+        }
+        
+        private void method(int number) {
+            String term = term();
+            boolean powerBuilder = random.nextDouble() < ofMethodDensity;
+            String name = powerBuilder ? "of_calc_" + term + "_" + number : "calcular" + capitalize(term) + number;
+            String decimalParam = random.nextDouble() < powerBuilderNameDensity ? "adc_" + term : term + "Valor";
+            String stringParam = random.nextDouble() < powerBuilderNameDensity ? "as_" + term : term + "Nome";
+            
+            line("    ");
+            line("    public void " + name + "(BigDecimal " + decimalParam + ", String " + stringParam + ") {");
+            
+            int statements = 4 + random.nextInt(12);
+            for (int i = 0; i < statements && lines + 5 < linesPerFile; i++) {
+                statement(decimalParam, stringParam);
+            }
+            line("    }");
+        }
+        
+        private void statement(String decimalParam, String stringParam) {
+            String field = decimalFields[random.nextInt(FIELDS_PER_TYPE)];
+            double roll = random.nextDouble();
+            
+            if (roll < isTrueDensity) {
+                line("        if (isTrue(this." + field + ".compareTo(" + decimalParam + ") > 0)) {");
+                line("            this." + field + " = " + decimalParam + ";");
+                line("        }");
+            } else if ((roll -= isTrueDensity) < createDecimalDensity) {
+                line("        BigDecimal ldcTemp" + (locals++) + " = createDecimal(" + decimalParam + ", 2);");
+            } else if ((roll -= createDecimalDensity) < setScaleDensity) {
+                String operation = random.nextBoolean() ? "minus" : "plus";
+                line("        this." + field + " = setScale(this." + field + ", " + operation
+                    + "(this." + field + ", " + decimalParam + "));");
+            } else if ((roll -= setScaleDensity) < webMapDensity) {
+                String stringField = stringFields[random.nextInt(FIELDS_PER_TYPE)];
+                line("        WebMapAtomicReference<String> lsRef" + (locals++)
+                    + " = new WebMapAtomicReference<String>(this." + stringField + ");");
+            } else {
+                line("        this." + stringFields[random.nextInt(FIELDS_PER_TYPE)] + " = " + stringParam + ";");
+            }
+        }
+        
+        private String decimalInitializer() {
+            return random.nextDouble() < createDecimalDensity
+                ? "createDecimal(BigDecimal.ZERO, " + (2 + random.nextInt(3)) + ")"
+                : "BigDecimal.ZERO";
+        }
+        
+        private String fieldName(String prefix, String plainPrefix, String term, int number) {
+            return random.nextDouble() < powerBuilderNameDensity
+                ? prefix + capitalize(term) + number
+                : plainPrefix + capitalize(term) + number;
+        }
+        
+        private String term() {
+            return TERMS[random.nextInt(TERMS.length)];
+        }
+        
+        private void line(String text) {
+            sb.append(text).append('\n');
+            lines++;
+        }
+    }
+    
+    private static String capitalize(String term) {
+        return Character.toUpperCase(term.charAt(0)) + term.substring(1);
+    }
+    
+    // Getters e setters
+    public int getFiles() {
+        return files;
+    }
+    
+    public void setFiles(int files) {
+        this.files = Math.max(0, files);
+    }
+    
+    public int getLinesPerFile() {
+        return linesPerFile;
+    }
+    
+    /**
+     * Define o número aproximado de linhas por arquivo (mínimo 20).
+     */
+    public void setLinesPerFile(int linesPerFile) {
+        this.linesPerFile = Math.max(20, linesPerFile);
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    public double getIsTrueDensity() {
+        return isTrueDensity;
+    }
+    
+    public void setIsTrueDensity(double isTrueDensity) {
+        this.isTrueDensity = clamp(isTrueDensity);
+    }
+    
+    public double getCreateDecimalDensity() {
+        return createDecimalDensity;
+    }
+    
+    public void setCreateDecimalDensity(double createDecimalDensity) {
+        this.createDecimalDensity = clamp(createDecimalDensity);
+    }
+    
+    public double getSetScaleDensity() {
+        return setScaleDensity;
+    }
+    
+    public void setSetScaleDensity(double setScaleDensity) {
+        this.setScaleDensity = clamp(setScaleDensity);
+    }
+    
+    public double getWebMapDensity() {
+        return webMapDensity;
+    }
+    
+    public void setWebMapDensity(double webMapDensity) {
+        this.webMapDensity = clamp(webMapDensity);
+    }
+    
+    public double getOfMethodDensity() {
+        return ofMethodDensity;
+    }
+    
+    public void setOfMethodDensity(double ofMethodDensity) {
+        this.ofMethodDensity = clamp(ofMethodDensity);
+    }
+    
+    public double getPowerBuilderNameDensity() {
+        return powerBuilderNameDensity;
+    }
+    
+    public void setPowerBuilderNameDensity(double powerBuilderNameDensity) {
+        this.powerBuilderNameDensity = clamp(powerBuilderNameDensity);
+    }
+    
+    private static double clamp(double density) {
+        return Math.max(0.0, Math.min(1.0, density));
+    }
+}
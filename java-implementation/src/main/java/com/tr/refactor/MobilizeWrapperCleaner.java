@@ -1,12 +1,14 @@
 package com.tr.refactor;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Remove wrappers desnecessários do framework Mobilize que tornam o código ilegível.
@@ -16,11 +18,27 @@ import java.util.Optional;
  * - Substituir helpers matemáticos por código Java nativo
  * - Simplificar wrappers de tipos (WebMapAtomicReference, etc.)
  * - Limpar imports estáticos desnecessários
+ * 
+ * As regras são registradas num AstRuleDispatcher, de modo que todas rodam
+ * numa única travessia da árvore (junto com as regras de nomenclatura do
+ * RefactorEngine, quando chamadas por ele).
+ * 
+ * Cada transformação gera um TransformationEvent, entregue ao sink configurado
+ * ou, sem sink, registrado no logger de transformações quando ele está em DEBUG.
  */
 public class MobilizeWrapperCleaner {
     
     private int transformationsCount = 0;
     
+    // Transformações por regra (TransformationEvent.Kind) no arquivo atual, para o JFR
+    private final int[] ruleCounts = new int[TransformationEvent.Kind.values().length];
+    
+    // Destino dos eventos de transformação (null: log direto, se habilitado)
+    private Consumer<TransformationEvent> eventSink = null;
+    
+    // Edições de texto do arquivo atual (null: saída reimpressa, ver SourcePatch)
+    private SourcePatch patch = null;
+    
     /**
      * Remove todos os wrappers Mobilize problemáticos do código.
      * 
@@ -28,21 +46,88 @@ public class MobilizeWrapperCleaner {
      * @return true se houve mudanças
      */
     public boolean cleanMobilizeWrappers(CompilationUnit cu) {
-        transformationsCount = 0;
+        resetCounter();
+        
+        AstRuleDispatcher dispatcher = new AstRuleDispatcher();
+        registerRules(dispatcher);
+        dispatcher.dispatch(cu);
         
+        return transformationsCount > 0;
+    }
+    
+    /**
+     * Registra as regras de limpeza no dispatcher, na ordem em que são aplicadas.
+     * As transformações são somadas em getTransformationsCount().
+     * 
+     * @param dispatcher Dispatcher que fará a travessia da árvore
+     */
+    public void registerRules(AstRuleDispatcher dispatcher) {
+        registerRules(dispatcher, RefactorRule.all());
+    }
+    
+    /**
+     * Registra apenas as regras de limpeza ativas (ver TriggerScanner).
+     * 
+     * @param dispatcher Dispatcher que fará a travessia da árvore
+     * @param activeRules Regras que podem disparar no arquivo
+     */
+    public void registerRules(AstRuleDispatcher dispatcher, Set<RefactorRule> activeRules) {
         // Remove wrappers isTrue()
-        removeIsTrueWrappers(cu);
+        if (activeRules.contains(RefactorRule.IS_TRUE)) {
+            dispatcher.onMethodCall("isTrue", this::removeIsTrueWrapper);
+        }
         
         // Substitui helpers matemáticos
-        replaceMathHelpers(cu);
+        if (activeRules.contains(RefactorRule.MATH_HELPERS)) {
+            dispatcher.onMethodCall("setScale", this::replaceMathHelper);
+        }
         
         // Simplifica wrappers de tipos
-        simplifyTypeWrappers(cu);
+        if (activeRules.contains(RefactorRule.TYPE_WRAPPERS)) {
+            dispatcher.on(ClassOrInterfaceType.class, this::simplifyTypeWrapper);
+        }
         
         // Remove createDecimal wrappers
-        replaceCreateDecimalWrappers(cu);
+        if (activeRules.contains(RefactorRule.CREATE_DECIMAL)) {
+            dispatcher.onMethodCall("createDecimal", this::replaceCreateDecimalWrapper);
+        }
+    }
+    
+    /**
+     * Define para onde vão os eventos de transformação. Com null, os eventos
+     * vão direto para o logger de transformações, e só quando ele está em DEBUG.
+     * 
+     * @param eventSink Consumidor dos eventos ou null
+     */
+    public void setEventSink(Consumer<TransformationEvent> eventSink) {
+        this.eventSink = eventSink;
+    }
+    
+    /**
+     * Define o patch que recebe as edições de texto de cada transformação
+     * (--output-mode patch). Com null, só a árvore é alterada.
+     * 
+     * @param patch Patch do arquivo atual ou null
+     */
+    public void setPatch(SourcePatch patch) {
+        this.patch = patch;
+    }
+    
+    /**
+     * Registra uma transformação sem formatar nada quando o log está desligado.
+     */
+    private void record(TransformationEvent.Kind kind, Node node, String identifier, String replacement) {
+        ruleCounts[kind.ordinal()]++;
+        if (eventSink == null && !TransformationEvent.LOG.isDebugEnabled()) {
+            return;
+        }
         
-        return transformationsCount > 0;
+        TransformationEvent event = new TransformationEvent(kind, node.getRange().orElse(null), identifier, replacement);
+        if (eventSink != null) {
+            eventSink.accept(event);
+        } else {
+            TransformationEvent.LOG.debug("{}", event);
+        }
     }
     
     /**
@@ -53,20 +138,21 @@ public class MobilizeWrapperCleaner {
      * while (isTrue(condition)) → while (condition)
      * return isTrue(value) → return value
      */
-    private void removeIsTrueWrappers(CompilationUnit cu) {
-        cu.findAll(MethodCallExpr.class)
-          .stream()
-          .filter(call -> "isTrue".equals(call.getNameAsString()))
-          .filter(call -> call.getArguments().size() == 1)
-          .forEach(call -> {
-              Expression argument = call.getArgument(0);
-              
-              // Substitui isTrue(expression) por expression
-              call.replace(argument);
-              transformationsCount++;
-              
-              System.out.println("  🔥 Removido isTrue(): " + call + " → " + argument);
-          });
+    private void removeIsTrueWrapper(MethodCallExpr call) {
+        if (call.getArguments().size() != 1) {
+            return;
+        }
+        
+        Expression argument = call.getArgument(0);
+        
+        // Substitui isTrue(expression) por expression
+        if (patch != null) {
+            patch.unwrap(call, argument, "");
+        }
+        call.replace(argument);
+        transformationsCount++;
+        
+        record(TransformationEvent.Kind.IS_TRUE, call, "isTrue", null);
     }
     
     /**
@@ -77,31 +163,31 @@ public class MobilizeWrapperCleaner {
      * setScale(a, plus(a, b)) → a = a.add(b)
      * setScale(a, multiply(a, b)) → a = a.multiply(b)
      */
-    private void replaceMathHelpers(CompilationUnit cu) {
+    private void replaceMathHelper(MethodCallExpr call) {
         // Procura por padrões setScale(var, operation(var, value))
-        cu.findAll(MethodCallExpr.class)
-          .stream()
-          .filter(call -> "setScale".equals(call.getNameAsString()))
-          .filter(call -> call.getArguments().size() == 2)
-          .forEach(call -> {
-              Expression firstArg = call.getArgument(0);
-              Expression secondArg = call.getArgument(1);
-              
-              // Verifica se o segundo argumento é uma operação matemática
-              if (secondArg instanceof MethodCallExpr mathOp) {
-                  String replacement = convertMathOperation(firstArg, mathOp);
-                  if (replacement != null) {
-                      // TODO: Implementar substituição completa da expressão
-                      // Requer análise do contexto (assignment, etc.)
-                      transformationsCount++;
-                      System.out.println("  🧮 Math helper: " + call + " → " + replacement);
-                  }
-              }
-          });
+        if (call.getArguments().size() != 2) {
+            return;
+        }
+        
+        Expression firstArg = call.getArgument(0);
+        Expression secondArg = call.getArgument(1);
+        
+        // Verifica se o segundo argumento é uma operação matemática
+        if (secondArg instanceof MethodCallExpr mathOp) {
+            String replacement = convertMathOperation(firstArg, mathOp);
+            if (replacement != null) {
+                // TODO: Implementar substituição completa da expressão
+                // Requer análise do contexto (assignment, etc.)
+                transformationsCount++;
+                record(TransformationEvent.Kind.MATH_HELPER, call, mathOp.getNameAsString(), replacement);
+            }
+        }
     }
     
     /**
      * Converte operações matemáticas do Mobilize para BigDecimal nativo.
+     * 
+     * @return Método BigDecimal equivalente (subtract, add...) ou null
      */
     private String convertMathOperation(Expression target, MethodCallExpr mathOp) {
         String operationName = mathOp.getNameAsString();
@@ -111,7 +197,6 @@ public class MobilizeWrapperCleaner {
         }
         
         Expression arg1 = mathOp.getArgument(0);
-        Expression arg2 = mathOp.getArgument(1);
         
         // Verifica se o primeiro argumento é o mesmo que o target
         if (!arg1.toString().equals(target.toString())) {
@@ -119,10 +204,10 @@ public class MobilizeWrapperCleaner {
         }
         
         return switch (operationName) {
-            case "minus" -> target + " = " + target + ".subtract(" + arg2 + ")";
-            case "plus" -> target + " = " + target + ".add(" + arg2 + ")";
-            case "multiply" -> target + " = " + target + ".multiply(" + arg2 + ")";
-            case "divide" -> target + " = " + target + ".divide(" + arg2 + ")";
+            case "minus" -> "subtract";
+            case "plus" -> "add";
+            case "multiply" -> "multiply";
+            case "divide" -> "divide";
             default -> null;
         };
     }
@@ -133,15 +218,17 @@ public class MobilizeWrapperCleaner {
      * Transforma:
      * WebMapAtomicReference<Type> → AtomicReference<Type>
      */
-    private void simplifyTypeWrappers(CompilationUnit cu) {
-        cu.findAll(ClassOrInterfaceType.class)
-          .stream()
-          .filter(type -> "WebMapAtomicReference".equals(type.getNameAsString()))
-          .forEach(type -> {
-              type.setName("AtomicReference");
-              transformationsCount++;
-              System.out.println("  📦 Tipo simplificado: WebMapAtomicReference → AtomicReference");
-          });
+    private void simplifyTypeWrapper(ClassOrInterfaceType type) {
+        if (!"WebMapAtomicReference".equals(type.getNameAsString())) {
+            return;
+        }
+        
+        if (patch != null) {
+            patch.replace(type.getName(), "AtomicReference");
+        }
+        type.setName("AtomicReference");
+        transformationsCount++;
+        record(TransformationEvent.Kind.TYPE_WRAPPER, type, "WebMapAtomicReference", "AtomicReference");
     }
     
     /**
@@ -151,26 +238,29 @@ public class MobilizeWrapperCleaner {
      * createDecimal(BigDecimal.ZERO, 2) → BigDecimal.ZERO
      * createDecimal(value, scale) → value
      */
-    private void replaceCreateDecimalWrappers(CompilationUnit cu) {
-        cu.findAll(MethodCallExpr.class)
-          .stream()
-          .filter(call -> "createDecimal".equals(call.getNameAsString()))
-          .forEach(call -> {
-              if (call.getArguments().size() >= 1) {
-                  Expression firstArg = call.getArgument(0);
-                  
-                  // Se o primeiro argumento é BigDecimal.ZERO, substitui diretamente
-                  if (firstArg.toString().contains("BigDecimal.ZERO")) {
-                      call.replace(new NameExpr("BigDecimal.ZERO"));
-                  } else {
-                      // Caso contrário, usa apenas o primeiro argumento
-                      call.replace(firstArg);
-                  }
-                  
-                  transformationsCount++;
-                  System.out.println("  💰 createDecimal removido: " + call + " → " + firstArg);
-              }
-          });
+    private void replaceCreateDecimalWrapper(MethodCallExpr call) {
+        if (call.getArguments().size() >= 1) {
+            Expression firstArg = call.getArgument(0);
+            
+            // Se o primeiro argumento é BigDecimal.ZERO, substitui diretamente
+            String replacement = null;
+            if (firstArg.toString().contains("BigDecimal.ZERO")) {
+                replacement = "BigDecimal.ZERO";
+                if (patch != null) {
+                    patch.replace(call, replacement);
+                }
+                call.replace(new NameExpr(replacement));
+            } else {
+                // Caso contrário, usa apenas o primeiro argumento
+                if (patch != null) {
+                    patch.unwrap(call, firstArg, "");
+                }
+                call.replace(firstArg);
+            }
+            
+            transformationsCount++;
+            record(TransformationEvent.Kind.CREATE_DECIMAL, call, "createDecimal", replacement);
+        }
     }
     
     /**
@@ -180,19 +270,26 @@ public class MobilizeWrapperCleaner {
      * not(expression) → !expression
      */
     public void removeNotWrappers(CompilationUnit cu) {
-        cu.findAll(MethodCallExpr.class)
-          .stream()
-          .filter(call -> "not".equals(call.getNameAsString()))
-          .filter(call -> call.getArguments().size() == 1)
-          .forEach(call -> {
-              Expression argument = call.getArgument(0);
-              UnaryExpr negation = new UnaryExpr(argument, UnaryExpr.Operator.LOGICAL_COMPLEMENT);
-              
-              call.replace(negation);
-              transformationsCount++;
-              
-              System.out.println("  ❗ Removido not(): " + call + " → !" + argument);
-          });
+        AstRuleDispatcher dispatcher = new AstRuleDispatcher();
+        dispatcher.onMethodCall("not", this::removeNotWrapper);
+        dispatcher.dispatch(cu);
+    }
+    
+    private void removeNotWrapper(MethodCallExpr call) {
+        if (call.getArguments().size() != 1) {
+            return;
+        }
+        
+        Expression argument = call.getArgument(0);
+        UnaryExpr negation = new UnaryExpr(argument, UnaryExpr.Operator.LOGICAL_COMPLEMENT);
+        
+        if (patch != null) {
+            patch.unwrap(call, argument, "!");
+        }
+        call.replace(negation);
+        transformationsCount++;
+        
+        record(TransformationEvent.Kind.NOT, call, "not", "!");
     }
     
     /**
@@ -207,5 +304,15 @@ public class MobilizeWrapperCleaner {
      */
     public void resetCounter() {
         transformationsCount = 0;
+        Arrays.fill(ruleCounts, 0);
+    }
+    
+    /**
+     * Emite um RuleAppliedEvent (JFR) por regra aplicada desde o último reset.
+     * 
+     * @param path Caminho relativo do arquivo
+     */
+    public void emitRuleEvents(String path) {
+        RuleAppliedEvent.emit(path, ruleCounts);
     }
 }
\ No newline at end of file
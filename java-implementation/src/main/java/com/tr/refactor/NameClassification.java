@@ -0,0 +1,101 @@
+package com.tr.refactor;
+
+/**
+ * Classificação de um identificador segundo os padrões PowerBuilder.
+ * 
+ * Todas as combinações possíveis são pré-criadas numa tabela estática, então
+ * PowerBuilderPatternMatcher.classify() não aloca memória: apenas devolve a
+ * instância correspondente.
+ */
+public final class NameClassification {
+    
+    /**
+     * Tipo de método PowerBuilder (of_get_, of_set_, of_is_).
+     */
+    public enum MethodKind {
+        NONE, GETTER, SETTER, BOOLEAN
+    }
+    
+    private static final int CLASS_FLAG = 1;
+    private static final int METHOD_FLAG = 2;
+    private static final int VARIABLE_FLAG = 4;
+    
+    private static final PowerBuilderPrefixType[] PREFIX_TYPES = PowerBuilderPrefixType.values();
+    private static final MethodKind[] METHOD_KINDS = MethodKind.values();
+    private static final NameClassification[] TABLE = buildTable();
+    
+    public static final NameClassification NONE = of(false, false, false, MethodKind.NONE, null);
+    
+    private final boolean className;
+    private final boolean methodName;
+    private final boolean variableName;
+    private final MethodKind methodKind;
+    private final PowerBuilderPrefixType prefixType;
+    
+    private NameClassification(int flags, MethodKind methodKind, PowerBuilderPrefixType prefixType) {
+        this.className = (flags & CLASS_FLAG) != 0;
+        this.methodName = (flags & METHOD_FLAG) != 0;
+        this.variableName = (flags & VARIABLE_FLAG) != 0;
+        this.methodKind = methodKind;
+        this.prefixType = prefixType;
+    }
+    
+    private static NameClassification[] buildTable() {
+        NameClassification[] table = new NameClassification[8 * METHOD_KINDS.length * (PREFIX_TYPES.length + 1)];
+        for (int flags = 0; flags < 8; flags++) {
+            for (MethodKind kind : METHOD_KINDS) {
+                table[index(flags, kind, null)] = new NameClassification(flags, kind, null);
+                for (PowerBuilderPrefixType type : PREFIX_TYPES) {
+                    table[index(flags, kind, type)] = new NameClassification(flags, kind, type);
+                }
+            }
+        }
+        return table;
+    }
+    
+    private static int index(int flags, MethodKind kind, PowerBuilderPrefixType type) {
+        int prefixSlot = type == null ? 0 : type.ordinal() + 1;
+        return (prefixSlot * METHOD_KINDS.length + kind.ordinal()) * 8 + flags;
+    }
+    
+    /**
+     * Retorna a instância compartilhada para a combinação informada.
+     */
+    static NameClassification of(boolean className, boolean methodName, boolean variableName,
+                                 MethodKind methodKind, PowerBuilderPrefixType prefixType) {
+        int flags = (className ? CLASS_FLAG : 0)
+            | (methodName ? METHOD_FLAG : 0)
+            | (variableName ? VARIABLE_FLAG : 0);
+        return TABLE[index(flags, methodKind, prefixType)];
+    }
+    
+    public boolean isClassName() {
+        return className;
+    }
+    
+    public boolean isMethodName() {
+        return methodName;
+    }
+    
+    public boolean isVariableName() {
+        return variableName;
+    }
+    
+    public MethodKind getMethodKind() {
+        return methodKind;
+    }
+    
+    /**
+     * @return Tipo do prefixo ou null se não for PowerBuilder
+     */
+    public PowerBuilderPrefixType getPrefixType() {
+        return prefixType;
+    }
+    
+    @Override
+    public String toString() {
+        return "NameClassification{class=" + className + ", method=" + methodName
+            + ", variable=" + variableName + ", methodKind=" + methodKind
+            + ", prefixType=" + prefixType + "}";
+    }
+}
@@ -2,13 +2,15 @@ package com.tr.refactor;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * Converte nomenclaturas PowerBuilder para padrões Java adequados.
  * 
  * Esta classe implementa as regras de conversão específicas para transformar
  * nomes de classes, métodos e variáveis do padrão PowerBuilder para Java.
+ * 
+ * As conversões são memorizadas num ConversionCache, que pode ser
+ * compartilhado por todas as threads de uma execução.
  */
 public class NameConverter {
     
@@ -41,6 +43,9 @@ public class NameConverter {
         PAYROLL_TERMS.put("encargo", "Charge");
     }
     
+    // Dicionário compilado uma única vez (tries de prefixo/sufixo)
+    private static final PayrollTermTranslator TERM_TRANSLATOR = new PayrollTermTranslator(PAYROLL_TERMS);
+    
     // Mapeamentos de métodos comuns
     private static final Map<String, String> METHOD_MAPPINGS = new HashMap<>();
     static {
@@ -56,9 +61,22 @@ public class NameConverter {
     }
     
     private final PowerBuilderPatternMatcher patternMatcher;
+    private final ConversionCache cache;
     
     public NameConverter() {
+        this(new ConversionCache(ConversionCache.DEFAULT_MAX_SIZE));
+    }
+    
+    public NameConverter(ConversionCache cache) {
         this.patternMatcher = new PowerBuilderPatternMatcher();
+        this.cache = cache;
+    }
+    
+    /**
+     * Retorna o cache de conversões (para estatísticas de hits/misses).
+     */
+    public ConversionCache getCache() {
+        return cache;
     }
     
     /**
@@ -71,7 +89,10 @@ public class NameConverter {
         if (className == null || className.isEmpty()) {
             return className;
         }
-        
+        return cache.get(ConversionCache.Kind.CLASS, className, this::computeClassName);
+    }
+    
+    private String computeClassName(String className) {
         // Remove prefixos PowerBuilder e converte para PascalCase
         String converted = className;
         
@@ -107,26 +128,30 @@ public class NameConverter {
         if (methodName == null || methodName.isEmpty()) {
             return methodName;
         }
-        
+        return cache.get(ConversionCache.Kind.METHOD, methodName, this::computeMethodName);
+    }
+    
+    private String computeMethodName(String methodName) {
         // Verifica mapeamentos diretos primeiro
         if (METHOD_MAPPINGS.containsKey(methodName)) {
             return METHOD_MAPPINGS.get(methodName);
         }
         
         String converted = methodName;
+        NameClassification.MethodKind methodKind = patternMatcher.classify(methodName).getMethodKind();
         
         // Trata getters PowerBuilder
-        if (patternMatcher.isPowerBuilderGetter(methodName)) {
+        if (methodKind == NameClassification.MethodKind.GETTER) {
             converted = converted.substring(7); // Remove "of_get_"
             converted = "get" + underscoreToCamelCase(converted, true);
         }
         // Trata setters PowerBuilder
-        else if (patternMatcher.isPowerBuilderSetter(methodName)) {
+        else if (methodKind == NameClassification.MethodKind.SETTER) {
             converted = converted.substring(7); // Remove "of_set_"
             converted = "set" + underscoreToCamelCase(converted, true);
         }
         // Trata métodos boolean PowerBuilder
-        else if (patternMatcher.isPowerBuilderBooleanMethod(methodName)) {
+        else if (methodKind == NameClassification.MethodKind.BOOLEAN) {
             converted = converted.substring(6); // Remove "of_is_"
             converted = "is" + underscoreToCamelCase(converted, true);
         }
@@ -152,8 +177,11 @@ public class NameConverter {
         if (variableName == null || variableName.isEmpty()) {
             return variableName;
         }
-        
-        PowerBuilderPrefixType prefixType = patternMatcher.identifyPrefixType(variableName);
+        return cache.get(ConversionCache.Kind.VARIABLE, variableName, this::computeVariableName);
+    }
+    
+    private String computeVariableName(String variableName) {
+        PowerBuilderPrefixType prefixType = patternMatcher.classify(variableName).getPrefixType();
         String converted = variableName;
         
         if (prefixType != null) {
@@ -239,31 +267,6 @@ public class NameConverter {
      * @return String com termos traduzidos
      */
     private String translatePayrollTerms(String input) {
-        if (input == null || input.isEmpty()) {
-            return input;
-        }
-        
-        String result = input;
-        
-        // Aplica traduções de termos específicos
-        for (Map.Entry<String, String> entry : PAYROLL_TERMS.entrySet()) {
-            String portuguese = entry.getKey();
-            String english = entry.getValue();
-            
-            // Substitui termos completos (case insensitive)
-            result = result.replaceAll("(?i)\\b" + portuguese + "\\b", english);
-            
-            // Substitui no início da string
-            if (result.toLowerCase().startsWith(portuguese.toLowerCase())) {
-                result = english + result.substring(portuguese.length());
-            }
-            
-            // Substitui no final da string
-            if (result.toLowerCase().endsWith(portuguese.toLowerCase())) {
-                result = result.substring(0, result.length() - portuguese.length()) + english;
-            }
-        }
-        
-        return result;
+        return TERM_TRANSLATOR.translate(input);
     }
 }
\ No newline at end of file
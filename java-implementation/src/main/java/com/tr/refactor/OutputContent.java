@@ -0,0 +1,44 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+
+/**
+ * Conteúdo de um arquivo refatorado, entregue em blocos de bytes ao destino
+ * (gravação, comparação com a saída existente, hash do manifesto) sem
+ * materializar o arquivo inteiro em bytes.
+ * 
+ * Duas formas: o código reimpresso pelo printer (printed) e o original com
+ * os trechos editados substituídos (SourcePatch, --output-mode patch).
+ */
+public interface OutputContent {
+    
+    /**
+     * Tamanho exato em bytes, ou -1 se só é conhecido depois de codificar.
+     */
+    long length();
+    
+    /**
+     * Entrega o conteúdo em blocos, na ordem.
+     * 
+     * @param encoder Buffers da thread atual
+     * @return false se o destino interrompeu a entrega
+     */
+    boolean writeTo(OutputEncoder encoder, OutputEncoder.ChunkSink sink) throws IOException;
+    
+    /**
+     * Código reimpresso, codificado em blocos na codificação do original.
+     */
+    static OutputContent printed(String text, SourceEncoding encoding) {
+        return new OutputContent() {
+            @Override
+            public long length() {
+                return OutputEncoder.encodedLength(text, encoding);
+            }
+            
+            @Override
+            public boolean writeTo(OutputEncoder encoder, OutputEncoder.ChunkSink sink) throws IOException {
+                return encoder.encode(text, encoding, sink);
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codifica o código impresso em blocos, num buffer reaproveitado entre
+ * arquivos, e entrega cada bloco direto ao destino (canal do arquivo,
+ * comparação com a saída existente, hash do manifesto).
+ * 
+ * Evita as cópias inteiras da saída que String.getBytes ou
+ * CharsetEncoder.encode(CharBuffer) criam: a única cópia completa em memória
+ * é a String devolvida pelo printer.
+ * 
+ * Não é thread-safe: cada thread que imprime ou grava tem o seu.
+ */
+public class OutputEncoder {
+    
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    
+    private final char[] chars;
+    private final CharBuffer charBuffer;
+    private final ByteBuffer bytes;
+    private final ByteBuffer scratch;
+    private final Map<Charset, CharsetEncoder> encoders = new HashMap<>();
+    
+    public OutputEncoder() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+    
+    public OutputEncoder(int chunkSize) {
+        int size = Math.max(16, chunkSize);
+        this.chars = new char[size];
+        this.charBuffer = CharBuffer.wrap(chars);
+        // Buffers em heap: o encoder só usa o caminho rápido com arrays dos dois lados
+        this.bytes = ByteBuffer.allocate(size * 4);
+        this.scratch = ByteBuffer.allocate(size * 4);
+    }
+    
+    /**
+     * Destino dos blocos codificados.
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        
+        /**
+         * Consome os bytes restantes do bloco; o buffer é reaproveitado no
+         * bloco seguinte.
+         * 
+         * @return false para interromper a codificação
+         */
+        boolean accept(ByteBuffer chunk) throws IOException;
+    }
+    
+    /**
+     * Codifica o texto em blocos, precedido do BOM se a codificação tiver um.
+     * Como Files.writeString, falha em caracteres que o charset não representa
+     * em vez de substituí-los.
+     * 
+     * @return false se o destino interrompeu a codificação
+     */
+    public boolean encode(String text, SourceEncoding encoding, ChunkSink sink) throws IOException {
+        CharsetEncoder encoder = encoders.computeIfAbsent(encoding.getCharset(), Charset::newEncoder);
+        encoder.reset();
+        charBuffer.clear();
+        bytes.clear();
+        if (encoding.hasBom()) {
+            charBuffer.put('\uFEFF');
+        }
+        
+        int length = text.length();
+        int position = 0;
+        while (true) {
+            // Caracteres que sobraram do bloco anterior (ex.: surrogate partido) ficam no início
+            int count = Math.min(charBuffer.remaining(), length - position);
+            text.getChars(position, position + count, chars, charBuffer.position());
+            charBuffer.position(charBuffer.position() + count);
+            position += count;
+            charBuffer.flip();
+            
+            boolean endOfInput = position == length;
+            while (true) {
+                CoderResult result = encoder.encode(charBuffer, bytes, endOfInput);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (!result.isOverflow()) {
+                    break;
+                }
+                if (!drain(sink)) {
+                    return false;
+                }
+            }
+            charBuffer.compact();
+            if (endOfInput) {
+                break;
+            }
+        }
+        
+        while (encoder.flush(bytes).isOverflow()) {
+            if (!drain(sink)) {
+                return false;
+            }
+        }
+        return drain(sink);
+    }
+    
+    private boolean drain(ChunkSink sink) throws IOException {
+        bytes.flip();
+        boolean proceed = !bytes.hasRemaining() || sink.accept(bytes);
+        bytes.clear();
+        return proceed;
+    }
+    
+    /**
+     * Tamanho exato do texto codificado (com o BOM), sem codificá-lo; -1 se o
+     * charset não permite calcular (só UTF-8 e charsets de um byte por caractere).
+     */
+    public static long encodedLength(String text, SourceEncoding encoding) {
+        Charset charset = encoding.getCharset();
+        if (StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+            return text.length();
+        }
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return -1;
+        }
+        
+        long length = encoding.getBomLength();
+        int size = text.length();
+        for (int i = 0; i < size; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Buffer auxiliar do mesmo tamanho dos blocos, para quem precisa ler o
+     * trecho correspondente de outro lugar (ex.: o arquivo existente).
+     */
+    ByteBuffer scratch() {
+        scratch.clear();
+        return scratch;
+    }
+}
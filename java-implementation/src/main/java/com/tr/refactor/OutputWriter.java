@@ -0,0 +1,160 @@
+package com.tr.refactor;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Gravação atômica dos arquivos refatorados.
+ * 
+ * Cada arquivo é gravado num temporário no mesmo diretório e renomeado sobre
+ * o destino, então uma interrupção nunca deixa um arquivo pela metade. Saída
+ * idêntica ao arquivo já existente não é regravada: a data de modificação
+ * fica intacta e o build seguinte não recompila o que não mudou. O conteúdo
+ * chega em blocos (OutputContent) direto no canal, sem uma cópia em bytes da
+ * saída inteira.
+ * 
+ * Ordem de durabilidade: o temporário recebe fsync antes do rename (uma queda
+ * nunca deixa o destino vazio ou truncado, nem in-place); o fsync dos
+ * diretórios, onde ficam os renames, é feito em lotes, a cada
+ * DEFAULT_SYNC_BATCH arquivos e em flush(). Só depois do flush() um arquivo
+ * gravado conta como durável (ProgressJournal).
+ * 
+ * Thread-safe: usado por todas as threads de escrita do pipeline.
+ */
+public class OutputWriter implements Flushable {
+    
+    public static final int DEFAULT_SYNC_BATCH = 256;
+    
+    private final int syncBatch;
+    private final Set<Path> pending = new LinkedHashSet<>();
+    private int pendingFiles = 0;
+    
+    public OutputWriter() {
+        this(DEFAULT_SYNC_BATCH);
+    }
+    
+    public OutputWriter(int syncBatch) {
+        this.syncBatch = Math.max(1, syncBatch);
+    }
+    
+    /**
+     * Verifica se o destino já tem exatamente este conteúdo, comparando bloco
+     * a bloco enquanto o conteúdo é gerado. Só lê o destino quando o tamanho
+     * bate (ou não é conhecido de antemão).
+     */
+    public boolean isUnchanged(Path target, OutputContent content, OutputEncoder encoder) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(target, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        long length = content.length();
+        if (!attributes.isRegularFile() || (length >= 0 && attributes.size() != length)) {
+            return false;
+        }
+        
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            boolean matched = content.writeTo(encoder, chunk -> {
+                // Um bloco (ex.: trecho intacto do original) pode ser maior que o buffer auxiliar
+                ByteBuffer expected = chunk.duplicate();
+                while (expected.hasRemaining()) {
+                    ByteBuffer existing = encoder.scratch();
+                    existing.limit(Math.min(existing.capacity(), expected.remaining()));
+                    while (existing.hasRemaining()) {
+                        if (channel.read(existing) < 0) {
+                            return false;
+                        }
+                    }
+                    existing.flip();
+                    ByteBuffer part = expected.duplicate();
+                    part.limit(part.position() + existing.remaining());
+                    if (!existing.equals(part)) {
+                        return false;
+                    }
+                    expected.position(part.limit());
+                }
+                return true;
+            });
+            return matched && channel.position() == channel.size();
+        }
+    }
+    
+    /**
+     * Grava o conteúdo, bloco a bloco, direto num temporário, faz o fsync e o
+     * renomeia sobre o destino. O fsync do diretório fica para o próximo lote.
+     */
+    public void write(Path target, OutputContent content, OutputEncoder encoder) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        
+        // Sem extensão .java: um temporário esquecido por uma interrupção não é
+        // processado. Files.createTempFile não serve: cria o arquivo com permissão 600
+        Path tempFile = dir.resolve("." + target.getFileName() + "."
+            + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW,
+                                                        StandardOpenOption.WRITE)) {
+                content.writeTo(encoder, chunk -> {
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                    return true;
+                });
+                // O conteúdo chega ao disco antes de o rename substituir o destino
+                channel.force(true);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        
+        boolean batchFull;
+        synchronized (pending) {
+            pending.add(dir);
+            batchFull = ++pendingFiles >= syncBatch;
+        }
+        if (batchFull) {
+            flush();
+        }
+    }
+    
+    /**
+     * Faz o fsync dos diretórios dos arquivos gravados desde o último lote
+     * (onde fica o rename); o conteúdo já recebeu fsync em write().
+     */
+    @Override
+    public void flush() throws IOException {
+        List<Path> dirs;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            dirs = new ArrayList<>(pending);
+            pending.clear();
+            pendingFiles = 0;
+        }
+        
+        for (Path dir : dirs) {
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Nem todo sistema permite abrir um diretório (ex.: Windows)
+            }
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.tr.refactor;
 
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -21,11 +31,16 @@ import java.util.concurrent.Callable;
     name = "payroll-refactor", 
     mixinStandardHelpOptions = true,
     version = "2.0.0",
-    description = "Refatora código PowerBuilder migrado para Java melhorando legibilidade e removendo wrappers Mobilize"
+    description = "Refatora código PowerBuilder migrado para Java melhorando legibilidade e removendo wrappers Mobilize",
+    subcommands = {GenerateCorpusCommand.class}
 )
 public class PayrollRefactorTool implements Callable<Integer> {
 
-    @Parameters(index = "0", description = "Diretório de entrada com código Java")
+    @Spec
+    private CommandSpec spec;
+
+    // Opcional para o picocli só para que subcomandos (generate-corpus) funcionem sem ele
+    @Parameters(index = "0", arity = "0..1", description = "Diretório de entrada com código Java")
     private Path inputDir;
 
     @Option(names = {"-o", "--output"}, description = "Diretório de saída (padrão: mesmo diretório)")
@@ -37,19 +52,102 @@ public class PayrollRefactorTool implements Callable<Integer> {
     @Option(names = {"-v", "--verbose"}, description = "Saída detalhada")
     private boolean verbose = false;
 
-    @Option(names = {"--preserve-comments"}, description = "Preserva comentários originais")
+    @Option(names = {"--no-preserve-comments"}, negatable = true,
+            description = "Preserva comentários originais; --no-preserve-comments acelera o parse e, no modo reprint, descarta os comentários (no modo patch eles ficam, exceto em arquivos reimpressos) (padrão: preserva)")
     private boolean preserveComments = true;
 
     @Option(names = {"--backup"}, description = "Cria backup dos arquivos originais")
     private boolean createBackup = true;
 
+    @Option(names = {"--backup-mode"}, paramLabel = "MODO",
+            description = "Como guardar os originais: copy (arquivo .backup), link (hard link .backup) ou archive (um zip por execução; in-place, cada original chega ao disco no zip antes de ser sobrescrito) (padrão: copy)")
+    private RefactorOptions.BackupMode backupMode = RefactorOptions.BackupMode.COPY;
+
+    @Option(names = {"--output-mode"}, paramLabel = "MODO",
+            description = "Como gerar a saída: reprint (reimprime o arquivo) ou patch (altera só os trechos transformados, mantendo a formatação original) (padrão: reprint)")
+    private RefactorOptions.OutputMode outputMode = RefactorOptions.OutputMode.REPRINT;
+
+    @Option(names = {"--lexer-renames"}, description = "Com --output-mode patch, renomeia pelos tokens os arquivos que só precisam de renomeações, sem o parse completo")
+    private boolean lexerRenames = false;
+
+    @Option(names = {"--threads"}, paramLabel = "N", description = "Número de threads de processamento (padrão: número de núcleos)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--read-threads"}, paramLabel = "N", description = "Threads de leitura do pipeline (padrão: 2)")
+    private int readThreads = 2;
+
+    @Option(names = {"--write-threads"}, paramLabel = "N", description = "Threads de backup e escrita do pipeline (padrão: 2)")
+    private int writeThreads = 2;
+
+    @Option(names = {"--queue-size"}, paramLabel = "N", description = "Arquivos em espera entre estágios do pipeline (padrão: 64)")
+    private int queueCapacity = 64;
+
+    @Option(names = {"--scan-threads"}, paramLabel = "N", description = "Threads da varredura de diretórios (padrão: número de núcleos)")
+    private int scanThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--include"}, paramLabel = "GLOB", description = "Processa só os .java que casam com o glob (repetível)")
+    private List<String> includes = new ArrayList<>();
+
+    @Option(names = {"--exclude"}, paramLabel = "GLOB", description = "Ignora arquivos e diretórios que casam com o glob, ex.: build, .git (repetível)")
+    private List<String> excludes = new ArrayList<>();
+
+    @Option(names = {"--schedule"}, paramLabel = "ORDEM",
+            description = "Ordem de processamento com várias threads: ${COMPLETION-CANDIDATES} (padrão: ${DEFAULT-VALUE})")
+    private RefactorOptions.Schedule schedule = RefactorOptions.Schedule.LARGEST_FIRST;
+
+    @Option(names = {"--weights"}, description = "Agenda pelos tempos da execução anterior (arquivo ao lado do diretório de saída)")
+    private boolean weights = false;
+
+    @Option(names = {"--weights-file"}, paramLabel = "ARQUIVO", description = "Arquivo de pesos de agendamento (implica --weights)")
+    private Path weightsFile;
+
+    @Option(names = {"--file-timeout"}, paramLabel = "SEGUNDOS", description = "Cancela arquivos que passam deste tempo de processamento (padrão: 0, sem limite)")
+    private double fileTimeoutSeconds = 0;
+
+    @Option(names = {"--slow-file-threshold"}, paramLabel = "SEGUNDOS", description = "Loga arquivos ainda em processamento após este tempo (padrão: 30, 0 desativa)")
+    private double slowFileThresholdSeconds = 30;
+
+    @Option(names = {"--incremental"}, description = "Pula arquivos inalterados desde a última execução (manifesto ao lado do diretório de saída)")
+    private boolean incremental = false;
+
+    @Option(names = {"--resume"}, description = "Retoma uma execução interrompida, pulando os arquivos já concluídos (diário ao lado do diretório de saída)")
+    private boolean resume = false;
+
+    @Option(names = {"--fallback-encoding"}, paramLabel = "CHARSET", description = "Codificação dos arquivos sem BOM que não são UTF-8 válido; a saída mantém a codificação de cada arquivo (padrão: ISO-8859-1)")
+    private Charset fallbackEncoding = StandardCharsets.ISO_8859_1;
+
+    @Option(names = {"--name-cache-size"}, paramLabel = "N", description = "Máximo de conversões de nomes em cache (padrão: 50000, 0 desativa)")
+    private int nameCacheSize = ConversionCache.DEFAULT_MAX_SIZE;
+
+    @Option(names = {"--no-prefilter"}, description = "Desativa o pré-filtro de tokens e faz o parse de todos os arquivos")
+    private boolean noPrefilter = false;
+
+    @Option(names = {"--report"}, paramLabel = "ARQUIVO", description = "Grava um relatório JSON Lines por arquivo e por transformação")
+    private Path reportFile;
+
+    @Option(names = {"--metrics"}, description = "Mede o tempo de cada fase e mostra percentis, vazão e arquivos mais lentos")
+    private boolean metrics = false;
+
+    @Option(names = {"--metrics-out"}, paramLabel = "ARQUIVO", description = "Grava as métricas em JSON (implica --metrics)")
+    private Path metricsFile;
+
+    @Option(names = {"--jfr"}, arity = "0..1", paramLabel = "ARQUIVO", fallbackValue = "payroll-refactor.jfr",
+            description = "Grava uma sessão do JDK Flight Recorder com eventos por arquivo, fase e regra (padrão: payroll-refactor.jfr)")
+    private Path jfrFile;
+
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new PayrollRefactorTool()).execute(args);
+        int exitCode = new CommandLine(new PayrollRefactorTool())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
         System.exit(exitCode);
     }
 
     @Override
     public Integer call() throws Exception {
+        if (inputDir == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required parameter: '<inputDir>'");
+        }
+        
         System.out.println("🔧 Payroll Refactor Tool v2.0.0");
         System.out.println("🔥 NOVA VERSÃO: Remove wrappers Mobilize problemáticos!");
         System.out.println("📁 Analisando: " + inputDir);
@@ -58,18 +156,52 @@ public class PayrollRefactorTool implements Callable<Integer> {
             System.out.println("🧪 Modo DRY-RUN: Nenhum arquivo será modificado");
         }
         
+        if (verbose) {
+            enableTransformationLog();
+        }
+        
+        if (lexerRenames && outputMode != RefactorOptions.OutputMode.PATCH) {
+            throw new ParameterException(spec.commandLine(), "--lexer-renames requer --output-mode patch");
+        }
+        
         if (outputDir == null) {
             outputDir = inputDir;
         }
         
-        RefactorEngine engine = new RefactorEngine(
-            inputDir, 
-            outputDir, 
-            dryRun, 
-            verbose, 
-            preserveComments, 
-            createBackup
-        );
+        RefactorOptions options = new RefactorOptions();
+        options.setDryRun(dryRun);
+        options.setVerbose(verbose);
+        options.setPreserveComments(preserveComments);
+        options.setCreateBackup(createBackup);
+        options.setBackupMode(backupMode);
+        options.setOutputMode(outputMode);
+        options.setLexerRenames(lexerRenames);
+        options.setThreads(threads);
+        options.setReadThreads(readThreads);
+        options.setWriteThreads(writeThreads);
+        options.setQueueCapacity(queueCapacity);
+        options.setScanThreads(scanThreads);
+        options.setIncludes(includes);
+        options.setExcludes(excludes);
+        options.setSchedule(schedule);
+        if (weightsFile != null) {
+            options.setWeightsFile(weightsFile);
+        } else if (weights) {
+            options.setWeightsFile(WeightsManifest.defaultLocation(outputDir));
+        }
+        options.setFileTimeout(seconds(fileTimeoutSeconds));
+        options.setSlowFileThreshold(seconds(slowFileThresholdSeconds));
+        options.setIncremental(incremental);
+        options.setResume(resume);
+        options.setFallbackEncoding(fallbackEncoding);
+        options.setNameCacheSize(nameCacheSize);
+        options.setPrefilter(!noPrefilter);
+        options.setReportFile(reportFile);
+        options.setMetrics(metrics);
+        options.setMetricsFile(metricsFile);
+        options.setJfrFile(jfrFile);
+        
+        RefactorEngine engine = new RefactorEngine(inputDir, outputDir, options);
         
         RefactorResult result = engine.execute();
         
@@ -89,11 +221,26 @@ public class PayrollRefactorTool implements Callable<Integer> {
             System.out.println("  1. Compile o código para verificar sintaxe");
             System.out.println("  2. Execute os testes existentes");
             System.out.println("  3. Revise as mudanças manualmente");
-            if (createBackup) {
+            if (createBackup && backupMode == RefactorOptions.BackupMode.ARCHIVE) {
+                System.out.println("  4. Remova o zip de backup se tudo estiver OK");
+            } else if (createBackup) {
                 System.out.println("  4. Remova arquivos .backup se tudo estiver OK");
             }
         }
         
         return result.isSuccess() ? 0 : 1;
     }
-}
\ No newline at end of file
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofNanos((long) (seconds * 1e9));
+    }
+
+    /**
+     * Coloca o logger de transformações em DEBUG para listar cada transformação.
+     */
+    private static void enableTransformationLog() {
+        if (LoggerFactory.getLogger(TransformationEvent.LOGGER_NAME) instanceof ch.qos.logback.classic.Logger logger) {
+            logger.setLevel(Level.DEBUG);
+        }
+    }
+}
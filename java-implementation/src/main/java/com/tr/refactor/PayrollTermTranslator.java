@@ -0,0 +1,230 @@
+package com.tr.refactor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Traduz termos de folha de pagamento num identificador usando tries
+ * compiladas uma única vez.
+ * 
+ * A regra original aplica, para cada termo na ordem do dicionário:
+ * substituição da palavra inteira (regex (?i)\btermo\b), depois troca do
+ * prefixo e depois troca do sufixo. Num identificador Java comum (apenas
+ * [A-Za-z0-9_]) a palavra inteira só casa com o identificador todo, então
+ * basta saber quais termos são prefixo ou sufixo. Duas tries (uma lida do
+ * início, outra do fim, sem distinção de maiúsculas) respondem isso numa
+ * leitura de no máximo o tamanho do maior termo, sem alocar memória.
+ * 
+ * As substituições continuam sendo aplicadas na ordem do dicionário, e as
+ * máscaras são recalculadas após cada troca, para reproduzir exatamente o
+ * resultado da regra original. Identificadores com outros caracteres (ou
+ * fora de ASCII) usam o algoritmo original com os Patterns pré-compilados.
+ */
+class PayrollTermTranslator {
+    
+    private static final int ALPHABET = 26;
+    
+    private final String[] terms;
+    private final String[] translations;
+    private final Pattern[] wholeWordPatterns;
+    
+    // Tries: next[nó][letra] = próximo nó (0 = ausente); termAt[nó] = índice do termo ou -1
+    private final int[][] prefixNext;
+    private final int[] prefixTermAt;
+    private final int[][] suffixNext;
+    private final int[] suffixTermAt;
+    private final boolean fastPathEnabled;
+    
+    /**
+     * @param dictionary Termos (português, minúsculas) e traduções, na ordem de aplicação
+     */
+    PayrollTermTranslator(Map<String, String> dictionary) {
+        int size = dictionary.size();
+        this.terms = new String[size];
+        this.translations = new String[size];
+        this.wholeWordPatterns = new Pattern[size];
+        
+        int index = 0;
+        int totalLength = 1;
+        boolean lettersOnly = true;
+        for (Map.Entry<String, String> entry : dictionary.entrySet()) {
+            terms[index] = entry.getKey();
+            translations[index] = entry.getValue();
+            wholeWordPatterns[index] = Pattern.compile("(?i)\\b" + entry.getKey() + "\\b");
+            totalLength += entry.getKey().length();
+            lettersOnly &= entry.getKey().matches("[a-z]+");
+            index++;
+        }
+        
+        // Máscaras de bits limitam o dicionário a 64 termos no caminho rápido
+        this.fastPathEnabled = lettersOnly && size <= Long.SIZE
+            && "I".toLowerCase().equals("i");
+        
+        this.prefixNext = new int[totalLength][ALPHABET];
+        this.prefixTermAt = new int[totalLength];
+        this.suffixNext = new int[totalLength][ALPHABET];
+        this.suffixTermAt = new int[totalLength];
+        
+        if (fastPathEnabled) {
+            buildTrie(prefixNext, prefixTermAt, false);
+            buildTrie(suffixNext, suffixTermAt, true);
+        }
+    }
+    
+    private void buildTrie(int[][] next, int[] termAt, boolean reversed) {
+        Arrays.fill(termAt, -1);
+        int nodes = 1;
+        
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            int node = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(reversed ? term.length() - 1 - i : i);
+                int letter = c - 'a';
+                if (next[node][letter] == 0) {
+                    next[node][letter] = nodes++;
+                }
+                node = next[node][letter];
+            }
+            termAt[node] = t;
+        }
+    }
+    
+    /**
+     * Traduz os termos do identificador.
+     * 
+     * @param input Identificador
+     * @return Identificador com os termos traduzidos
+     */
+    String translate(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        
+        if (!fastPathEnabled || !isAsciiWord(input)) {
+            return translateLegacy(input);
+        }
+        
+        String result = input;
+        long prefixes = matchPrefixes(result);
+        long suffixes = matchSuffixes(result);
+        
+        int t = 0;
+        while (t < terms.length) {
+            long pending = (prefixes | suffixes) & (-1L << t);
+            if (pending == 0) {
+                break;
+            }
+            t = Long.numberOfTrailingZeros(pending);
+            
+            // Palavra inteira e prefixo: no identificador inteiro ambos resultam
+            // em tradução + resto
+            if ((prefixes & (1L << t)) != 0) {
+                result = translations[t] + result.substring(terms[t].length());
+                prefixes = matchPrefixes(result);
+                suffixes = matchSuffixes(result);
+            }
+            
+            if ((suffixes & (1L << t)) != 0) {
+                result = result.substring(0, result.length() - terms[t].length()) + translations[t];
+                prefixes = matchPrefixes(result);
+                suffixes = matchSuffixes(result);
+            }
+            
+            t++;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Algoritmo original, usado quando o caminho rápido não se aplica.
+     */
+    String translateLegacy(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        
+        String result = input;
+        
+        for (int t = 0; t < terms.length; t++) {
+            String portuguese = terms[t];
+            String english = translations[t];
+            
+            // Substitui termos completos (case insensitive)
+            result = wholeWordPatterns[t].matcher(result).replaceAll(Matcher.quoteReplacement(english));
+            
+            // Substitui no início da string
+            if (result.toLowerCase().startsWith(portuguese.toLowerCase())) {
+                result = english + result.substring(portuguese.length());
+            }
+            
+            // Substitui no final da string
+            if (result.toLowerCase().endsWith(portuguese.toLowerCase())) {
+                result = result.substring(0, result.length() - portuguese.length()) + english;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Máscara dos termos que são prefixo do texto (sem distinção de maiúsculas).
+     */
+    private long matchPrefixes(String text) {
+        long mask = 0;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int letter = foldLetter(text.charAt(i));
+            if (letter < 0 || (node = prefixNext[node][letter]) == 0) {
+                break;
+            }
+            if (prefixTermAt[node] >= 0) {
+                mask |= 1L << prefixTermAt[node];
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Máscara dos termos que são sufixo do texto (sem distinção de maiúsculas).
+     */
+    private long matchSuffixes(String text) {
+        long mask = 0;
+        int node = 0;
+        for (int i = text.length() - 1; i >= 0; i--) {
+            int letter = foldLetter(text.charAt(i));
+            if (letter < 0 || (node = suffixNext[node][letter]) == 0) {
+                break;
+            }
+            if (suffixTermAt[node] >= 0) {
+                mask |= 1L << suffixTermAt[node];
+            }
+        }
+        return mask;
+    }
+    
+    private static int foldLetter(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return -1;
+    }
+    
+    private static boolean isAsciiWord(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean word = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '_';
+            if (!word) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
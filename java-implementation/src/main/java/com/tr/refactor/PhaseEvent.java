@@ -0,0 +1,24 @@
+package com.tr.refactor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de uma fase (RefactorMetrics.Phase) do processamento de um arquivo.
+ */
+@Name("com.tr.refactor.Phase")
+@Label("Fase de refatoração")
+@Category("Payroll Refactor")
+@Description("Leitura, pré-filtro, parse, transformação, impressão, backup ou escrita de um arquivo")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event {
+    
+    @Label("Arquivo")
+    String path;
+    
+    @Label("Fase")
+    String phase;
+}
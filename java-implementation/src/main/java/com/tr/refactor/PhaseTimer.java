@@ -0,0 +1,72 @@
+package com.tr.refactor;
+
+/**
+ * Mede as fases do arquivo atual de um worker: soma o tempo no FileOutcome
+ * (--metrics) e emite um PhaseEvent quando os eventos JFR estão ativos.
+ * 
+ * Uma instância por RefactorWorker, reaproveitada entre arquivos. Com as duas
+ * coisas desligadas, start() e stop() não leem o relógio nem alocam nada.
+ */
+class PhaseTimer {
+    
+    private FileOutcome outcome;
+    private String path;
+    private boolean emitEvents;
+    
+    private RefactorMetrics.Phase phase;
+    private long startNanos;
+    private PhaseEvent event;
+    
+    /**
+     * Prepara o timer para um novo arquivo.
+     * 
+     * @param path Caminho relativo usado nos eventos JFR (null se desativados)
+     */
+    void reset(FileOutcome outcome, String path, boolean emitEvents) {
+        this.outcome = outcome;
+        this.path = path;
+        this.emitEvents = emitEvents;
+        this.phase = null;
+        this.event = null;
+    }
+    
+    void start(RefactorMetrics.Phase phase) {
+        this.phase = phase;
+        if (outcome.isTimingEnabled()) {
+            startNanos = System.nanoTime();
+        }
+        if (emitEvents) {
+            event = new PhaseEvent();
+            event.begin();
+        }
+    }
+    
+    /**
+     * Fase em aberto, ou null entre fases.
+     */
+    RefactorMetrics.Phase getPhase() {
+        return phase;
+    }
+    
+    /**
+     * Encerra a fase iniciada por start(); sem fase aberta não faz nada.
+     */
+    void stop() {
+        if (phase == null) {
+            return;
+        }
+        if (outcome.isTimingEnabled()) {
+            outcome.addPhaseTime(phase, System.nanoTime() - startNanos);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.phase = phase.name();
+                event.commit();
+            }
+            event = null;
+        }
+        phase = null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.tr.refactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ocupação dos estágios do pipeline leitura → CPU → escrita.
+ * 
+ * Cada estágio soma o tempo das suas threads em três partes: ocupado
+ * (processando um arquivo), esperando entrada (fila anterior vazia) e
+ * bloqueado na saída (fila seguinte cheia). O estágio com maior ocupação
+ * é o gargalo; os anteriores aparecem bloqueados e os seguintes esperando.
+ * 
+ * Thread-safe: atualizado por todas as threads do pipeline.
+ */
+public class PipelineStats {
+    
+    private final List<Stage> stages = new ArrayList<>();
+    private final int queueCapacity;
+    private volatile long elapsedNanos = 0;
+    
+    public PipelineStats(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    /**
+     * Cria um estágio; chamado antes de iniciar as threads.
+     */
+    public Stage addStage(String name, int threads) {
+        Stage stage = new Stage(name, threads);
+        stages.add(stage);
+        return stage;
+    }
+    
+    /**
+     * Registra a duração do pipeline, base do percentual de ocupação.
+     */
+    public void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * Bloco de ocupação para o resumo do console.
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("  • Pipeline (fila de ").append(queueCapacity).append(" arquivos por estágio):\n");
+        for (Stage stage : stages) {
+            sb.append(String.format(Locale.ROOT,
+                "    %-10s %2d threads | %6d arquivos | ocupado %5.1f%% | esperando entrada %5.1f%% | "
+                    + "bloqueado na saída %5.1f%%",
+                stage.getName(), stage.getThreads(), stage.getItems(),
+                percent(stage.getBusyNanos(), stage), percent(stage.getWaitNanos(), stage),
+                percent(stage.getBlockedNanos(), stage)));
+            if (stage.getQueueSamples() > 0) {
+                sb.append(String.format(Locale.ROOT, " | fila de saída média %.1f, máx %d",
+                    stage.getAverageQueueSize(), stage.getMaxQueueSize()));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Acrescenta o objeto JSON do pipeline (usado por RefactorMetrics.writeJson).
+     */
+    void appendJson(StringBuilder sb) {
+        sb.append("{\"queueCapacity\": ").append(queueCapacity).append(", \"stages\": [");
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            sb.append(i == 0 ? "\n" : ",\n").append("    {\"name\": ");
+            JsonStrings.append(sb, stage.getName());
+            sb.append(String.format(Locale.ROOT,
+                ", \"threads\": %d, \"items\": %d, \"busyPercent\": %.1f, \"waitPercent\": %.1f, "
+                    + "\"blockedPercent\": %.1f, \"averageQueueSize\": %.1f, \"maxQueueSize\": %d}",
+                stage.getThreads(), stage.getItems(), percent(stage.getBusyNanos(), stage),
+                percent(stage.getWaitNanos(), stage), percent(stage.getBlockedNanos(), stage),
+                stage.getAverageQueueSize(), stage.getMaxQueueSize()));
+        }
+        sb.append(stages.isEmpty() ? "]}" : "\n  ]}");
+    }
+    
+    private double percent(long nanos, Stage stage) {
+        long available = elapsedNanos * stage.getThreads();
+        return available > 0 ? Math.min(100.0, nanos * 100.0 / available) : 0.0;
+    }
+    
+    /**
+     * Contadores de um estágio, somados entre as suas threads.
+     */
+    public static final class Stage {
+        private final String name;
+        private final int threads;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+        private final LongAdder queueSamples = new LongAdder();
+        private final LongAdder queueSizeSum = new LongAdder();
+        private final AtomicLong maxQueueSize = new AtomicLong();
+        
+        Stage(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+        }
+        
+        void addBusy(long nanos) {
+            items.increment();
+            busyNanos.add(nanos);
+        }
+        
+        void addWait(long nanos) {
+            waitNanos.add(nanos);
+        }
+        
+        void addBlocked(long nanos) {
+            blockedNanos.add(nanos);
+        }
+        
+        /**
+         * Amostra o tamanho da fila de saída logo após uma inserção.
+         */
+        void sampleQueue(int size) {
+            queueSamples.increment();
+            queueSizeSum.add(size);
+            maxQueueSize.accumulateAndGet(size, Math::max);
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public int getThreads() {
+            return threads;
+        }
+        
+        public long getItems() {
+            return items.sum();
+        }
+        
+        public long getBusyNanos() {
+            return busyNanos.sum();
+        }
+        
+        public long getWaitNanos() {
+            return waitNanos.sum();
+        }
+        
+        public long getBlockedNanos() {
+            return blockedNanos.sum();
+        }
+        
+        public long getQueueSamples() {
+            return queueSamples.sum();
+        }
+        
+        public double getAverageQueueSize() {
+            long samples = queueSamples.sum();
+            return samples > 0 ? (double) queueSizeSum.sum() / samples : 0.0;
+        }
+        
+        public long getMaxQueueSize() {
+            return maxQueueSize.get();
+        }
+    }
+}
@@ -1,22 +1,145 @@
 package com.tr.refactor;
 
-import java.util.regex.Pattern;
+import com.tr.refactor.NameClassification.MethodKind;
 
 /**
  * Identifica padrões específicos do código PowerBuilder migrado para Java.
  * 
  * Esta classe contém a lógica para reconhecer nomenclaturas e estruturas
  * típicas da migração automática PowerBuilder -> Java.
+ * 
+ * Toda a classificação é feita por classify(), que lê o nome uma única vez
+ * (switch nos primeiros caracteres em vez de regex) e não aloca memória.
+ * Os métodos booleanos existentes delegam para ela. Padrões equivalentes:
+ * - Classe: ^[a-z][a-z0-9_]*$ ou ^(uo_|str_|s_|n_|dfc_|In_|Iuo_).*
+ * - Método: ^of_.*
+ * - Variável: ^(gi|gl|gs|gdc|ao_|as_|adc_|ab_|al_|ai_).*
  */
 public class PowerBuilderPatternMatcher {
     
-    // Padrões de nomenclatura PowerBuilder
-    private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("^[a-z][a-z0-9_]*$");
-    private static final Pattern METHOD_PREFIX_PATTERN = Pattern.compile("^of_.*");
-    private static final Pattern VARIABLE_PREFIX_PATTERN = Pattern.compile("^(gi|gl|gs|gdc|ao_|as_|adc_|ab_|al_|ai_).*");
+    /**
+     * Classifica o nome de uma vez: flags de classe, método e variável, tipo
+     * de método (getter/setter/boolean) e tipo de prefixo PowerBuilder.
+     * 
+     * @param name Nome a ser classificado
+     * @return Classificação (instância compartilhada, nunca null)
+     */
+    public NameClassification classify(CharSequence name) {
+        if (name == null || name.length() == 0) {
+            return NameClassification.NONE;
+        }
+        
+        int length = name.length();
+        PowerBuilderPrefixType prefixType = matchPrefix(name, length);
+        MethodKind methodKind = MethodKind.NONE;
+        boolean methodPrefix = false;
+        
+        if (length >= 3 && name.charAt(0) == 'o' && name.charAt(1) == 'f' && name.charAt(2) == '_') {
+            methodPrefix = true;
+            methodKind = matchMethodKind(name, length);
+        }
+        
+        // Única leitura do nome inteiro: padrão de classe [a-z][a-z0-9_]* e
+        // quebras de linha (o '.' das regexes originais não as aceita)
+        char first = name.charAt(0);
+        boolean lowerCaseName = first >= 'a' && first <= 'z';
+        boolean lineTerminator = false;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_')) {
+                lowerCaseName = false;
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    lineTerminator = true;
+                    break;
+                }
+            }
+        }
+        
+        boolean variableName = !lineTerminator && isVariablePrefix(prefixType);
+        boolean className = lowerCaseName || (!lineTerminator && isClassPrefix(prefixType));
+        boolean methodName = methodPrefix && !lineTerminator;
+        
+        return NameClassification.of(className, methodName, variableName, methodKind, prefixType);
+    }
+    
+    /**
+     * Identifica o prefixo pelos primeiros caracteres, com a mesma prioridade
+     * da antiga cadeia de startsWith.
+     */
+    private static PowerBuilderPrefixType matchPrefix(CharSequence name, int length) {
+        char c1 = length > 1 ? name.charAt(1) : 0;
+        char c2 = length > 2 ? name.charAt(2) : 0;
+        char c3 = length > 3 ? name.charAt(3) : 0;
+        
+        switch (name.charAt(0)) {
+            case 'g':
+                // Prefixos de variáveis globais
+                if (c1 == 'i') return PowerBuilderPrefixType.GLOBAL_INTEGER;
+                if (c1 == 'l') return PowerBuilderPrefixType.GLOBAL_LONG;
+                if (c1 == 's') return PowerBuilderPrefixType.GLOBAL_STRING;
+                if (c1 == 'd' && c2 == 'c') return PowerBuilderPrefixType.GLOBAL_DECIMAL;
+                return null;
+            case 'a':
+                // Prefixos de argumentos
+                if (c2 == '_') {
+                    switch (c1) {
+                        case 'o': return PowerBuilderPrefixType.ARGUMENT_OBJECT;
+                        case 's': return PowerBuilderPrefixType.ARGUMENT_STRING;
+                        case 'b': return PowerBuilderPrefixType.ARGUMENT_BOOLEAN;
+                        case 'l': return PowerBuilderPrefixType.ARGUMENT_LONG;
+                        case 'i': return PowerBuilderPrefixType.ARGUMENT_INTEGER;
+                        default: return null;
+                    }
+                }
+                if (c1 == 'd' && c2 == 'c' && c3 == '_') return PowerBuilderPrefixType.ARGUMENT_DECIMAL;
+                return null;
+            case 'u':
+                // Prefixos de classes/objetos
+                if (c1 == 'o' && c2 == '_') return PowerBuilderPrefixType.USER_OBJECT;
+                return null;
+            case 's':
+                if (c1 == 't' && c2 == 'r' && c3 == '_') return PowerBuilderPrefixType.STRUCTURE;
+                if (c1 == '_') return PowerBuilderPrefixType.STRUCTURE_SHORT;
+                return null;
+            case 'n':
+                if (c1 == '_') return PowerBuilderPrefixType.NON_VISUAL_OBJECT;
+                return null;
+            case 'd':
+                if (c1 == 'f' && c2 == 'c' && c3 == '_') return PowerBuilderPrefixType.DATAWINDOW_FUNCTION;
+                return null;
+            case 'I':
+                if (c1 == 'n' && c2 == '_') return PowerBuilderPrefixType.INTERFACE;
+                if (c1 == 'u' && c2 == 'o' && c3 == '_') return PowerBuilderPrefixType.INTERFACE_USER_OBJECT;
+                return null;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Identifica of_get_, of_set_ e of_is_ (o nome já começa com "of_").
+     */
+    private static MethodKind matchMethodKind(CharSequence name, int length) {
+        if (length >= 7 && name.charAt(6) == '_') {
+            char c3 = name.charAt(3);
+            if (name.charAt(4) == 'e' && name.charAt(5) == 't') {
+                if (c3 == 'g') return MethodKind.GETTER;
+                if (c3 == 's') return MethodKind.SETTER;
+            }
+        }
+        if (length >= 6 && name.charAt(3) == 'i' && name.charAt(4) == 's' && name.charAt(5) == '_') {
+            return MethodKind.BOOLEAN;
+        }
+        return MethodKind.NONE;
+    }
+    
+    private static boolean isVariablePrefix(PowerBuilderPrefixType type) {
+        return type != null && type.ordinal() <= PowerBuilderPrefixType.ARGUMENT_INTEGER.ordinal();
+    }
     
-    // Prefixos específicos do PowerBuilder
-    private static final Pattern POWERBUILDER_PREFIXES = Pattern.compile("^(uo_|str_|s_|n_|dfc_|In_|Iuo_).*");
+    private static boolean isClassPrefix(PowerBuilderPrefixType type) {
+        return type != null && type.ordinal() >= PowerBuilderPrefixType.USER_OBJECT.ordinal();
+    }
     
     /**
      * Verifica se o nome da classe segue padrões PowerBuilder.
@@ -25,13 +148,8 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um nome de classe PowerBuilder
      */
     public boolean isPowerBuilderClassName(String className) {
-        if (className == null || className.isEmpty()) {
-            return false;
-        }
-        
         // Classes PowerBuilder migradas começam com minúscula ou têm underscores
-        return CLASS_NAME_PATTERN.matcher(className).matches() || 
-               POWERBUILDER_PREFIXES.matcher(className).matches();
+        return classify(className).isClassName();
     }
     
     /**
@@ -41,12 +159,8 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um nome de método PowerBuilder
      */
     public boolean isPowerBuilderMethodName(String methodName) {
-        if (methodName == null || methodName.isEmpty()) {
-            return false;
-        }
-        
         // Métodos PowerBuilder começam com "of_"
-        return METHOD_PREFIX_PATTERN.matcher(methodName).matches();
+        return classify(methodName).isMethodName();
     }
     
     /**
@@ -56,12 +170,8 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um nome de variável PowerBuilder
      */
     public boolean isPowerBuilderVariableName(String variableName) {
-        if (variableName == null || variableName.isEmpty()) {
-            return false;
-        }
-        
         // Variáveis PowerBuilder têm prefixos específicos
-        return VARIABLE_PREFIX_PATTERN.matcher(variableName).matches();
+        return classify(variableName).isVariableName();
     }
     
     /**
@@ -71,34 +181,7 @@ public class PowerBuilderPatternMatcher {
      * @return Tipo do prefixo ou null se não for PowerBuilder
      */
     public PowerBuilderPrefixType identifyPrefixType(String name) {
-        if (name == null || name.isEmpty()) {
-            return null;
-        }
-        
-        // Prefixos de variáveis globais
-        if (name.startsWith("gi")) return PowerBuilderPrefixType.GLOBAL_INTEGER;
-        if (name.startsWith("gl")) return PowerBuilderPrefixType.GLOBAL_LONG;
-        if (name.startsWith("gs")) return PowerBuilderPrefixType.GLOBAL_STRING;
-        if (name.startsWith("gdc")) return PowerBuilderPrefixType.GLOBAL_DECIMAL;
-        
-        // Prefixos de argumentos
-        if (name.startsWith("ao_")) return PowerBuilderPrefixType.ARGUMENT_OBJECT;
-        if (name.startsWith("as_")) return PowerBuilderPrefixType.ARGUMENT_STRING;
-        if (name.startsWith("adc_")) return PowerBuilderPrefixType.ARGUMENT_DECIMAL;
-        if (name.startsWith("ab_")) return PowerBuilderPrefixType.ARGUMENT_BOOLEAN;
-        if (name.startsWith("al_")) return PowerBuilderPrefixType.ARGUMENT_LONG;
-        if (name.startsWith("ai_")) return PowerBuilderPrefixType.ARGUMENT_INTEGER;
-        
-        // Prefixos de classes/objetos
-        if (name.startsWith("uo_")) return PowerBuilderPrefixType.USER_OBJECT;
-        if (name.startsWith("str_")) return PowerBuilderPrefixType.STRUCTURE;
-        if (name.startsWith("s_")) return PowerBuilderPrefixType.STRUCTURE_SHORT;
-        if (name.startsWith("n_")) return PowerBuilderPrefixType.NON_VISUAL_OBJECT;
-        if (name.startsWith("dfc_")) return PowerBuilderPrefixType.DATAWINDOW_FUNCTION;
-        if (name.startsWith("In_")) return PowerBuilderPrefixType.INTERFACE;
-        if (name.startsWith("Iuo_")) return PowerBuilderPrefixType.INTERFACE_USER_OBJECT;
-        
-        return null;
+        return classify(name).getPrefixType();
     }
     
     /**
@@ -118,7 +201,7 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um getter PowerBuilder
      */
     public boolean isPowerBuilderGetter(String methodName) {
-        return methodName != null && methodName.startsWith("of_get_");
+        return classify(methodName).getMethodKind() == MethodKind.GETTER;
     }
     
     /**
@@ -128,7 +211,7 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um setter PowerBuilder
      */
     public boolean isPowerBuilderSetter(String methodName) {
-        return methodName != null && methodName.startsWith("of_set_");
+        return classify(methodName).getMethodKind() == MethodKind.SETTER;
     }
     
     /**
@@ -138,48 +221,6 @@ public class PowerBuilderPatternMatcher {
      * @return true se for um método boolean PowerBuilder
      */
     public boolean isPowerBuilderBooleanMethod(String methodName) {
-        return methodName != null && methodName.startsWith("of_is_");
+        return classify(methodName).getMethodKind() == MethodKind.BOOLEAN;
     }
 }
-
-/**
- * Enumeration dos tipos de prefixos PowerBuilder identificados.
- */
-enum PowerBuilderPrefixType {
-    // Variáveis globais
-    GLOBAL_INTEGER("gi", "codigo", "id"),
-    GLOBAL_LONG("gl", "codigo", "id"),
-    GLOBAL_STRING("gs", "", ""),
-    GLOBAL_DECIMAL("gdc", "valor", "taxa"),
-    
-    // Argumentos
-    ARGUMENT_OBJECT("ao_", "", ""),
-    ARGUMENT_STRING("as_", "", ""),
-    ARGUMENT_DECIMAL("adc_", "valor", ""),
-    ARGUMENT_BOOLEAN("ab_", "", ""),
-    ARGUMENT_LONG("al_", "codigo", "id"),
-    ARGUMENT_INTEGER("ai_", "codigo", "id"),
-    
-    // Classes/Objetos
-    USER_OBJECT("uo_", "", ""),
-    STRUCTURE("str_", "", ""),
-    STRUCTURE_SHORT("s_", "", ""),
-    NON_VISUAL_OBJECT("n_", "", ""),
-    DATAWINDOW_FUNCTION("dfc_", "", ""),
-    INTERFACE("In_", "", ""),
-    INTERFACE_USER_OBJECT("Iuo_", "", "");
-    
-    private final String prefix;
-    private final String suggestedReplacement;
-    private final String alternativeReplacement;
-    
-    PowerBuilderPrefixType(String prefix, String suggestedReplacement, String alternativeReplacement) {
-        this.prefix = prefix;
-        this.suggestedReplacement = suggestedReplacement;
-        this.alternativeReplacement = alternativeReplacement;
-    }
-    
-    public String getPrefix() { return prefix; }
-    public String getSuggestedReplacement() { return suggestedReplacement; }
-    public String getAlternativeReplacement() { return alternativeReplacement; }
-}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.tr.refactor;
+
+/**
+ * Enumeration dos tipos de prefixos PowerBuilder identificados.
+ */
+enum PowerBuilderPrefixType {
+    // Variáveis globais
+    GLOBAL_INTEGER("gi", "codigo", "id"),
+    GLOBAL_LONG("gl", "codigo", "id"),
+    GLOBAL_STRING("gs", "", ""),
+    GLOBAL_DECIMAL("gdc", "valor", "taxa"),
+    
+    // Argumentos
+    ARGUMENT_OBJECT("ao_", "", ""),
+    ARGUMENT_STRING("as_", "", ""),
+    ARGUMENT_DECIMAL("adc_", "valor", ""),
+    ARGUMENT_BOOLEAN("ab_", "", ""),
+    ARGUMENT_LONG("al_", "codigo", "id"),
+    ARGUMENT_INTEGER("ai_", "codigo", "id"),
+    
+    // Classes/Objetos
+    USER_OBJECT("uo_", "", ""),
+    STRUCTURE("str_", "", ""),
+    STRUCTURE_SHORT("s_", "", ""),
+    NON_VISUAL_OBJECT("n_", "", ""),
+    DATAWINDOW_FUNCTION("dfc_", "", ""),
+    INTERFACE("In_", "", ""),
+    INTERFACE_USER_OBJECT("Iuo_", "", "");
+    
+    private final String prefix;
+    private final String suggestedReplacement;
+    private final String alternativeReplacement;
+    
+    PowerBuilderPrefixType(String prefix, String suggestedReplacement, String alternativeReplacement) {
+        this.prefix = prefix;
+        this.suggestedReplacement = suggestedReplacement;
+        this.alternativeReplacement = alternativeReplacement;
+    }
+    
+    public String getPrefix() { return prefix; }
+    public String getSuggestedReplacement() { return suggestedReplacement; }
+    public String getAlternativeReplacement() { return alternativeReplacement; }
+}
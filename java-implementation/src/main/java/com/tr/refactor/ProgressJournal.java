@@ -0,0 +1,226 @@
+package com.tr.refactor;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diário de progresso (write-ahead) de uma execução, para retomar com --resume
+ * uma execução interrompida (OOM, timeout do CI, reinício da máquina).
+ * 
+ * Cada arquivo concluído (saída gravada, ou nada a gravar) ganha uma linha no
+ * fim do diário. As linhas são acumuladas em memória e gravadas com fsync em
+ * lotes, então o custo é um fsync a cada DEFAULT_SYNC_BATCH arquivos ou a
+ * cada segundo. Uma interrupção perde no máximo o último lote: esses arquivos,
+ * como os que estavam em processamento, são refeitos na retomada.
+ * 
+ * O diário é apagado ao fim de uma execução concluída.
+ * 
+ * Formato (TSV, na ordem de conclusão):
+ * caminho-relativo  bytes  modificação-em-ms
+ * 
+ * Thread-safe: record() é chamado pelas threads do pipeline.
+ */
+public class ProgressJournal implements Closeable {
+    
+    public static final int DEFAULT_SYNC_BATCH = 256;
+    
+    private static final String HEADER = "# payroll-refactor journal v1";
+    private static final String INPUT_PREFIX = "# input\t";
+    private static final long SYNC_INTERVAL_NANOS = 1_000_000_000L;
+    
+    private final Path journalFile;
+    private final Map<String, Entry> completed;
+    private final FileChannel channel;
+    private final int syncBatch;
+    private final StringBuilder pending = new StringBuilder(8192);
+    private Flushable outputs;
+    private int pendingEntries = 0;
+    private long lastSyncNanos = System.nanoTime();
+    
+    private ProgressJournal(Path journalFile, Map<String, Entry> completed, FileChannel channel, int syncBatch) {
+        this.journalFile = journalFile;
+        this.completed = completed;
+        this.channel = channel;
+        this.syncBatch = syncBatch;
+    }
+    
+    /**
+     * Caminho padrão do diário: ao lado do diretório de saída.
+     */
+    public static Path defaultLocation(Path outputDir) {
+        Path manifest = RefactorManifest.defaultLocation(outputDir);
+        String name = manifest.getFileName().toString().replace(".refactor-manifest", ".refactor-journal");
+        return manifest.resolveSibling(name);
+    }
+    
+    /**
+     * Abre o diário da execução.
+     * 
+     * @param inputDir Diretório de entrada; um diário de outra entrada é descartado
+     * @param resume Mantém os arquivos concluídos do diário existente; senão começa vazio
+     */
+    public static ProgressJournal open(Path journalFile, Path inputDir, boolean resume) throws IOException {
+        return open(journalFile, inputDir, resume, DEFAULT_SYNC_BATCH);
+    }
+    
+    static ProgressJournal open(Path journalFile, Path inputDir, boolean resume, int syncBatch) throws IOException {
+        String inputLine = INPUT_PREFIX + inputDir.toAbsolutePath().normalize();
+        Map<String, Entry> entries = resume ? load(journalFile, inputLine) : null;
+        
+        FileChannel channel;
+        if (entries != null) {
+            channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            // Termina uma linha cortada para não emendá-la na próxima
+            ByteBuffer last = ByteBuffer.allocate(1);
+            if (channel.read(last, channel.size() - 1) == 1 && last.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+            }
+        } else {
+            entries = Collections.emptyMap();
+            Path parent = journalFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            channel.write(StandardCharsets.UTF_8.encode(HEADER + "\n" + inputLine + "\n"));
+            channel.force(true);
+        }
+        
+        return new ProgressJournal(journalFile, entries, channel, Math.max(1, syncBatch));
+    }
+    
+    /**
+     * Lê os arquivos concluídos; null se o diário não existe ou é de outra entrada.
+     * Linhas incompletas (interrupção no meio da gravação) são ignoradas.
+     */
+    private static Map<String, Entry> load(Path journalFile, String inputLine) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return null;
+        }
+        
+        List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+        if (lines.size() < 2 || !HEADER.equals(lines.get(0)) || !inputLine.equals(lines.get(1))) {
+            return null;
+        }
+        
+        Map<String, Entry> entries = new HashMap<>();
+        for (String line : lines) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length == 3) {
+                try {
+                    entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                } catch (NumberFormatException e) {
+                    // Linha cortada: o arquivo é refeito
+                }
+            }
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+    
+    /**
+     * Define o que precisa estar no disco antes de cada lote do diário (as
+     * saídas gravadas pelo OutputWriter e o zip de backup), para que o diário
+     * nunca registre um arquivo cuja saída ou backup se perderia numa queda.
+     */
+    public synchronized void setOutputs(Flushable outputs) {
+        this.outputs = outputs;
+    }
+    
+    /**
+     * Arquivos concluídos na execução interrompida.
+     */
+    public int getCompletedFiles() {
+        return completed.size();
+    }
+    
+    /**
+     * Verifica se o arquivo foi concluído na execução interrompida e não
+     * mudou desde então (mesmo tamanho e data de modificação).
+     */
+    public boolean isCompleted(String relativePath, long size, long modifiedMillis) {
+        Entry entry = completed.get(relativePath);
+        return entry != null && entry.bytes == size && entry.modifiedMillis == modifiedMillis;
+    }
+    
+    /**
+     * Registra um arquivo concluído. A linha só chega ao disco no próximo lote.
+     */
+    public synchronized void record(String relativePath, long size, long modifiedMillis) throws IOException {
+        pending.append(relativePath).append('\t').append(size).append('\t').append(modifiedMillis).append('\n');
+        pendingEntries++;
+        if (pendingEntries >= syncBatch || System.nanoTime() - lastSyncNanos >= SYNC_INTERVAL_NANOS) {
+            sync();
+        }
+    }
+    
+    /**
+     * Grava as linhas pendentes e faz o fsync do diário.
+     */
+    public synchronized void sync() throws IOException {
+        if (pendingEntries > 0) {
+            if (outputs != null) {
+                outputs.flush();
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(pending.toString());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            pending.setLength(0);
+            pendingEntries = 0;
+        }
+        lastSyncNanos = System.nanoTime();
+    }
+    
+    /**
+     * Grava o último lote e fecha o diário, que continua no disco para --resume.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+    
+    /**
+     * Fecha e apaga o diário: a execução terminou e não há o que retomar.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journalFile);
+    }
+    
+    public Path getJournalFile() {
+        return journalFile;
+    }
+    
+    private static final class Entry {
+        final long bytes;
+        final long modifiedMillis;
+        
+        Entry(long bytes, long modifiedMillis) {
+            this.bytes = bytes;
+            this.modifiedMillis = modifiedMillis;
+        }
+    }
+}
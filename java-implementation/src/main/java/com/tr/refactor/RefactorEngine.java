@@ -1,31 +1,57 @@
 package com.tr.refactor;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.printer.DefaultPrettyPrinter;
-import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.ast.expr.SimpleName;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
 
 /**
  * Engine principal de refatoração que aplica transformações específicas
  * para código PowerBuilder migrado para Java.
  * 
  * VERSÃO ATUALIZADA: Agora remove wrappers Mobilize problemáticos como isTrue().
+ * 
+ * Com mais de uma thread os arquivos passam por um pipeline leitura → CPU →
+ * escrita com filas limitadas; cada thread de CPU usa o seu próprio
+ * RefactorWorker (parser, cleaner e printer) e os resultados por arquivo são
+ * consolidados na ordem dos caminhos, então o relatório é determinístico.
  */
 public class RefactorEngine {
     
@@ -35,25 +61,118 @@ public class RefactorEngine {
     private final boolean verbose;
     private final boolean preserveComments;
     private final boolean createBackup;
+    private final RefactorOptions.BackupMode backupMode;
+    private final int threads;
+    private final boolean incremental;
+    private final boolean resume;
+    private final boolean prefilter;
+    private final boolean patchOutput;
+    private final boolean lexerRenames;
+    private final Path reportFile;
+    private final boolean measureTimings;
+    private final Path metricsFile;
+    private final Path jfrFile;
+    private final int readThreads;
+    private final int writeThreads;
+    private final int queueCapacity;
+    private final int scanThreads;
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final RefactorOptions.Schedule schedule;
+    private final Path weightsFile;
+    private final long fileTimeoutNanos;
+    private final long slowFileThresholdNanos;
+    private final SourceEncoding fallbackEncoding;
+    private final boolean mapLargeFiles;
+    private final String manifestOptions;
+    
+    // Manifesto do modo incremental (null quando desativado)
+    private RefactorManifest manifest;
+    
+    // Diário de progresso e gravação da saída da execução atual (null no dry-run)
+    private ProgressJournal journal;
+    private OutputWriter outputWriter;
+    
+    // Zip de backup da execução atual (null fora do modo archive)
+    private BackupArchive backupArchive;
+    
+    // Pesos de agendamento da execução atual (null quando desativados)
+    private WeightsManifest weights;
+    
+    // Relatório JSON Lines da execução atual (null quando desativado)
+    private JsonLinesReportWriter report;
+    
+    // Métricas de tempo da execução atual (null quando desativadas)
+    private RefactorMetrics metrics;
+    
+    // Watchdog de arquivos lentos da execução atual (null quando desativado)
+    private FileWatchdog watchdog;
+    
+    // Eventos JFR ligados na execução atual (--jfr ou gravação iniciada na JVM)
+    private boolean jfrEvents;
     
-    private final JavaParser javaParser;
+    // Marca de fim de fila entre estágios do pipeline
+    private static final FileTask END_OF_STREAM = new FileTask(null, null, null);
+    
+    // Arquivos a partir deste tamanho são mapeados em memória em vez de lidos para o heap
+    private static final long MAP_THRESHOLD = 256 * 1024;
+    
+    // Thread-safe: compartilhados entre todas as threads (o cache de nomes é por execução)
     private final PowerBuilderPatternMatcher patternMatcher;
     private final NameConverter nameConverter;
-    private final MobilizeWrapperCleaner wrapperCleaner; // NOVO: Limpeza de wrappers
     
     public RefactorEngine(Path inputDir, Path outputDir, boolean dryRun, 
                          boolean verbose, boolean preserveComments, boolean createBackup) {
+        this(inputDir, outputDir, legacyOptions(dryRun, verbose, preserveComments, createBackup));
+    }
+    
+    public RefactorEngine(Path inputDir, Path outputDir, RefactorOptions options) {
         this.inputDir = inputDir;
         this.outputDir = outputDir;
-        this.dryRun = dryRun;
-        this.verbose = verbose;
-        this.preserveComments = preserveComments;
-        this.createBackup = createBackup;
+        this.dryRun = options.isDryRun();
+        this.verbose = options.isVerbose();
+        this.preserveComments = options.isPreserveComments();
+        this.createBackup = options.isCreateBackup();
+        this.backupMode = options.getBackupMode();
+        this.threads = options.getThreads();
+        this.incremental = options.isIncremental();
+        this.resume = options.isResume();
+        this.prefilter = options.isPrefilter();
+        this.manifestOptions = RefactorManifest.outputOptions(options);
+        this.patchOutput = options.getOutputMode() == RefactorOptions.OutputMode.PATCH;
+        // O caminho léxico só sabe gerar a saída por patch
+        this.lexerRenames = options.isLexerRenames() && patchOutput;
+        this.reportFile = options.getReportFile();
+        this.measureTimings = options.isMetrics();
+        this.metricsFile = options.getMetricsFile();
+        this.jfrFile = options.getJfrFile();
+        this.readThreads = Math.max(1, options.getReadThreads());
+        this.writeThreads = Math.max(1, options.getWriteThreads());
+        this.queueCapacity = Math.max(1, options.getQueueCapacity());
+        this.scanThreads = options.getScanThreads();
+        this.includes = options.getIncludes();
+        this.excludes = options.getExcludes();
+        this.schedule = options.getSchedule();
+        this.weightsFile = options.getWeightsFile();
+        this.fileTimeoutNanos = options.getFileTimeout().toNanos();
+        this.slowFileThresholdNanos = options.getSlowFileThreshold().toNanos();
+        this.fallbackEncoding = new SourceEncoding(options.getFallbackEncoding(), false);
+        // No Windows um arquivo mapeado não pode ser substituído (rename da
+        // gravação in-place) enquanto o GC não liberar o mapeamento
+        this.mapLargeFiles = !System.getProperty("os.name", "").startsWith("Windows");
         
-        this.javaParser = new JavaParser();
         this.patternMatcher = new PowerBuilderPatternMatcher();
-        this.nameConverter = new NameConverter();
-        this.wrapperCleaner = new MobilizeWrapperCleaner(); // NOVO
+        this.nameConverter = new NameConverter(new ConversionCache(options.getNameCacheSize()));
+    }
+    
+    private static RefactorOptions legacyOptions(boolean dryRun, boolean verbose,
+                                                 boolean preserveComments, boolean createBackup) {
+        RefactorOptions options = new RefactorOptions();
+        options.setDryRun(dryRun);
+        options.setVerbose(verbose);
+        options.setPreserveComments(preserveComments);
+        options.setCreateBackup(createBackup);
+        return options;
     }
     
     public RefactorResult execute() throws IOException {
@@ -61,212 +180,1129 @@ public class RefactorEngine {
         
         System.out.println("🚀 Iniciando refatoração com limpeza de wrappers Mobilize...");
         
-        try (Stream<Path> javaFiles = Files.walk(inputDir)
-                .filter(path -> path.toString().endsWith(".java"))) {
+        if (incremental) {
+            manifest = RefactorManifest.load(RefactorManifest.defaultLocation(outputDir), manifestOptions);
+        }
+        
+        if (weightsFile != null) {
+            weights = WeightsManifest.load(weightsFile);
+        }
+        
+        if (!dryRun) {
+            outputWriter = new OutputWriter();
+            journal = ProgressJournal.open(ProgressJournal.defaultLocation(outputDir), inputDir, resume);
+            if (resume) {
+                System.out.println("↩️  Retomando: " + journal.getCompletedFiles()
+                    + " arquivos concluídos na execução interrompida");
+            }
+            if (createBackup && backupMode == RefactorOptions.BackupMode.ARCHIVE) {
+                backupArchive = new BackupArchive(BackupArchive.defaultLocation(outputDir, LocalDateTime.now()),
+                                                  queueCapacity);
+            }
+            // Um arquivo só entra no diário depois que a sua saída (e o backup
+            // do original, no zip) está no disco
+            OutputWriter writer = outputWriter;
+            BackupArchive archive = backupArchive;
+            journal.setOutputs(archive == null ? writer : () -> {
+                archive.flush();
+                writer.flush();
+            });
+        }
+        
+        long startedAt = System.nanoTime();
+        metrics = measureTimings ? new RefactorMetrics() : null;
+        
+        if (reportFile != null) {
+            Path reportDir = reportFile.toAbsolutePath().getParent();
+            if (reportDir != null) {
+                Files.createDirectories(reportDir);
+            }
+            report = new JsonLinesReportWriter(reportFile);
+        }
+        
+        Recording recording = jfrFile != null ? startRecording() : null;
+        jfrEvents = recording != null || FlightRecorder.isInitialized();
+        watchdog = slowFileThresholdNanos > 0 ? new FileWatchdog(slowFileThresholdNanos) : null;
+        
+        try {
+            if (threads <= 1) {
+                long scanStart = System.nanoTime();
+                List<Path> javaFiles = createScanner().scan();
+                if (metrics != null) {
+                    metrics.setDiscovery(javaFiles.size(), System.nanoTime() - scanStart);
+                }
+                
+                RefactorWorker worker = new RefactorWorker(preserveComments);
+                for (Path javaFile : javaFiles) {
+                    publish(processSafely(javaFile, worker), result);
+                }
+            } else {
+                processInPipeline(result);
+            }
+            
+            if (backupArchive != null) {
+                backupArchive.close();
+                if (backupArchive.getEntries() > 0) {
+                    System.out.println("🗜️  Backup dos originais: " + backupArchive.getArchiveFile()
+                        + " (" + backupArchive.getEntries() + " arquivos)");
+                }
+            }
+            
+            result.setNameCacheStats(nameConverter.getCache());
             
-            javaFiles.forEach(javaFile -> {
+            if (report != null) {
+                report.writeSummary(result);
+            }
+        } finally {
+            if (backupArchive != null) {
                 try {
-                    processJavaFile(javaFile, result);
-                } catch (Exception e) {
-                    result.addWarning("Erro ao processar " + javaFile + ": " + e.getMessage());
-                    if (verbose) {
-                        e.printStackTrace();
-                    }
+                    // Numa falha, fecha o zip com os originais já entregues
+                    backupArchive.close();
+                } catch (IOException e) {
+                    // Já há um erro em andamento
                 }
-            });
+                backupArchive = null;
+            }
+            if (journal != null) {
+                // Faz o fsync do último lote de saídas e do diário; numa falha
+                // o diário continua no disco para --resume
+                journal.close();
+            }
+            outputWriter = null;
+            if (watchdog != null) {
+                watchdog.close();
+                result.setSlowFiles(watchdog.getSlowFiles());
+                watchdog = null;
+            }
+            if (report != null) {
+                report.close();
+                report = null;
+            }
+            if (recording != null) {
+                dumpRecording(recording);
+            }
+        }
+        
+        if (manifest != null && !dryRun) {
+            manifest.save();
+            if (verbose) {
+                System.out.println("🗂️  Manifesto incremental salvo: " + manifest.getManifestFile());
+            }
+        }
+        
+        if (journal != null) {
+            journal.delete();
+            journal = null;
+        }
+        
+        if (weights != null) {
+            if (!dryRun) {
+                weights.save();
+                if (verbose) {
+                    System.out.println("⚖️  Pesos de agendamento salvos: " + weights.getWeightsFile());
+                }
+            }
+            weights = null;
+        }
+        
+        if (metrics != null) {
+            metrics.finish(System.nanoTime() - startedAt);
+            result.setMetrics(metrics);
+            if (metricsFile != null) {
+                metrics.writeJson(metricsFile);
+                if (verbose) {
+                    System.out.println("⏱️  Métricas salvas: " + metricsFile);
+                }
+            }
+            metrics = null;
         }
         
         System.out.println("✅ Refatoração concluída!");
         return result;
     }
     
-    private void processJavaFile(Path javaFile, RefactorResult result) throws IOException {
-        if (verbose) {
-            System.out.println("🔍 Processando: " + javaFile);
+    /**
+     * Inicia uma gravação JFR com a configuração padrão da JVM, que tem
+     * overhead baixo, mais os eventos da ferramenta (--jfr).
+     */
+    private static Recording startRecording() throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Configuração JFR inválida: " + e.getMessage(), e);
+        }
+        recording.setName("payroll-refactor");
+        recording.enable(FileProcessedEvent.class);
+        recording.enable(PhaseEvent.class);
+        recording.enable(RuleAppliedEvent.class);
+        recording.start();
+        return recording;
+    }
+    
+    private void dumpRecording(Recording recording) throws IOException {
+        try {
+            recording.stop();
+            Path jfrDir = jfrFile.toAbsolutePath().getParent();
+            if (jfrDir != null) {
+                Files.createDirectories(jfrDir);
+            }
+            recording.dump(jfrFile);
+            System.out.println("🛩️  Gravação JFR salva: " + jfrFile);
+        } finally {
+            recording.close();
         }
+    }
+    
+    /**
+     * Varredura paralela do diretório de entrada com os globs configurados.
+     */
+    private SourceScanner createScanner() {
+        SourceScanner scanner = new SourceScanner(inputDir);
+        scanner.setIncludes(includes);
+        scanner.setExcludes(excludes);
+        scanner.setParallelism(scanThreads);
+        return scanner;
+    }
+    
+    /**
+     * Processa os arquivos num pipeline de três estágios ligados por filas
+     * limitadas: leitura (I/O) → parse, transformação e impressão (CPU) →
+     * backup e escrita (I/O). Assim o disco trabalha enquanto a CPU faz o
+     * parse e vice-versa; fila cheia bloqueia o estágio anterior (backpressure),
+     * o que limita a memória a algumas filas de arquivos em voo.
+     * 
+     * A varredura do diretório alimenta a leitura à medida que encontra os
+     * arquivos, então o processamento começa antes do fim da descoberta. Ao
+     * fim da varredura os arquivos são ordenados pelo caminho e os resultados
+     * consolidados nessa ordem à medida que ficam prontos.
+     */
+    private void processInPipeline(RefactorResult result) throws IOException {
+        // Fila de descoberta sem limite: a varredura fork-join não pode bloquear
+        BlockingQueue<FileTask> discoveredQueue = new LinkedBlockingQueue<>();
+        ConcurrentLinkedQueue<FileTask> discovered = new ConcurrentLinkedQueue<>();
         
-        // Lê o arquivo Java
-        String content = Files.readString(javaFile);
+        BlockingQueue<FileTask> readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<FileTask> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        PipelineStats stats = new PipelineStats(queueCapacity);
+        PipelineStats.Stage readStage = stats.addStage("leitura", readThreads);
+        PipelineStats.Stage cpuStage = stats.addStage("cpu", threads);
+        PipelineStats.Stage writeStage = stats.addStage("escrita", writeThreads);
         
-        // Faz o parse do código Java
-        ParseResult<CompilationUnit> parseResult = javaParser.parse(content);
+        AtomicInteger activeReaders = new AtomicInteger(readThreads);
+        AtomicInteger activeWorkers = new AtomicInteger(threads);
         
-        if (!parseResult.isSuccessful()) {
-            result.addWarning("Falha ao parsear: " + javaFile);
-            return;
+        ExecutorService readers = Executors.newFixedThreadPool(readThreads, workerThreadFactory("refactor-reader-"));
+        ExecutorService workers = Executors.newFixedThreadPool(threads, workerThreadFactory("refactor-worker-"));
+        ExecutorService writers = Executors.newFixedThreadPool(writeThreads, workerThreadFactory("refactor-writer-"));
+        long startedAt = System.nanoTime();
+        
+        try {
+            for (int i = 0; i < readThreads; i++) {
+                readers.execute(() -> {
+                    PhaseTimer timer = new PhaseTimer();
+                    runStage(readStage, fromQueue(discoveredQueue), readQueue, activeReaders, threads, timer,
+                             task -> readFile(task, timer));
+                });
+            }
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> {
+                    RefactorWorker worker = new RefactorWorker(preserveComments);
+                    runStage(cpuStage, fromQueue(readQueue), writeQueue, activeWorkers, writeThreads,
+                             worker.phaseTimer, task -> transformFile(task, worker));
+                });
+            }
+            for (int i = 0; i < writeThreads; i++) {
+                writers.execute(() -> {
+                    PhaseTimer timer = new PhaseTimer();
+                    OutputEncoder encoder = new OutputEncoder();
+                    runStage(writeStage, fromQueue(writeQueue), null, null, 0, timer,
+                             task -> writeFile(task, timer, encoder));
+                });
+            }
+            
+            createScanner().scan((javaFile, size) -> {
+                FileTask task = newTask(javaFile);
+                task.weight = weights != null ? weights.weightOf(manifestKey(javaFile), size) : size;
+                discovered.add(task);
+                if (schedule == RefactorOptions.Schedule.DISCOVERY) {
+                    discoveredQueue.add(task);
+                }
+            });
+            if (schedule == RefactorOptions.Schedule.LARGEST_FIRST) {
+                // LPT: os arquivos mais pesados começam primeiro, para que nenhum
+                // arquivo gigante sobre para o fim com as outras threads paradas
+                List<FileTask> byWeight = new ArrayList<>(discovered);
+                byWeight.sort(Comparator.comparingLong((FileTask task) -> task.weight).reversed()
+                    .thenComparing(task -> task.file));
+                discoveredQueue.addAll(byWeight);
+            }
+            for (int i = 0; i < readThreads; i++) {
+                discoveredQueue.add(END_OF_STREAM);
+            }
+            if (metrics != null) {
+                metrics.setDiscovery(discovered.size(), System.nanoTime() - startedAt);
+            }
+            
+            List<FileTask> tasks = new ArrayList<>(discovered);
+            tasks.sort(Comparator.comparing(task -> task.file));
+            for (FileTask task : tasks) {
+                publish(awaitOutcome(task), result);
+            }
+        } finally {
+            readers.shutdownNow();
+            workers.shutdownNow();
+            writers.shutdownNow();
+        }
+        
+        stats.finish(System.nanoTime() - startedAt);
+        if (metrics != null) {
+            metrics.setPipelineStats(stats);
+        }
+    }
+    
+    /**
+     * Laço de uma thread de estágio: pega tarefas da entrada até o fim,
+     * processa cada uma e a repassa para a fila de saída ou a encerra.
+     * A última thread do estágio a terminar avisa as do estágio seguinte.
+     * 
+     * @param output Fila do próximo estágio (null no último)
+     * @param downstreamThreads Threads do próximo estágio, uma marca de fim para cada
+     */
+    private void runStage(PipelineStats.Stage stage, TaskSource input, BlockingQueue<FileTask> output,
+                          AtomicInteger activeThreads, int downstreamThreads, PhaseTimer timer, StageStep step) {
+        try {
+            while (true) {
+                long waitStart = System.nanoTime();
+                FileTask task = input.next();
+                long start = System.nanoTime();
+                stage.addWait(start - waitStart);
+                if (task == null) {
+                    break;
+                }
+                
+                boolean forward = runStep(task, timer, step);
+                long end = System.nanoTime();
+                stage.addBusy(end - start);
+                
+                if (forward && output != null) {
+                    output.put(task);
+                    stage.addBlocked(System.nanoTime() - end);
+                    stage.sampleQueue(output.size());
+                } else {
+                    completeTask(task);
+                }
+            }
+            
+            if (output != null && activeThreads.decrementAndGet() == 0) {
+                for (int i = 0; i < downstreamThreads; i++) {
+                    output.put(END_OF_STREAM);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Execução cancelada: o engine já está encerrando as threads
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static TaskSource fromQueue(BlockingQueue<FileTask> queue) {
+        return () -> {
+            FileTask task = queue.take();
+            return task == END_OF_STREAM ? null : task;
+        };
+    }
+    
+    private FileOutcome awaitOutcome(FileTask task) throws IOException {
+        try {
+            return task.done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Refatoração interrompida em " + task.file);
+        } catch (ExecutionException e) {
+            throw new IOException("Erro ao processar " + task.file, e.getCause());
+        }
+    }
+    
+    private static ThreadFactory workerThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Processa um arquivo inteiro na thread atual (modo sequencial).
+     */
+    private FileOutcome processSafely(Path javaFile, RefactorWorker worker) {
+        FileTask task = newTask(javaFile);
+        PhaseTimer timer = worker.phaseTimer;
+        if (runStep(task, timer, t -> readFile(t, timer))
+                && runStep(task, timer, t -> transformFile(t, worker))) {
+            runStep(task, timer, t -> writeFile(t, timer, worker.encoder));
+        }
+        completeTask(task);
+        return task.outcome;
+    }
+    
+    private FileTask newTask(Path javaFile) {
+        FileOutcome outcome = new FileOutcome(javaFile);
+        if (metrics != null || weights != null) {
+            outcome.enableTimings();
+        }
+        return new FileTask(javaFile, outcome, jfrEvents ? manifestKey(javaFile) : null);
+    }
+    
+    /**
+     * Executa um estágio de um arquivo. Qualquer erro vira warning do arquivo
+     * (inclusive Errors como StackOverflowError no parser) e encerra a tarefa.
+     * 
+     * O tempo de cada estágio conta para o tempo limite do arquivo; um arquivo
+     * que já estourou o limite não começa o estágio seguinte.
+     * 
+     * @return true se o arquivo segue para o próximo estágio
+     */
+    private boolean runStep(FileTask task, PhaseTimer timer, StageStep step) {
+        timer.reset(task.outcome, task.eventPath, jfrEvents);
+        if (watchdog != null) {
+            watchdog.begin(task.file, task.spentNanos);
+        }
+        long start = System.nanoTime();
+        try {
+            if (fileTimeoutNanos > 0 && task.spentNanos >= fileTimeoutNanos) {
+                throw new FileTimeoutException(fileTimeoutNanos);
+            }
+            return step.run(task);
+        } catch (FileTimeoutException e) {
+            RefactorMetrics.Phase phase = timer.getPhase();
+            task.outcome.markTimedOut();
+            task.outcome.addWarning(e.getMessage() + " ao processar " + task.file
+                + (phase != null ? " (fase " + phase.getLabel() + ")" : ""));
+            return false;
+        } catch (Exception e) {
+            task.outcome.addWarning("Erro ao processar " + task.file + ": " + e.getMessage());
+            if (verbose) {
+                e.printStackTrace();
+            }
+            return false;
+        } catch (Error e) {
+            task.outcome.addWarning("Erro ao processar " + task.file + ": " + e);
+            return false;
+        } finally {
+            // Fecha a fase em aberto (leitura de arquivo pulado ou fase que falhou)
+            timer.stop();
+            task.spentNanos += System.nanoTime() - start;
+            if (watchdog != null) {
+                watchdog.end();
+            }
+        }
+    }
+    
+    /**
+     * Estágio de leitura: lê os bytes (e, no modo incremental, verifica o manifesto).
+     */
+    private boolean readFile(FileTask task, PhaseTimer timer) throws IOException {
+        if (jfrEvents) {
+            task.event = new FileProcessedEvent();
+            task.event.begin();
+        }
+        timer.start(RefactorMetrics.Phase.READ);
+        if (journal != null) {
+            BasicFileAttributes attributes = Files.readAttributes(task.file, BasicFileAttributes.class);
+            task.size = attributes.size();
+            task.modifiedMillis = attributes.lastModifiedTime().toMillis();
+            if (journal.isCompleted(manifestKey(task.file), task.size, task.modifiedMillis)) {
+                task.outcome.markResumed();
+                if (verbose) {
+                    task.outcome.log("↩️  Concluído antes da interrupção: " + task.file);
+                }
+                return false;
+            }
+        }
+        task.source = readSource(task.file, task.outcome);
+        return task.source != null;
+    }
+    
+    /**
+     * Estágio de CPU: decodifica, aplica o pré-filtro, faz o parse, transforma
+     * e imprime o código.
+     * 
+     * @return true se há código refatorado para gravar
+     */
+    private boolean transformFile(FileTask task, RefactorWorker worker) throws IOException {
+        PhaseTimer timer = worker.phaseTimer;
+        FileOutcome outcome = task.outcome;
+        ByteBuffer source = task.source;
+        if (backupArchive == null) {
+            // Sem zip de backup o original não precisa seguir para a escrita
+            task.source = null;
+        }
+        if (fileTimeoutNanos > 0) {
+            worker.deadline.start(fileTimeoutNanos, task.spentNanos);
         }
         
-        CompilationUnit cu = parseResult.getResult().get();
-        boolean hasChanges = false;
+        try {
+            // Só detecta a codificação: os bytes são decodificados durante o parse
+            timer.start(RefactorMetrics.Phase.READ);
+            SourceEncoding encoding = SourceEncoding.detect(source, fallbackEncoding);
+            timer.stop();
+            if (verbose && encoding != SourceEncoding.UTF_8) {
+                outcome.log("🔤 Codificação " + encoding + ": " + task.file);
+            }
+            
+            timer.start(RefactorMetrics.Phase.SCAN);
+            Set<RefactorRule> activeRules = RefactorRule.all();
+            if (prefilter && encoding.isAsciiCompatible()) {
+                ByteBuffer text = source.duplicate();
+                text.position(text.position() + encoding.getBomLength());
+                activeRules = TriggerScanner.scan(text);
+            }
+            timer.stop();
+            if (activeRules.isEmpty()) {
+                outcome.markPrefiltered();
+                if (verbose) {
+                    outcome.log("⏭️  Pré-filtro: nenhum token de regra em " + task.file);
+                }
+                return false;
+            }
+            
+            outcome.setSkippedRules(RefactorRule.values().length - activeRules.size());
+            task.output = processJavaFile(task.file, source, encoding, activeRules, worker, outcome);
+            return task.output != null;
+        } finally {
+            // Reset counter para próximo arquivo
+            worker.deadline.clear();
+            worker.wrapperCleaner.resetCounter();
+            worker.wrapperCleaner.setEventSink(null);
+            worker.wrapperCleaner.setPatch(null);
+            worker.patch.clear();
+        }
+    }
+    
+    /**
+     * Estágio de escrita: backup do original e gravação do código refatorado.
+     */
+    private boolean writeFile(FileTask task, PhaseTimer timer, OutputEncoder encoder) throws IOException {
+        saveRefactoredFile(task.file, task.source, task.output, timer, encoder, task.outcome);
+        task.source = null;
+        task.output = null;
+        task.outcome.markRefactored();
         
-        // NOVO: Primeiro remove wrappers Mobilize problemáticos
-        if (verbose) {
-            System.out.println("  🔥 Removendo wrappers Mobilize...");
+        if (journal != null && !task.outcome.isOutputUnchanged() && outputFileFor(task.file).equals(task.file)) {
+            // In-place: a retomada vai encontrar o arquivo gravado, não o original
+            BasicFileAttributes attributes = Files.readAttributes(task.file, BasicFileAttributes.class);
+            task.size = attributes.size();
+            task.modifiedMillis = attributes.lastModifiedTime().toMillis();
         }
-        hasChanges |= wrapperCleaner.cleanMobilizeWrappers(cu);
-        result.addTransformations(wrapperCleaner.getTransformationsCount());
         
-        // Aplica transformações de nomenclatura
         if (verbose) {
-            System.out.println("  📝 Refatorando nomenclatura...");
+            task.outcome.log("  ✅ Arquivo refatorado com sucesso!");
         }
-        hasChanges |= refactorClassNames(cu, result);
-        hasChanges |= refactorMethodNames(cu, result);
-        hasChanges |= refactorFieldNames(cu, result);
-        hasChanges |= refactorVariableNames(cu, result);
-        
-        // Se houve mudanças, salva o arquivo
-        if (hasChanges) {
-            saveRefactoredFile(javaFile, cu, result);
-            result.incrementProcessedFiles();
-            
-            if (verbose) {
-                System.out.println("  ✅ Arquivo refatorado com sucesso!");
+        return false;
+    }
+    
+    /**
+     * Encerra a tarefa: registra no diário o arquivo concluído sem erros,
+     * libera os buffers, emite o evento JFR do arquivo e entrega o resultado
+     * para a consolidação.
+     */
+    private void completeTask(FileTask task) {
+        FileOutcome outcome = task.outcome;
+        if (journal != null && !outcome.isResumed() && outcome.getWarnings().isEmpty()) {
+            try {
+                journal.record(manifestKey(task.file), task.size, task.modifiedMillis);
+            } catch (IOException e) {
+                outcome.addWarning("Erro ao gravar o diário de progresso: " + e.getMessage());
             }
-        } else {
+        }
+        task.source = null;
+        task.output = null;
+        if (task.event != null) {
+            commitFileEvent(task.event, task.file, task.outcome);
+            task.event = null;
+        }
+        task.done.complete(task.outcome);
+    }
+    
+    private void commitFileEvent(FileProcessedEvent event, Path javaFile, FileOutcome outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = manifestKey(javaFile);
+            event.size = outcome.getBytesRead();
+            event.outcome = outcome.getStatus();
+            event.transformations = outcome.getTransformations();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Lê os bytes do arquivo. No modo incremental calcula o hash do
+     * conteúdo e retorna null se o manifesto indica que nada mudou.
+     */
+    private ByteBuffer readSource(Path javaFile, FileOutcome outcome) throws IOException {
+        ByteBuffer bytes = readBytes(javaFile);
+        outcome.setBytesRead(bytes.remaining());
+        if (manifest == null) {
+            return bytes;
+        }
+        
+        String contentHash = RefactorManifest.hash(bytes);
+        outcome.setContentHash(contentHash);
+        
+        String key = manifestKey(javaFile);
+        if (manifest.isUpToDate(key, contentHash)
+                && (!manifest.hasOutput(key) || Files.exists(outputFileFor(javaFile)))) {
+            outcome.markSkipped();
             if (verbose) {
-                System.out.println("  ⏭️  Nenhuma mudança necessária");
+                outcome.log("⏩ Inalterado desde a última execução: " + javaFile);
             }
+            return null;
         }
         
-        // Reset counter para próximo arquivo
-        wrapperCleaner.resetCounter();
+        return bytes;
     }
     
-    private boolean refactorClassNames(CompilationUnit cu, RefactorResult result) {
-        boolean hasChanges = false;
-        
-        for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-            String oldName = cls.getNameAsString();
+    /**
+     * Lê o arquivo inteiro. A partir de MAP_THRESHOLD o arquivo é mapeado em
+     * memória em vez de copiado para o heap, e carregado aqui, na thread de
+     * leitura, para o estágio de CPU não esperar por page faults.
+     */
+    private ByteBuffer readBytes(Path javaFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(javaFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (mapLargeFiles && size >= MAP_THRESHOLD) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mapped.load();
+                return mapped;
+            }
             
-            if (patternMatcher.isPowerBuilderClassName(oldName)) {
-                String newName = nameConverter.convertClassName(oldName);
-                
-                if (!oldName.equals(newName)) {
-                    cls.setName(newName);
-                    hasChanges = true;
-                    result.incrementTransformations();
-                    
-                    if (verbose) {
-                        System.out.println("    📝 Classe: " + oldName + " → " + newName);
-                    }
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
                 }
             }
+            buffer.flip();
+            return buffer;
+        }
+    }
+    
+    private String manifestKey(Path javaFile) {
+        return RefactorManifest.key(inputDir.relativize(javaFile));
+    }
+    
+    private Path outputFileFor(Path javaFile) {
+        return outputDir.resolve(inputDir.relativize(javaFile));
+    }
+    
+    /**
+     * Imprime o log do arquivo, grava-o no relatório e o consolida no resultado
+     * geral. Sempre chamado na thread principal, na ordem dos arquivos.
+     */
+    private void publish(FileOutcome outcome, RefactorResult result) throws IOException {
+        if (verbose) {
+            outcome.getMessages().forEach(System.out::println);
+        }
+        for (TransformationEvent event : outcome.getEvents()) {
+            if (!event.getKind().isRename()) {
+                TransformationEvent.LOG.debug("{}", event);
+            }
+        }
+        if (report != null) {
+            report.writeFile(manifestKey(outcome.getFile()), outcome);
+        }
+        result.merge(outcome);
+        if (metrics != null) {
+            metrics.record(manifestKey(outcome.getFile()), outcome);
+        }
+        if (weights != null) {
+            String key = manifestKey(outcome.getFile());
+            if (outcome.isSkipped() || outcome.isResumed()) {
+                weights.keep(key);
+            } else {
+                weights.record(key, outcome.getBytesRead(), outcome.getTimedNanos());
+            }
         }
         
-        return hasChanges;
+        if (manifest != null) {
+            String key = manifestKey(outcome.getFile());
+            if (outcome.isSkipped() || outcome.isResumed()) {
+                manifest.keep(key);
+            } else if (outcome.getContentHash() != null && outcome.getWarnings().isEmpty()) {
+                // Arquivos com erro não entram no manifesto e são tentados de novo
+                manifest.record(key, outcome.getContentHash(), outcome.getOutputHash());
+            }
+        }
     }
     
-    private boolean refactorMethodNames(CompilationUnit cu, RefactorResult result) {
-        boolean hasChanges = false;
+    /**
+     * Faz o parse, aplica as regras e, se houve mudanças, imprime o código.
+     * No modo léxico, arquivos que só precisam de renomeações dispensam o parse.
+     * 
+     * @return Código refatorado, ou null se nada mudou ou o parse falhou
+     */
+    private OutputContent processJavaFile(Path javaFile, ByteBuffer source, SourceEncoding encoding,
+                                   Set<RefactorRule> activeRules, RefactorWorker worker, FileOutcome outcome)
+            throws IOException {
+        if (verbose) {
+            outcome.log("🔍 Processando: " + javaFile);
+        }
         
-        for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
-            String oldName = method.getNameAsString();
+        CompilationUnit cu = null;
+        boolean hasChanges;
+        int transformationsBefore = outcome.getTransformations();
+        if (lexerRenames && !needsTree(activeRules) && renameByTokens(source, encoding, activeRules, worker, outcome)) {
+            // Renomeações já registradas no patch
+            hasChanges = outcome.getTransformations() > transformationsBefore;
+        } else {
+            // Faz o parse do código Java
+            worker.phaseTimer.start(RefactorMetrics.Phase.PARSE);
+            ParseResult<CompilationUnit> parseResult =
+                worker.javaParser.parse(ParseStart.COMPILATION_UNIT, worker.deadline.provider(source, encoding));
+            // O parser converte exceções em problemas: o prazo é verificado de novo
+            worker.deadline.check();
+            worker.phaseTimer.stop();
             
-            if (patternMatcher.isPowerBuilderMethodName(oldName)) {
-                String newName = nameConverter.convertMethodName(oldName);
-                
-                if (!oldName.equals(newName)) {
-                    method.setName(newName);
-                    hasChanges = true;
-                    result.incrementTransformations();
-                    
-                    if (verbose) {
-                        System.out.println("    🔧 Método: " + oldName + " → " + newName);
-                    }
-                }
+            if (!parseResult.isSuccessful()) {
+                outcome.addWarning("Falha ao parsear: " + javaFile);
+                return null;
             }
             
-            // Refatora parâmetros do método
-            for (Parameter param : method.getParameters()) {
-                String oldParamName = param.getNameAsString();
-                
-                if (patternMatcher.isPowerBuilderVariableName(oldParamName)) {
-                    String newParamName = nameConverter.convertVariableName(oldParamName);
-                    
-                    if (!oldParamName.equals(newParamName)) {
-                        param.setName(newParamName);
-                        hasChanges = true;
-                        result.incrementTransformations();
-                        
-                        if (verbose) {
-                            System.out.println("    📋 Parâmetro: " + oldParamName + " → " + newParamName);
-                        }
-                    }
-                }
+            cu = parseResult.getResult().get();
+            if (patchOutput) {
+                // As regras registram as edições de texto junto com as mudanças na árvore
+                worker.patch.begin(source, encoding);
             }
+            
+            // Limpeza de wrappers Mobilize e nomenclatura numa única travessia:
+            // as regras do cleaner rodam primeiro, depois classes, métodos e campos
+            if (verbose) {
+                outcome.log("  🔥 Removendo wrappers Mobilize...");
+                outcome.log("  📝 Refatorando nomenclatura...");
+            }
+            worker.phaseTimer.start(RefactorMetrics.Phase.TRANSFORM);
+            hasChanges = applyRules(cu, activeRules, worker, outcome);
+            worker.phaseTimer.stop();
+        }
+        
+        if (jfrEvents) {
+            String path = manifestKey(javaFile);
+            worker.wrapperCleaner.emitRuleEvents(path);
+            RuleAppliedEvent.emit(path, outcome.getRenameCounts());
         }
         
-        return hasChanges;
+        // Se houve mudanças, gera o código que o estágio de escrita vai salvar
+        if (hasChanges) {
+            return printRefactoredFile(cu, encoding, worker, outcome);
+        }
+        
+        if (verbose) {
+            outcome.log("  ⏭️  Nenhuma mudança necessária");
+        }
+        return null;
     }
     
-    private boolean refactorFieldNames(CompilationUnit cu, RefactorResult result) {
-        boolean hasChanges = false;
+    /**
+     * Modo léxico (--lexer-renames): localiza as declarações só pelos tokens
+     * (DeclarationLexer) e grava as renomeações no patch, sem montar a árvore.
+     * Os nomes novos, eventos e logs são os mesmos do caminho com AST.
+     * 
+     * Nada é registrado no FileOutcome antes de se saber que o arquivo não
+     * precisa da árvore, para que a promoção não conte nada em dobro.
+     * 
+     * @return false se o arquivo precisa do caminho com AST
+     */
+    private boolean renameByTokens(ByteBuffer source, SourceEncoding encoding, Set<RefactorRule> activeRules,
+                                   RefactorWorker worker, FileOutcome outcome) throws IOException {
+        SourcePatch patch = worker.patch;
+        DeclarationLexer lexer = worker.declarationLexer;
+        if (!patch.begin(source, encoding)) {
+            return false;
+        }
         
-        for (FieldDeclaration field : cu.findAll(FieldDeclaration.class)) {
-            for (VariableDeclarator var : field.getVariables()) {
-                String oldName = var.getNameAsString();
-                
-                if (patternMatcher.isPowerBuilderVariableName(oldName)) {
-                    String newName = nameConverter.convertVariableName(oldName);
-                    
-                    if (!oldName.equals(newName)) {
-                        var.setName(newName);
-                        hasChanges = true;
-                        result.incrementTransformations();
-                        
-                        if (verbose) {
-                            System.out.println("    🏷️  Campo: " + oldName + " → " + newName);
-                        }
+        worker.phaseTimer.start(RefactorMetrics.Phase.PARSE);
+        boolean lexed = lexer.scan(worker.deadline.provider(source, encoding));
+        // O token manager converte exceções em fim de arquivo: o prazo é verificado de novo
+        worker.deadline.check();
+        worker.phaseTimer.stop();
+        
+        worker.phaseTimer.start(RefactorMetrics.Phase.TRANSFORM);
+        List<DeclarationLexer.Declaration> declarations = lexer.getDeclarations();
+        String[] newNames = new String[declarations.size()];
+        if (lexed) {
+            for (int i = 0; i < newNames.length; i++) {
+                DeclarationLexer.Declaration declaration = declarations.get(i);
+                if (activeRules.contains(renameRule(declaration.getKind()))) {
+                    newNames[i] = convertDeclaredName(declaration.getKind(), declaration.getName());
+                    if (newNames[i] != null) {
+                        patch.replace(declaration.getRange(), newNames[i]);
                     }
                 }
             }
         }
         
-        return hasChanges;
+        String promotion = lexed ? patch.getFailure() : lexer.getPromotion();
+        if (promotion != null) {
+            worker.phaseTimer.stop();
+            if (verbose) {
+                outcome.log("  🌳 Parse completo necessário (" + promotion + ")");
+            }
+            return false;
+        }
+        
+        outcome.markLexed();
+        if (verbose) {
+            outcome.log("  📝 Refatorando nomenclatura (só tokens, sem AST)...");
+        }
+        for (int i = 0; i < newNames.length; i++) {
+            if (newNames[i] != null) {
+                DeclarationLexer.Declaration declaration = declarations.get(i);
+                recordRename(outcome, null, declaration.getKind(), declaration.getRange(),
+                             declaration.getName(), newNames[i]);
+            }
+        }
+        worker.phaseTimer.stop();
+        return true;
+    }
+    
+    /**
+     * Indica se o pré-filtro achou tokens de regras que alteram mais que nomes
+     * declarados. Sem pré-filtro todas as regras ficam ativas, e quem decide é
+     * a verificação de tokens do próprio DeclarationLexer.
+     */
+    private boolean needsTree(Set<RefactorRule> activeRules) {
+        if (!prefilter) {
+            return false;
+        }
+        for (RefactorRule rule : activeRules) {
+            if (!rule.isRename()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static RefactorRule renameRule(TransformationEvent.Kind kind) {
+        return switch (kind) {
+            case CLASS_NAME -> RefactorRule.CLASS_NAMES;
+            case METHOD_NAME, PARAMETER_NAME -> RefactorRule.METHOD_NAMES;
+            default -> RefactorRule.FIELD_NAMES;
+        };
     }
     
-    private boolean refactorVariableNames(CompilationUnit cu, RefactorResult result) {
+    /**
+     * Aplica as regras ativas (limpeza e nomenclatura) numa única travessia da
+     * árvore, somando as transformações no FileOutcome. Não lê nem grava
+     * arquivos; também usado pelos benchmarks JMH.
+     * 
+     * @return true se houve alguma transformação
+     */
+    boolean applyRules(CompilationUnit cu, Set<RefactorRule> activeRules, RefactorWorker worker,
+                       FileOutcome outcome) {
+        // Eventos ficam no FileOutcome e são logados/gravados na ordem dos arquivos;
+        // sem log DEBUG e sem relatório nenhum evento é criado
+        outcome.setRecordingEvents(report != null || TransformationEvent.LOG.isDebugEnabled());
+        worker.wrapperCleaner.setEventSink(outcome.isRecordingEvents() ? outcome::addEvent : null);
+        SourcePatch patch = worker.patch.isActive() ? worker.patch : null;
+        worker.wrapperCleaner.setPatch(patch);
+        
+        AstRuleDispatcher dispatcher = new AstRuleDispatcher();
+        dispatcher.setCheckpoint(worker.deadline::tick);
+        worker.wrapperCleaner.registerRules(dispatcher, activeRules);
+        registerRenameRules(dispatcher, activeRules, patch, outcome);
+        
+        int transformationsBefore = outcome.getTransformations();
+        dispatcher.dispatch(cu);
+        boolean renamed = outcome.getTransformations() > transformationsBefore;
+        
+        int cleanerTransformations = worker.wrapperCleaner.getTransformationsCount();
+        outcome.addTransformations(cleanerTransformations);
+        return cleanerTransformations > 0 || renamed;
+    }
+    
+    /**
+     * Registra as regras de nomenclatura ativas. Cada renomeação soma uma
+     * transformação no FileOutcome e, no modo patch, vira uma edição do nome.
+     * 
+     * @param patch Patch do arquivo atual ou null
+     */
+    private void registerRenameRules(AstRuleDispatcher dispatcher, Set<RefactorRule> activeRules,
+                                     SourcePatch patch, FileOutcome outcome) {
+        if (activeRules.contains(RefactorRule.CLASS_NAMES)) {
+            dispatcher.on(ClassOrInterfaceDeclaration.class, cls -> refactorClassName(cls, patch, outcome));
+        }
+        if (activeRules.contains(RefactorRule.METHOD_NAMES)) {
+            dispatcher.on(MethodDeclaration.class, method -> refactorMethodName(method, patch, outcome));
+        }
+        if (activeRules.contains(RefactorRule.FIELD_NAMES)) {
+            dispatcher.on(FieldDeclaration.class, field -> refactorFieldNames(field, patch, outcome));
+        }
         // TODO: Implementar refatoração de variáveis locais
         // Requer análise mais complexa do escopo
-        return false;
     }
     
-    private void saveRefactoredFile(Path originalFile, CompilationUnit cu, RefactorResult result) 
-            throws IOException {
+    private void refactorClassName(ClassOrInterfaceDeclaration cls, SourcePatch patch, FileOutcome outcome) {
+        String oldName = cls.getNameAsString();
+        String newName = convertDeclaredName(TransformationEvent.Kind.CLASS_NAME, oldName);
         
-        // Cria backup se solicitado
-        if (createBackup && !dryRun) {
-            Path backupFile = originalFile.resolveSibling(originalFile.getFileName() + ".backup");
-            Files.copy(originalFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
+        if (newName != null) {
+            recordRename(outcome, patch, TransformationEvent.Kind.CLASS_NAME, rangeOf(cls.getName()), oldName, newName);
+            cls.setName(newName);
+        }
+    }
+    
+    private void refactorMethodName(MethodDeclaration method, SourcePatch patch, FileOutcome outcome) {
+        String oldName = method.getNameAsString();
+        String newName = convertDeclaredName(TransformationEvent.Kind.METHOD_NAME, oldName);
+        
+        if (newName != null) {
+            recordRename(outcome, patch, TransformationEvent.Kind.METHOD_NAME, rangeOf(method.getName()),
+                         oldName, newName);
+            method.setName(newName);
+        }
+        
+        // Refatora parâmetros do método
+        for (Parameter param : method.getParameters()) {
+            String oldParamName = param.getNameAsString();
+            String newParamName = convertDeclaredName(TransformationEvent.Kind.PARAMETER_NAME, oldParamName);
             
+            if (newParamName != null) {
+                recordRename(outcome, patch, TransformationEvent.Kind.PARAMETER_NAME, rangeOf(param.getName()),
+                             oldParamName, newParamName);
+                param.setName(newParamName);
+            }
+        }
+    }
+    
+    private void refactorFieldNames(FieldDeclaration field, SourcePatch patch, FileOutcome outcome) {
+        for (VariableDeclarator var : field.getVariables()) {
+            String oldName = var.getNameAsString();
+            String newName = convertDeclaredName(TransformationEvent.Kind.FIELD_NAME, oldName);
+            
+            if (newName != null) {
+                recordRename(outcome, patch, TransformationEvent.Kind.FIELD_NAME, rangeOf(var.getName()),
+                             oldName, newName);
+                var.setName(newName);
+            }
+        }
+    }
+    
+    /**
+     * Novo nome de uma declaração, ou null se o nome não segue o padrão
+     * PowerBuilder do tipo de declaração (ou a conversão não o altera).
+     * Usado pelo caminho com AST e pelo modo léxico.
+     */
+    private String convertDeclaredName(TransformationEvent.Kind kind, String oldName) {
+        String newName = switch (kind) {
+            case CLASS_NAME -> patternMatcher.isPowerBuilderClassName(oldName)
+                ? nameConverter.convertClassName(oldName) : null;
+            case METHOD_NAME -> patternMatcher.isPowerBuilderMethodName(oldName)
+                ? nameConverter.convertMethodName(oldName) : null;
+            default -> patternMatcher.isPowerBuilderVariableName(oldName)
+                ? nameConverter.convertVariableName(oldName) : null;
+        };
+        return newName == null || newName.equals(oldName) ? null : newName;
+    }
+    
+    /**
+     * Registra a renomeação e soma uma transformação; chamado antes de
+     * setName(), que descarta a posição do nome.
+     * 
+     * @param patch Patch do arquivo atual ou null
+     */
+    private void recordRename(FileOutcome outcome, SourcePatch patch, TransformationEvent.Kind kind,
+                              Range range, String oldName, String newName) {
+        outcome.countRename(kind);
+        if (patch != null) {
+            patch.replace(range, newName);
+        }
+        if (outcome.isRecordingEvents()) {
+            outcome.addEvent(new TransformationEvent(kind, range, oldName, newName));
+        }
+        outcome.incrementTransformations();
+        
+        if (verbose) {
+            String label = switch (kind) {
+                case CLASS_NAME -> "    📝 Classe: ";
+                case METHOD_NAME -> "    🔧 Método: ";
+                case PARAMETER_NAME -> "    📋 Parâmetro: ";
+                default -> "    🏷️  Campo: ";
+            };
+            outcome.log(label + oldName + " → " + newName);
+        }
+    }
+    
+    /**
+     * Posição só do identificador. Em declaradores no estilo C (int giA[],
+     * String as_s[][]) o range do SimpleName inclui os colchetes, que o patch
+     * não pode sobrescrever.
+     */
+    private static Range rangeOf(SimpleName name) {
+        return name.getRange()
+            .map(range -> Range.range(range.begin, range.begin.right(name.getIdentifier().length() - 1)))
+            .orElse(null);
+    }
+    
+    /**
+     * Gera o código refatorado: no modo patch, o original com as edições das
+     * regras; senão (ou se o patch não se aplica) a reimpressão pelo printer
+     * da thread. Sem árvore (cu null, modo léxico) o patch sempre se aplica.
+     * O hash do manifesto é calculado em blocos pelo encoder da thread, sem
+     * copiar a saída em bytes.
+     */
+    private OutputContent printRefactoredFile(CompilationUnit cu, SourceEncoding encoding, RefactorWorker worker,
+                                              FileOutcome outcome) throws IOException {
+        worker.phaseTimer.start(RefactorMetrics.Phase.PRINT);
+        OutputContent content = worker.patch.isActive() ? worker.patch.build() : null;
+        if (content == null && patchOutput) {
+            outcome.markReprinted();
+            if (verbose) {
+                String reason = worker.patch.isActive() ? worker.patch.getFailure() : "codificação " + encoding;
+                outcome.log("  🖨️  Patch não se aplica (" + reason + "), reimprimindo o arquivo");
+            }
+        }
+        if (content == null) {
+            content = OutputContent.printed(worker.printer.print(cu), encoding);
+        }
+        
+        if (manifest != null) {
+            outcome.setOutputHash(RefactorManifest.hash(content, worker.encoder));
+        }
+        worker.phaseTimer.stop();
+        return content;
+    }
+    
+    /**
+     * Guarda o original (se solicitado) e grava o código refatorado na
+     * codificação do original.
+     * 
+     * @param originalContent Bytes do original; só usados no backup em zip
+     */
+    private void saveRefactoredFile(Path originalFile, ByteBuffer originalContent, OutputContent refactoredCode,
+                                    PhaseTimer timer, OutputEncoder encoder,
+                                    FileOutcome outcome) throws IOException {
+        if (dryRun) {
             if (verbose) {
-                System.out.println("    💾 Backup criado: " + backupFile.getFileName());
+                outcome.log("    💾 Salvo: " + originalFile);
             }
+            return;
         }
         
-        // Gera o código refatorado
-        DefaultPrinterConfiguration config = new DefaultPrinterConfiguration();
-        config.setOrderImports(true);
-        config.setRemoveUnusedImports(true);
+        // Calcula o arquivo de saída; saída idêntica à existente não é regravada
+        timer.start(RefactorMetrics.Phase.WRITE);
+        Path outputFile = outputFileFor(originalFile);
+        boolean unchanged = outputWriter.isUnchanged(outputFile, refactoredCode, encoder);
+        timer.stop();
         
-        DefaultPrettyPrinter printer = new DefaultPrettyPrinter(config);
-        String refactoredCode = printer.print(cu);
+        if (unchanged) {
+            outcome.markOutputUnchanged();
+            if (verbose) {
+                outcome.log("    ⏭️  Saída idêntica à existente, gravação evitada: " + outputFile);
+            }
+            return;
+        }
         
-        if (!dryRun) {
-            // Calcula o arquivo de saída
-            Path relativePath = inputDir.relativize(originalFile);
-            Path outputFile = outputDir.resolve(relativePath);
-            
-            // Cria diretórios se necessário
-            Files.createDirectories(outputFile.getParent());
-            
-            // Escreve o arquivo refatorado
-            Files.writeString(outputFile, refactoredCode);
+        // Cria backup se solicitado
+        if (createBackup) {
+            timer.start(RefactorMetrics.Phase.BACKUP);
+            backupOriginal(originalFile, originalContent, outputFile.equals(originalFile), outcome);
+            timer.stop();
         }
         
+        // Escreve o arquivo refatorado (temporário + rename atômico)
+        timer.start(RefactorMetrics.Phase.WRITE);
+        outputWriter.write(outputFile, refactoredCode, encoder);
+        timer.stop();
+        
         if (verbose) {
-            System.out.println("    💾 Salvo: " + originalFile);
+            outcome.log("    💾 Salvo: " + originalFile);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Guarda o original conforme o modo de backup. O link é seguro mesmo na
+     * refatoração in-place: o OutputWriter troca o arquivo por rename, então o
+     * link continua apontando para o conteúdo original.
+     * 
+     * @param inPlace A saída vai sobrescrever o original
+     */
+    private void backupOriginal(Path originalFile, ByteBuffer originalContent, boolean inPlace,
+                                FileOutcome outcome) throws IOException {
+        if (backupMode == RefactorOptions.BackupMode.ARCHIVE) {
+            long entry = backupArchive.add(manifestKey(originalFile), originalContent);
+            if (inPlace) {
+                // O original só é sobrescrito depois de estar no disco dentro do zip
+                backupArchive.awaitDurable(entry);
+            }
+            return;
+        }
+        
+        Path backupFile = originalFile.resolveSibling(originalFile.getFileName() + ".backup");
+        if (resume && inPlace && Files.exists(backupFile)) {
+            // Gravado antes da interrupção, depois do último lote do diário: o
+            // backup existente é o original; o arquivo atual já é a saída
+            if (verbose) {
+                outcome.log("    💾 Backup da execução interrompida mantido: " + backupFile.getFileName());
+            }
+            return;
+        }
+        boolean linked = false;
+        if (backupMode == RefactorOptions.BackupMode.LINK) {
+            try {
+                Files.deleteIfExists(backupFile);
+                Files.createLink(backupFile, originalFile);
+                linked = true;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Sistema de arquivos sem hard links (ou outro volume): copia
+            }
+        }
+        if (!linked) {
+            Files.copy(originalFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        if (verbose) {
+            outcome.log("    💾 Backup " + (linked ? "(link) " : "") + "criado: " + backupFile.getFileName());
+        }
+    }
+    
+    /**
+     * Um arquivo em trânsito pelo pipeline. Cada estágio só toca a tarefa
+     * enquanto ela está com ele; as filas garantem a visibilidade entre threads.
+     */
+    private static final class FileTask {
+        final Path file;
+        final FileOutcome outcome;
+        final String eventPath;
+        final CompletableFuture<FileOutcome> done = new CompletableFuture<>();
+        
+        FileProcessedEvent event;
+        long weight;
+        long spentNanos;
+        // Estado do arquivo registrado no diário (o gravado, na refatoração in-place)
+        long size;
+        long modifiedMillis;
+        ByteBuffer source;
+        OutputContent output;
+        
+        FileTask(Path file, FileOutcome outcome, String eventPath) {
+            this.file = file;
+            this.outcome = outcome;
+            this.eventPath = eventPath;
+        }
+    }
+    
+    /**
+     * Entrada de um estágio; null indica que não há mais tarefas.
+     */
+    private interface TaskSource {
+        FileTask next() throws InterruptedException;
+    }
+    
+    /**
+     * Trabalho de um estágio sobre uma tarefa; true a repassa ao próximo estágio.
+     */
+    private interface StageStep {
+        boolean run(FileTask task) throws IOException;
+    }
+}
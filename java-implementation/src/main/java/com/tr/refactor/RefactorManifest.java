@@ -0,0 +1,235 @@
+package com.tr.refactor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Manifesto persistente do modo incremental.
+ * 
+ * Guarda, para cada arquivo de entrada, o hash do conteúdo, a versão das regras,
+ * o hash da saída gerada e as opções que afetam a saída. Um arquivo cujo hash,
+ * versão de regras e opções batem com o manifesto não precisa ser parseado
+ * novamente.
+ * 
+ * Formato (TSV, uma linha por arquivo, ordenado por caminho):
+ * caminho-relativo  hash-entrada  versão-regras  hash-saída  opções
+ */
+public class RefactorManifest {
+    
+    /**
+     * Versão do conjunto de regras. Deve ser incrementada sempre que uma regra
+     * mudar a saída gerada, para invalidar os manifestos existentes.
+     */
+    public static final String RULES_VERSION = "2";
+    
+    private static final String HEADER = "# payroll-refactor manifest v2";
+    private static final String NO_OUTPUT = "-";
+    
+    private final Path manifestFile;
+    private final String outputOptions;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new TreeMap<>();
+    
+    private RefactorManifest(Path manifestFile, String outputOptions, Map<String, Entry> previous) {
+        this.manifestFile = manifestFile;
+        this.outputOptions = outputOptions;
+        this.previous = previous;
+    }
+    
+    /**
+     * Opções que mudam a saída de um mesmo arquivo: modo de saída, comentários
+     * e codificação de fallback. Opções que não mudam a saída (threads,
+     * pré-filtro, --lexer-renames) ficam de fora, para não invalidar o manifesto.
+     */
+    public static String outputOptions(RefactorOptions options) {
+        return "output=" + options.getOutputMode().name().toLowerCase()
+            + ";comments=" + options.isPreserveComments()
+            + ";fallback=" + options.getFallbackEncoding().name();
+    }
+    
+    /**
+     * Caminho padrão do manifesto: ao lado do diretório de saída.
+     */
+    public static Path defaultLocation(Path outputDir) {
+        Path absolute = outputDir.toAbsolutePath().normalize();
+        String name = absolute.getFileName() != null ? absolute.getFileName().toString() : "root";
+        Path parent = absolute.getParent() != null ? absolute.getParent() : absolute;
+        return parent.resolve("." + name + ".refactor-manifest");
+    }
+    
+    /**
+     * Carrega o manifesto existente; arquivo ausente resulta em manifesto vazio.
+     * Linhas de manifestos antigos (sem a coluna de opções) são ignoradas.
+     * 
+     * @param outputOptions Opções desta execução (ver outputOptions)
+     */
+    public static RefactorManifest load(Path manifestFile, String outputOptions) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        
+        if (Files.exists(manifestFile)) {
+            List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length == 5) {
+                    entries.put(fields[0], new Entry(fields[1], fields[2], fields[3], fields[4]));
+                }
+            }
+        }
+        
+        return new RefactorManifest(manifestFile, outputOptions, Collections.unmodifiableMap(entries));
+    }
+    
+    /**
+     * Verifica se o arquivo pode ser pulado: o conteúdo atual é a entrada já
+     * processada ou a própria saída gerada (refatoração in-place), com as
+     * mesmas regras e as mesmas opções de saída.
+     * 
+     * @param relativePath Caminho relativo ao diretório de entrada
+     * @param contentHash Hash do conteúdo atual
+     * @return true se o arquivo não precisa ser processado
+     */
+    public boolean isUpToDate(String relativePath, String contentHash) {
+        Entry entry = previous.get(relativePath);
+        if (entry == null || !RULES_VERSION.equals(entry.rulesVersion)
+                || !outputOptions.equals(entry.outputOptions)) {
+            return false;
+        }
+        return contentHash.equals(entry.inputHash) || contentHash.equals(entry.outputHash);
+    }
+    
+    /**
+     * Indica se a execução anterior gerou um arquivo de saída para o caminho.
+     */
+    public boolean hasOutput(String relativePath) {
+        Entry entry = previous.get(relativePath);
+        return entry != null && !NO_OUTPUT.equals(entry.outputHash);
+    }
+    
+    /**
+     * Mantém a entrada anterior de um arquivo que foi pulado.
+     */
+    public void keep(String relativePath) {
+        Entry entry = previous.get(relativePath);
+        if (entry != null) {
+            current.put(relativePath, entry);
+        }
+    }
+    
+    /**
+     * Registra um arquivo processado nesta execução.
+     * 
+     * @param outputHash Hash da saída, ou null se o arquivo não mudou
+     */
+    public void record(String relativePath, String inputHash, String outputHash) {
+        current.put(relativePath, new Entry(inputHash, RULES_VERSION,
+                                            outputHash != null ? outputHash : NO_OUTPUT, outputOptions));
+    }
+    
+    /**
+     * Grava o manifesto de forma atômica (arquivo temporário + rename).
+     * Arquivos que não existem mais na entrada são descartados.
+     */
+    public void save() throws IOException {
+        Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> e : current.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(e.getKey() + "\t" + entry.inputHash + "\t" + entry.rulesVersion + "\t" + entry.outputHash
+                             + "\t" + entry.outputOptions);
+                writer.newLine();
+            }
+        }
+        
+        Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public Path getManifestFile() {
+        return manifestFile;
+    }
+    
+    /**
+     * Calcula o hash SHA-256 (hex) de um conteúdo.
+     */
+    public static String hash(byte[] content) {
+        return hex(newDigest().digest(content));
+    }
+    
+    /**
+     * Calcula o hash SHA-256 (hex) do conteúdo de position até limit, sem
+     * alterar o buffer.
+     */
+    public static String hash(ByteBuffer content) {
+        MessageDigest digest = newDigest();
+        digest.update(content.duplicate());
+        return hex(digest.digest());
+    }
+    
+    /**
+     * Calcula o hash SHA-256 (hex) de um arquivo refatorado, em blocos, sem
+     * materializar os bytes do arquivo inteiro.
+     */
+    public static String hash(OutputContent content, OutputEncoder encoder) throws IOException {
+        MessageDigest digest = newDigest();
+        content.writeTo(encoder, chunk -> {
+            digest.update(chunk);
+            return true;
+        });
+        return hex(digest.digest());
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+    
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Converte um caminho relativo para a chave do manifesto (separador '/').
+     */
+    public static String key(Path relativePath) {
+        return relativePath.toString().replace('\\', '/');
+    }
+    
+    private static final class Entry {
+        final String inputHash;
+        final String rulesVersion;
+        final String outputHash;
+        final String outputOptions;
+        
+        Entry(String inputHash, String rulesVersion, String outputHash, String outputOptions) {
+            this.inputHash = inputHash;
+            this.rulesVersion = rulesVersion;
+            this.outputHash = outputHash;
+            this.outputOptions = outputOptions;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Métricas de desempenho de uma execução (--metrics / --metrics-out).
+ * 
+ * Cada arquivo tem o tempo de cada fase medido pelo worker (no FileOutcome);
+ * aqui os tempos são consolidados em histogramas por fase, vazão total e a
+ * lista dos N arquivos mais lentos. Memória constante: histogramas fixos e
+ * um heap limitado para os mais lentos.
+ * 
+ * Não é thread-safe: só é atualizado na thread de consolidação do engine.
+ */
+public class RefactorMetrics {
+    
+    /**
+     * Fases do processamento de um arquivo. Limpeza de wrappers e renomeação
+     * rodam na mesma travessia da árvore e são medidas juntas (TRANSFORM).
+     */
+    public enum Phase {
+        READ("leitura"),
+        SCAN("pré-filtro"),
+        PARSE("parse"),
+        TRANSFORM("transformação"),
+        PRINT("impressão"),
+        BACKUP("backup"),
+        WRITE("escrita");
+        
+        private final String label;
+        
+        Phase(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    public static final int DEFAULT_SLOWEST = 10;
+    
+    private static final Phase[] PHASES = Phase.values();
+    
+    private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram fileHistogram = new LatencyHistogram();
+    private final int slowestLimit;
+    private final PriorityQueue<FileTiming> slowest =
+        new PriorityQueue<>(Comparator.comparingLong(FileTiming::getTotalNanos));
+    
+    private long files = 0;
+    private long bytes = 0;
+    private long elapsedNanos = 0;
+    private PipelineStats pipelineStats;
+    private long discoveredFiles = 0;
+    private long discoveryNanos = 0;
+    
+    public RefactorMetrics() {
+        this(DEFAULT_SLOWEST);
+    }
+    
+    /**
+     * @param slowestLimit Quantos arquivos mais lentos manter
+     */
+    public RefactorMetrics(int slowestLimit) {
+        this.slowestLimit = Math.max(0, slowestLimit);
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseHistograms[i] = new LatencyHistogram();
+        }
+    }
+    
+    /**
+     * Consolida os tempos de um arquivo.
+     * 
+     * @param path Caminho relativo usado na lista dos mais lentos
+     * @param outcome Resultado com os tempos por fase
+     */
+    public void record(String path, FileOutcome outcome) {
+        long[] phaseNanos = outcome.getPhaseNanos();
+        if (phaseNanos == null) {
+            return;
+        }
+        
+        long total = 0;
+        for (int i = 0; i < PHASES.length; i++) {
+            if (phaseNanos[i] > 0) {
+                phaseHistograms[i].record(phaseNanos[i]);
+                total += phaseNanos[i];
+            }
+        }
+        fileHistogram.record(total);
+        files++;
+        bytes += outcome.getBytesRead();
+        
+        if (slowestLimit > 0 && (slowest.size() < slowestLimit || total > slowest.peek().getTotalNanos())) {
+            slowest.add(new FileTiming(path, total, phaseNanos.clone()));
+            if (slowest.size() > slowestLimit) {
+                slowest.poll();
+            }
+        }
+    }
+    
+    /**
+     * Registra o tempo total da execução, usado na vazão.
+     */
+    public void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    /**
+     * Registra a varredura do diretório de entrada.
+     */
+    public void setDiscovery(long discoveredFiles, long discoveryNanos) {
+        this.discoveredFiles = discoveredFiles;
+        this.discoveryNanos = discoveryNanos;
+    }
+    
+    public long getDiscoveredFiles() {
+        return discoveredFiles;
+    }
+    
+    public long getDiscoveryNanos() {
+        return discoveryNanos;
+    }
+    
+    /**
+     * Ocupação dos estágios, quando os arquivos passaram pelo pipeline.
+     */
+    public void setPipelineStats(PipelineStats pipelineStats) {
+        this.pipelineStats = pipelineStats;
+    }
+    
+    public PipelineStats getPipelineStats() {
+        return pipelineStats;
+    }
+    
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phaseHistograms[phase.ordinal()];
+    }
+    
+    /**
+     * Histograma do tempo total por arquivo (soma das fases).
+     */
+    public LatencyHistogram getFileHistogram() {
+        return fileHistogram;
+    }
+    
+    public long getFiles() {
+        return files;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    public double getFilesPerSecond() {
+        return elapsedNanos > 0 ? files * 1e9 / elapsedNanos : 0.0;
+    }
+    
+    public double getBytesPerSecond() {
+        return elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos : 0.0;
+    }
+    
+    /**
+     * Arquivos mais lentos, do mais lento para o mais rápido.
+     */
+    public List<FileTiming> getSlowest() {
+        List<FileTiming> sorted = new ArrayList<>(slowest);
+        sorted.sort(Comparator.comparingLong(FileTiming::getTotalNanos).reversed()
+            .thenComparing(FileTiming::getPath));
+        return sorted;
+    }
+    
+    /**
+     * Bloco de métricas para o resumo do console.
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n⏱️  MÉTRICAS:\n");
+        sb.append(String.format(Locale.ROOT, "  • Tempo total: %s | %.1f arquivos/s | %.2f MB/s%n",
+            millis(elapsedNanos), getFilesPerSecond(), getBytesPerSecond() / (1024 * 1024)));
+        sb.append("  • Descoberta: ").append(discoveredFiles).append(" arquivos em ")
+          .append(millis(discoveryNanos)).append("\n");
+        sb.append(String.format(Locale.ROOT, "  • %-14s %10s %10s %10s %10s %12s%n",
+            "Fase", "p50", "p95", "p99", "max", "total"));
+        for (Phase phase : PHASES) {
+            appendHistogramLine(sb, phase.getLabel(), getHistogram(phase));
+        }
+        appendHistogramLine(sb, "arquivo", fileHistogram);
+        if (pipelineStats != null) {
+            sb.append(pipelineStats.getSummary());
+        }
+        
+        List<FileTiming> slowestFiles = getSlowest();
+        if (!slowestFiles.isEmpty()) {
+            sb.append("  • Arquivos mais lentos:\n");
+            for (int i = 0; i < slowestFiles.size(); i++) {
+                FileTiming timing = slowestFiles.get(i);
+                sb.append("    ").append(i + 1).append(". ").append(timing.getPath())
+                  .append(" ").append(millis(timing.getTotalNanos())).append(" (");
+                boolean first = true;
+                for (Phase phase : PHASES) {
+                    long nanos = timing.getPhaseNanos(phase);
+                    if (nanos > 0) {
+                        sb.append(first ? "" : ", ").append(phase.getLabel()).append(" ").append(millis(nanos));
+                        first = false;
+                    }
+                }
+                sb.append(")\n");
+            }
+        }
+        return sb.toString();
+    }
+    
+    private static void appendHistogramLine(StringBuilder sb, String label, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        sb.append(String.format(Locale.ROOT, "  • %-14s %10s %10s %10s %10s %12s%n", label,
+            millis(histogram.percentile(50)), millis(histogram.percentile(95)),
+            millis(histogram.percentile(99)), millis(histogram.getMax()), millis(histogram.getTotal())));
+    }
+    
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+    }
+    
+    /**
+     * Grava as métricas em JSON (--metrics-out).
+     */
+    public void writeJson(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("{\n");
+        sb.append("  \"elapsedMs\": ").append(toMillis(elapsedNanos)).append(",\n");
+        sb.append("  \"files\": ").append(files).append(",\n");
+        sb.append("  \"bytes\": ").append(bytes).append(",\n");
+        sb.append("  \"filesPerSecond\": ").append(round(getFilesPerSecond())).append(",\n");
+        sb.append("  \"bytesPerSecond\": ").append(round(getBytesPerSecond())).append(",\n");
+        sb.append("  \"discoveredFiles\": ").append(discoveredFiles).append(",\n");
+        sb.append("  \"discoveryMs\": ").append(toMillis(discoveryNanos)).append(",\n");
+        
+        sb.append("  \"phases\": {\n");
+        for (Phase phase : PHASES) {
+            sb.append("    \"").append(phase).append("\": ");
+            appendHistogramJson(sb, getHistogram(phase));
+            sb.append(",\n");
+        }
+        sb.append("    \"FILE\": ");
+        appendHistogramJson(sb, fileHistogram);
+        sb.append("\n  },\n");
+        
+        if (pipelineStats != null) {
+            sb.append("  \"pipeline\": ");
+            pipelineStats.appendJson(sb);
+            sb.append(",\n");
+        }
+        
+        sb.append("  \"slowest\": [");
+        List<FileTiming> slowestFiles = getSlowest();
+        for (int i = 0; i < slowestFiles.size(); i++) {
+            FileTiming timing = slowestFiles.get(i);
+            sb.append(i == 0 ? "\n" : ",\n").append("    {\"path\": ");
+            JsonStrings.append(sb, timing.getPath());
+            sb.append(", \"totalMs\": ").append(toMillis(timing.getTotalNanos())).append(", \"phasesMs\": {");
+            boolean first = true;
+            for (Phase phase : PHASES) {
+                long nanos = timing.getPhaseNanos(phase);
+                if (nanos > 0) {
+                    sb.append(first ? "" : ", ").append('"').append(phase).append("\": ").append(toMillis(nanos));
+                    first = false;
+                }
+            }
+            sb.append("}}");
+        }
+        sb.append(slowestFiles.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+    
+    private static void appendHistogramJson(StringBuilder sb, LatencyHistogram histogram) {
+        sb.append("{\"count\": ").append(histogram.getCount())
+          .append(", \"p50Ms\": ").append(toMillis(histogram.percentile(50)))
+          .append(", \"p95Ms\": ").append(toMillis(histogram.percentile(95)))
+          .append(", \"p99Ms\": ").append(toMillis(histogram.percentile(99)))
+          .append(", \"maxMs\": ").append(toMillis(histogram.getMax()))
+          .append(", \"totalMs\": ").append(toMillis(histogram.getTotal()))
+          .append('}');
+    }
+    
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+    
+    private static String round(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+    
+    /**
+     * Tempos de um dos arquivos mais lentos.
+     */
+    public static final class FileTiming {
+        private final String path;
+        private final long totalNanos;
+        private final long[] phaseNanos;
+        
+        FileTiming(String path, long totalNanos, long[] phaseNanos) {
+            this.path = path;
+            this.totalNanos = totalNanos;
+            this.phaseNanos = phaseNanos;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+        
+        public long getPhaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.tr.refactor;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opções de execução da refatoração.
+ * 
+ * Agrupa as flags da linha de comando para que o RefactorEngine não precise
+ * de um construtor com dezenas de parâmetros.
+ */
+public class RefactorOptions {
+    
+    /**
+     * Ordem em que o pipeline entrega os arquivos à leitura.
+     */
+    public enum Schedule {
+        /** Maior peso primeiro (LPT), depois de descobrir todos os arquivos */
+        LARGEST_FIRST,
+        /** Na ordem em que a varredura encontra os arquivos, sem esperá-la terminar */
+        DISCOVERY
+    }
+    
+    /**
+     * Como o original de cada arquivo alterado é guardado (--backup).
+     */
+    public enum BackupMode {
+        /** Cópia "Arquivo.java.backup" ao lado de cada original */
+        COPY,
+        /** Hard link "Arquivo.java.backup": nenhum dado copiado; cópia se o sistema não suportar */
+        LINK,
+        /**
+         * Um único zip por execução, ao lado do diretório de saída, gravado em
+         * segundo plano; in-place, cada original chega ao disco no zip antes
+         * de ser sobrescrito
+         */
+        ARCHIVE
+    }
+    
+    /**
+     * Como o código refatorado é gerado (--output-mode).
+     */
+    public enum OutputMode {
+        /** Reimpressão do arquivo inteiro pelo printer do JavaParser */
+        REPRINT,
+        /** Original com só os trechos editados substituídos; reimpressão se o patch não se aplica */
+        PATCH
+    }
+    
+    private boolean dryRun = false;
+    private boolean verbose = false;
+    private boolean preserveComments = true;
+    private boolean createBackup = true;
+    private BackupMode backupMode = BackupMode.COPY;
+    private OutputMode outputMode = OutputMode.REPRINT;
+    private boolean lexerRenames = false;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int readThreads = 2;
+    private int writeThreads = 2;
+    private int queueCapacity = 64;
+    private int scanThreads = Runtime.getRuntime().availableProcessors();
+    private List<String> includes = new ArrayList<>();
+    private List<String> excludes = new ArrayList<>();
+    private Schedule schedule = Schedule.LARGEST_FIRST;
+    private Path weightsFile = null;
+    private Duration fileTimeout = Duration.ZERO;
+    private Duration slowFileThreshold = Duration.ofSeconds(30);
+    private boolean incremental = false;
+    private boolean resume = false;
+    private Charset fallbackEncoding = StandardCharsets.ISO_8859_1;
+    private int nameCacheSize = ConversionCache.DEFAULT_MAX_SIZE;
+    private boolean prefilter = true;
+    private Path reportFile = null;
+    private boolean metrics = false;
+    private Path metricsFile = null;
+    private Path jfrFile = null;
+    
+    public boolean isDryRun() {
+        return dryRun;
+    }
+    
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+    
+    public boolean isVerbose() {
+        return verbose;
+    }
+    
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
+    public boolean isPreserveComments() {
+        return preserveComments;
+    }
+    
+    /**
+     * Sem preservar comentários o parse e a impressão são mais rápidos. No
+     * modo reprint a saída perde todos os comentários, inclusive Javadoc; no
+     * modo patch o original é copiado e os comentários ficam, exceto nos
+     * arquivos reimpressos porque o patch não se aplica.
+     */
+    public void setPreserveComments(boolean preserveComments) {
+        this.preserveComments = preserveComments;
+    }
+    
+    public boolean isCreateBackup() {
+        return createBackup;
+    }
+    
+    public void setCreateBackup(boolean createBackup) {
+        this.createBackup = createBackup;
+    }
+    
+    public BackupMode getBackupMode() {
+        return backupMode;
+    }
+    
+    public void setBackupMode(BackupMode backupMode) {
+        this.backupMode = backupMode;
+    }
+    
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+    
+    /**
+     * No modo PATCH a formatação, os comentários e os imports do original
+     * ficam como estão (inclusive com --no-preserve-comments); só os trechos
+     * transformados mudam.
+     */
+    public void setOutputMode(OutputMode outputMode) {
+        this.outputMode = outputMode;
+    }
+    
+    public boolean isLexerRenames() {
+        return lexerRenames;
+    }
+    
+    /**
+     * Arquivos que só precisam de renomeações são tratados pelos tokens, sem
+     * montar a árvore (ver DeclarationLexer). Só vale com OutputMode.PATCH:
+     * a reimpressão precisa da árvore.
+     */
+    public void setLexerRenames(boolean lexerRenames) {
+        this.lexerRenames = lexerRenames;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * Define o número de threads de processamento (mínimo 1).
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+    
+    public boolean isIncremental() {
+        return incremental;
+    }
+    
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    public boolean isResume() {
+        return resume;
+    }
+    
+    /**
+     * Retoma uma execução interrompida: pula os arquivos que o diário de
+     * progresso registra como concluídos e não mudaram desde então.
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+    
+    public Charset getFallbackEncoding() {
+        return fallbackEncoding;
+    }
+    
+    /**
+     * Define a codificação dos arquivos sem BOM que não são UTF-8 válido
+     * (exports Mobilize antigos). A saída é gravada na mesma codificação.
+     */
+    public void setFallbackEncoding(Charset fallbackEncoding) {
+        this.fallbackEncoding = fallbackEncoding;
+    }
+    
+    public int getNameCacheSize() {
+        return nameCacheSize;
+    }
+    
+    /**
+     * Define o tamanho máximo do cache de conversões de nomes (0 desativa).
+     */
+    public void setNameCacheSize(int nameCacheSize) {
+        this.nameCacheSize = Math.max(0, nameCacheSize);
+    }
+    
+    public boolean isPrefilter() {
+        return prefilter;
+    }
+    
+    /**
+     * Ativa o pré-filtro de tokens (TriggerScanner) que evita o parse de
+     * arquivos sem nada para transformar.
+     */
+    public void setPrefilter(boolean prefilter) {
+        this.prefilter = prefilter;
+    }
+    
+    public Path getReportFile() {
+        return reportFile;
+    }
+    
+    /**
+     * Define o arquivo do relatório JSON Lines (null desativa).
+     */
+    public void setReportFile(Path reportFile) {
+        this.reportFile = reportFile;
+    }
+    
+    public boolean isMetrics() {
+        return metrics || metricsFile != null;
+    }
+    
+    /**
+     * Ativa a medição de tempo por fase e o bloco de métricas no resumo.
+     */
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+    
+    public Path getMetricsFile() {
+        return metricsFile;
+    }
+    
+    /**
+     * Define o arquivo JSON de métricas (null desativa); implica setMetrics(true).
+     */
+    public void setMetricsFile(Path metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+    
+    public Path getJfrFile() {
+        return jfrFile;
+    }
+    
+    /**
+     * Define o arquivo da gravação JFR iniciada pela execução (null desativa).
+     */
+    public void setJfrFile(Path jfrFile) {
+        this.jfrFile = jfrFile;
+    }
+    
+    public int getReadThreads() {
+        return readThreads;
+    }
+    
+    /**
+     * Threads do estágio de leitura do pipeline (usado quando threads > 1).
+     */
+    public void setReadThreads(int readThreads) {
+        this.readThreads = readThreads;
+    }
+    
+    public int getWriteThreads() {
+        return writeThreads;
+    }
+    
+    /**
+     * Threads do estágio de backup e escrita do pipeline.
+     */
+    public void setWriteThreads(int writeThreads) {
+        this.writeThreads = writeThreads;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    /**
+     * Capacidade de cada fila entre estágios; fila cheia bloqueia o estágio anterior.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public int getScanThreads() {
+        return scanThreads;
+    }
+    
+    /**
+     * Threads da varredura do diretório de entrada.
+     */
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+    
+    public List<String> getIncludes() {
+        return includes;
+    }
+    
+    /**
+     * Globs dos arquivos .java a processar (vazio: todos). Ver SourceScanner.
+     */
+    public void setIncludes(List<String> includes) {
+        this.includes = new ArrayList<>(includes);
+    }
+    
+    public List<String> getExcludes() {
+        return excludes;
+    }
+    
+    /**
+     * Globs de arquivos e diretórios ignorados; diretórios excluídos nem são listados.
+     */
+    public void setExcludes(List<String> excludes) {
+        this.excludes = new ArrayList<>(excludes);
+    }
+    
+    public Schedule getSchedule() {
+        return schedule;
+    }
+    
+    public void setSchedule(Schedule schedule) {
+        this.schedule = schedule;
+    }
+    
+    public Path getWeightsFile() {
+        return weightsFile;
+    }
+    
+    /**
+     * Define o arquivo de pesos com os tempos da execução anterior (null
+     * desativa: o peso é o tamanho do arquivo). É atualizado ao fim da execução.
+     */
+    public void setWeightsFile(Path weightsFile) {
+        this.weightsFile = weightsFile;
+    }
+    
+    public Duration getFileTimeout() {
+        return fileTimeout;
+    }
+    
+    /**
+     * Define o tempo limite de processamento por arquivo (zero desativa).
+     * O arquivo que estoura o limite é cancelado e vira warning.
+     */
+    public void setFileTimeout(Duration fileTimeout) {
+        this.fileTimeout = fileTimeout.isNegative() ? Duration.ZERO : fileTimeout;
+    }
+    
+    public Duration getSlowFileThreshold() {
+        return slowFileThreshold;
+    }
+    
+    /**
+     * Define após quanto tempo um arquivo ainda em processamento é logado
+     * pelo watchdog (zero desativa o watchdog).
+     */
+    public void setSlowFileThreshold(Duration slowFileThreshold) {
+        this.slowFileThreshold = slowFileThreshold.isNegative() ? Duration.ZERO : slowFileThreshold;
+    }
+}
@@ -2,25 +2,59 @@ package com.tr.refactor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Resultado da execução da refatoração.
  * 
  * Contém estatísticas e informações sobre o processo de refatoração.
+ * Thread-safe: pode ser atualizado por vários workers ao mesmo tempo.
+ * 
+ * Só contadores e as primeiras MAX_RETAINED_WARNINGS mensagens ficam em
+ * memória; a lista completa vai para o relatório JSON Lines (--report).
  */
 public class RefactorResult {
     
-    private int processedFiles = 0;
-    private int transformationsApplied = 0;
-    private List<String> warnings = new ArrayList<>();
-    private boolean success = true;
+    /**
+     * Número máximo de warnings guardados para o resumo no console.
+     */
+    public static final int MAX_RETAINED_WARNINGS = 100;
+    
+    private final AtomicInteger processedFiles = new AtomicInteger();
+    private final AtomicInteger transformationsApplied = new AtomicInteger();
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+    private final AtomicInteger resumedFiles = new AtomicInteger();
+    private final AtomicInteger prefilteredFiles = new AtomicInteger();
+    private final AtomicInteger skippedRules = new AtomicInteger();
+    private final AtomicInteger timedOutFiles = new AtomicInteger();
+    private final AtomicInteger unchangedWrites = new AtomicInteger();
+    private final AtomicInteger reprintedFiles = new AtomicInteger();
+    private final AtomicInteger lexedFiles = new AtomicInteger();
+    private final AtomicInteger warningCount = new AtomicInteger();
+    private final List<String> warnings = new ArrayList<>();
+    private volatile boolean success = true;
+    
+    // Estatísticas do cache de conversões de nomes
+    private volatile long nameCacheHits = 0;
+    private volatile long nameCacheMisses = 0;
+    private volatile long nameCacheEvictions = 0;
+    
+    // Arquivos que o watchdog viu passar do limite de lentidão
+    private volatile int slowFiles = 0;
+    
+    // Métricas de tempo (null quando --metrics está desligado)
+    private volatile RefactorMetrics metrics;
     
     public void incrementProcessedFiles() {
-        this.processedFiles++;
+        this.processedFiles.incrementAndGet();
+    }
+    
+    public void incrementSkippedFiles() {
+        this.skippedFiles.incrementAndGet();
     }
     
     public void incrementTransformations() {
-        this.transformationsApplied++;
+        this.transformationsApplied.incrementAndGet();
     }
     
     /**
@@ -28,28 +62,174 @@ public class RefactorResult {
      * Usado quando o MobilizeWrapperCleaner aplica várias transformações.
      */
     public void addTransformations(int count) {
-        this.transformationsApplied += count;
+        this.transformationsApplied.addAndGet(count);
     }
     
     public void addWarning(String warning) {
-        this.warnings.add(warning);
+        warningCount.incrementAndGet();
+        synchronized (warnings) {
+            if (warnings.size() < MAX_RETAINED_WARNINGS) {
+                this.warnings.add(warning);
+            }
+        }
+    }
+    
+    /**
+     * Consolida o resultado de um arquivo processado.
+     */
+    public void merge(FileOutcome outcome) {
+        if (outcome.isRefactored()) {
+            incrementProcessedFiles();
+        }
+        if (outcome.isSkipped()) {
+            incrementSkippedFiles();
+        }
+        if (outcome.isResumed()) {
+            resumedFiles.incrementAndGet();
+        }
+        if (outcome.isPrefiltered()) {
+            prefilteredFiles.incrementAndGet();
+        }
+        if (outcome.isOutputUnchanged()) {
+            unchangedWrites.incrementAndGet();
+        }
+        if (outcome.isLexed()) {
+            lexedFiles.incrementAndGet();
+        }
+        if (outcome.isReprinted()) {
+            reprintedFiles.incrementAndGet();
+        }
+        if (outcome.isTimedOut()) {
+            timedOutFiles.incrementAndGet();
+        }
+        skippedRules.addAndGet(outcome.getSkippedRules());
+        addTransformations(outcome.getTransformations());
+        outcome.getWarnings().forEach(this::addWarning);
     }
     
     public void setSuccess(boolean success) {
         this.success = success;
     }
     
+    /**
+     * Registra as estatísticas finais do cache de conversões de nomes.
+     */
+    public void setNameCacheStats(ConversionCache cache) {
+        this.nameCacheHits = cache.getHits();
+        this.nameCacheMisses = cache.getMisses();
+        this.nameCacheEvictions = cache.getEvictions();
+    }
+    
+    public void setMetrics(RefactorMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public void setSlowFiles(int slowFiles) {
+        this.slowFiles = slowFiles;
+    }
+    
     // Getters
     public int getProcessedFiles() {
-        return processedFiles;
+        return processedFiles.get();
+    }
+    
+    public int getSkippedFiles() {
+        return skippedFiles.get();
+    }
+    
+    /**
+     * Arquivos pulados por já terem sido concluídos na execução interrompida (--resume).
+     */
+    public int getResumedFiles() {
+        return resumedFiles.get();
+    }
+    
+    /**
+     * Arquivos que o pré-filtro descartou sem fazer o parse.
+     */
+    public int getPrefilteredFiles() {
+        return prefilteredFiles.get();
+    }
+    
+    /**
+     * Soma, por arquivo parseado, das regras desligadas pelo pré-filtro.
+     */
+    public int getSkippedRules() {
+        return skippedRules.get();
     }
     
     public int getTransformationsApplied() {
-        return transformationsApplied;
+        return transformationsApplied.get();
+    }
+    
+    /**
+     * Total de warnings, inclusive os que não foram guardados.
+     */
+    public int getWarningCount() {
+        return warningCount.get();
     }
     
+    /**
+     * Primeiros warnings (no máximo MAX_RETAINED_WARNINGS).
+     */
     public List<String> getWarnings() {
-        return warnings;
+        synchronized (warnings) {
+            return new ArrayList<>(warnings);
+        }
+    }
+    
+    public long getNameCacheHits() {
+        return nameCacheHits;
+    }
+    
+    public long getNameCacheMisses() {
+        return nameCacheMisses;
+    }
+    
+    public long getNameCacheEvictions() {
+        return nameCacheEvictions;
+    }
+    
+    /**
+     * Arquivos refatorados cuja saída já estava gravada e não foi regravada.
+     */
+    public int getUnchangedWrites() {
+        return unchangedWrites.get();
+    }
+    
+    /**
+     * Arquivos tratados só pelos tokens, sem parse (--lexer-renames).
+     */
+    public int getLexedFiles() {
+        return lexedFiles.get();
+    }
+    
+    /**
+     * Arquivos reimpressos porque o patch não se aplicava (--output-mode patch).
+     */
+    public int getReprintedFiles() {
+        return reprintedFiles.get();
+    }
+    
+    /**
+     * Arquivos cancelados por estourar o tempo limite (--file-timeout).
+     */
+    public int getTimedOutFiles() {
+        return timedOutFiles.get();
+    }
+    
+    /**
+     * Arquivos que ficaram em processamento além do limite do watchdog.
+     */
+    public int getSlowFiles() {
+        return slowFiles;
+    }
+    
+    /**
+     * Métricas de tempo da execução, ou null se não foram medidas.
+     */
+    public RefactorMetrics getMetrics() {
+        return metrics;
     }
     
     public boolean isSuccess() {
@@ -60,18 +240,56 @@ public class RefactorResult {
      * Retorna um resumo formatado dos resultados.
      */
     public String getSummary() {
+        List<String> warnings = getWarnings();
+        
         StringBuilder sb = new StringBuilder();
         sb.append("📊 RESUMO DA REFATORAÇÃO:\n");
-        sb.append("  • Arquivos processados: ").append(processedFiles).append("\n");
-        sb.append("  • Transformações aplicadas: ").append(transformationsApplied).append("\n");
-        sb.append("  • Warnings: ").append(warnings.size()).append("\n");
+        sb.append("  • Arquivos processados: ").append(getProcessedFiles()).append("\n");
+        if (getSkippedFiles() > 0) {
+            sb.append("  • Arquivos inalterados (incremental): ").append(getSkippedFiles()).append("\n");
+        }
+        if (getResumedFiles() > 0) {
+            sb.append("  • Arquivos já concluídos (--resume): ").append(getResumedFiles()).append("\n");
+        }
+        if (getPrefilteredFiles() > 0 || getSkippedRules() > 0) {
+            sb.append("  • Pré-filtro: ").append(getPrefilteredFiles()).append(" arquivos sem parse, ")
+              .append(getSkippedRules()).append(" regras desligadas\n");
+        }
+        if (getUnchangedWrites() > 0) {
+            sb.append("  • Gravações evitadas (saída idêntica): ").append(getUnchangedWrites()).append("\n");
+        }
+        if (getLexedFiles() > 0) {
+            sb.append("  • Arquivos sem parse (só renomeações): ").append(getLexedFiles()).append("\n");
+        }
+        if (getReprintedFiles() > 0) {
+            sb.append("  • Reimpressos sem patch: ").append(getReprintedFiles()).append("\n");
+        }
+        sb.append("  • Transformações aplicadas: ").append(getTransformationsApplied()).append("\n");
+        if (nameCacheHits + nameCacheMisses > 0) {
+            sb.append("  • Cache de nomes: ").append(nameCacheHits).append(" hits, ")
+              .append(nameCacheMisses).append(" misses, ")
+              .append(nameCacheEvictions).append(" evictions\n");
+        }
+        if (getTimedOutFiles() > 0 || slowFiles > 0) {
+            sb.append("  • Arquivos lentos: ").append(slowFiles).append(" acima do limite do watchdog, ")
+              .append(getTimedOutFiles()).append(" cancelados por tempo limite\n");
+        }
+        sb.append("  • Warnings: ").append(getWarningCount()).append("\n");
         sb.append("  • Status: ").append(success ? "✅ Sucesso" : "❌ Falha").append("\n");
         
         if (!warnings.isEmpty()) {
             sb.append("\n⚠️  WARNINGS:\n");
             warnings.forEach(warning -> sb.append("  • ").append(warning).append("\n"));
+            if (getWarningCount() > warnings.size()) {
+                sb.append("  • ... e mais ").append(getWarningCount() - warnings.size())
+                  .append(" warnings (lista completa no relatório --report)\n");
+            }
+        }
+        
+        if (metrics != null) {
+            sb.append(metrics.getSummary());
         }
         
         return sb.toString();
     }
-}
\ No newline at end of file
+}
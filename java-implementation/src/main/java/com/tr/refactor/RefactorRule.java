@@ -0,0 +1,37 @@
+package com.tr.refactor;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Regras de transformação aplicadas a cada arquivo.
+ * 
+ * Usado pelo TriggerScanner para desligar, por arquivo, as regras cujos
+ * tokens não aparecem no código-fonte.
+ */
+public enum RefactorRule {
+    // Limpeza de wrappers Mobilize (MobilizeWrapperCleaner)
+    IS_TRUE,
+    MATH_HELPERS,
+    TYPE_WRAPPERS,
+    CREATE_DECIMAL,
+    
+    // Nomenclatura (RefactorEngine)
+    CLASS_NAMES,
+    METHOD_NAMES,
+    FIELD_NAMES;
+    
+    /**
+     * Regras que só renomeiam declarações (dispensam a árvore no modo léxico).
+     */
+    public boolean isRename() {
+        return this == CLASS_NAMES || this == METHOD_NAMES || this == FIELD_NAMES;
+    }
+    
+    /**
+     * Todas as regras ativas.
+     */
+    public static Set<RefactorRule> all() {
+        return EnumSet.allOf(RefactorRule.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.tr.refactor;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+
+/**
+ * Estado mutável de uma thread de processamento.
+ * 
+ * JavaParser, MobilizeWrapperCleaner e o printer guardam estado entre chamadas
+ * e não podem ser compartilhados entre threads, então cada worker tem os seus.
+ * São criados uma vez por thread e reaproveitados em todos os arquivos.
+ * 
+ * Sem preservar comentários, o parser não os associa aos nós (o passo mais
+ * caro com os banners gerados pelo Mobilize) e o printer não os imprime.
+ */
+class RefactorWorker {
+    
+    final JavaParser javaParser;
+    final MobilizeWrapperCleaner wrapperCleaner;
+    final DefaultPrettyPrinter printer;
+    final PhaseTimer phaseTimer;
+    final FileDeadline deadline;
+    final OutputEncoder encoder;
+    final SourcePatch patch;
+    final DeclarationLexer declarationLexer;
+    
+    RefactorWorker() {
+        this(true);
+    }
+    
+    RefactorWorker(boolean preserveComments) {
+        this.javaParser = new JavaParser(new ParserConfiguration().setAttributeComments(preserveComments));
+        this.wrapperCleaner = new MobilizeWrapperCleaner();
+        this.phaseTimer = new PhaseTimer();
+        this.deadline = new FileDeadline();
+        this.encoder = new OutputEncoder();
+        this.patch = new SourcePatch();
+        this.declarationLexer = new DeclarationLexer();
+        this.printer = new DefaultPrettyPrinter(
+            configuration -> new DeadlinePrinterVisitor(configuration, deadline),
+            createPrinterConfiguration(preserveComments));
+    }
+    
+    private static DefaultPrinterConfiguration createPrinterConfiguration(boolean preserveComments) {
+        DefaultPrinterConfiguration config = new DefaultPrinterConfiguration();
+        config.addOption(new DefaultConfigurationOption(ConfigOption.ORDER_IMPORTS, true));
+        if (!preserveComments) {
+            config.removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_COMMENTS));
+            config.removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_JAVADOC));
+        }
+        return config;
+    }
+}
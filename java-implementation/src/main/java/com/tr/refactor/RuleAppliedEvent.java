@@ -0,0 +1,50 @@
+package com.tr.refactor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR com quantas vezes uma regra (TransformationEvent.Kind) foi
+ * aplicada num arquivo. Um evento por regra e por arquivo, não por transformação.
+ */
+@Name("com.tr.refactor.RuleApplied")
+@Label("Regra aplicada")
+@Category("Payroll Refactor")
+@Description("Número de transformações de uma regra num arquivo")
+@StackTrace(false)
+final class RuleAppliedEvent extends jdk.jfr.Event {
+    
+    @Label("Arquivo")
+    String path;
+    
+    @Label("Regra")
+    String rule;
+    
+    @Label("Quantidade")
+    int count;
+    
+    /**
+     * Emite um evento para cada regra com contagem positiva.
+     * 
+     * @param path Caminho relativo do arquivo
+     * @param counts Contagens indexadas por TransformationEvent.Kind.ordinal()
+     */
+    static void emit(String path, int[] counts) {
+        TransformationEvent.Kind[] kinds = TransformationEvent.Kind.values();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                RuleAppliedEvent event = new RuleAppliedEvent();
+                if (!event.shouldCommit()) {
+                    return;
+                }
+                event.path = path;
+                event.rule = kinds[i].name();
+                event.count = counts[i];
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.tr.refactor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codificação de um arquivo fonte: o charset e se o arquivo começa com BOM.
+ * 
+ * A saída refatorada é gravada na mesma codificação da entrada (com o BOM,
+ * se havia), então um export Mobilize em ISO-8859-1 continua em ISO-8859-1.
+ * 
+ * A detecção olha só os bytes, sem decodificá-los:
+ * 1. BOM de UTF-8, UTF-16BE ou UTF-16LE;
+ * 2. UTF-8 se todos os bytes formam sequências UTF-8 válidas (ASCII puro incluso);
+ * 3. senão o charset configurado (--fallback-encoding, padrão ISO-8859-1).
+ */
+public final class SourceEncoding {
+    
+    public static final SourceEncoding UTF_8 = new SourceEncoding(StandardCharsets.UTF_8, false);
+    public static final SourceEncoding ISO_8859_1 = new SourceEncoding(StandardCharsets.ISO_8859_1, false);
+    
+    private static final SourceEncoding UTF_8_BOM = new SourceEncoding(StandardCharsets.UTF_8, true);
+    private static final SourceEncoding UTF_16BE_BOM = new SourceEncoding(StandardCharsets.UTF_16BE, true);
+    private static final SourceEncoding UTF_16LE_BOM = new SourceEncoding(StandardCharsets.UTF_16LE, true);
+    private static final String ASCII_PROBE = "class Az_$09 {}();\\u/*\t\n";
+    
+    private final Charset charset;
+    private final boolean bom;
+    private final boolean asciiCompatible;
+    private final boolean singleByte;
+    
+    public SourceEncoding(Charset charset, boolean bom) {
+        this.charset = charset;
+        this.bom = bom;
+        this.asciiCompatible = charset.canEncode()
+            && Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+        this.singleByte = charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+    
+    /**
+     * Detecta a codificação do conteúdo, de position até limit (não altera o buffer).
+     * 
+     * @param fallback Codificação usada quando o conteúdo não é UTF-8 válido
+     */
+    public static SourceEncoding detect(ByteBuffer content, SourceEncoding fallback) {
+        int start = content.position();
+        int limit = content.limit();
+        int length = limit - start;
+        
+        if (length >= 3 && (content.get(start) & 0xFF) == 0xEF && (content.get(start + 1) & 0xFF) == 0xBB
+                && (content.get(start + 2) & 0xFF) == 0xBF) {
+            return UTF_8_BOM;
+        }
+        if (length >= 2) {
+            int first = content.get(start) & 0xFF;
+            int second = content.get(start + 1) & 0xFF;
+            if (first == 0xFE && second == 0xFF) {
+                return UTF_16BE_BOM;
+            }
+            if (first == 0xFF && second == 0xFE) {
+                return UTF_16LE_BOM;
+            }
+        }
+        
+        return isValidUtf8(content, start, limit) ? UTF_8 : fallback;
+    }
+    
+    /**
+     * Valida as sequências UTF-8 (tamanho, continuações, formas não mínimas,
+     * surrogates e o limite U+10FFFF), com um laço rápido para ASCII.
+     */
+    static boolean isValidUtf8(ByteBuffer content, int start, int limit) {
+        int i = start;
+        while (i < limit) {
+            int b = content.get(i);
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+            
+            b &= 0xFF;
+            int continuations;
+            int min;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuations = 1;
+                min = 0x80;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuations = 2;
+                min = 0x800;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuations = 3;
+                min = 0x10000;
+            } else {
+                return false;
+            }
+            if (i + continuations >= limit) {
+                return false;
+            }
+            
+            int codePoint = b & (0x3F >> continuations);
+            for (int k = 1; k <= continuations; k++) {
+                int next = content.get(i + k) & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    return false;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (codePoint < min || codePoint > 0x10FFFF || (codePoint >= 0xD800 && codePoint <= 0xDFFF)) {
+                return false;
+            }
+            i += continuations + 1;
+        }
+        return true;
+    }
+    
+    /**
+     * Decoder que falha em bytes inválidos em vez de substituí-los.
+     */
+    public CharsetDecoder newDecoder() {
+        return charset.newDecoder();
+    }
+    
+    /**
+     * Bytes do BOM no início do arquivo (0 se não há BOM).
+     */
+    public int getBomLength() {
+        if (!bom) {
+            return 0;
+        }
+        return StandardCharsets.UTF_8.equals(charset) ? 3 : 2;
+    }
+    
+    /**
+     * Indica se os bytes ASCII aparecem como estão no arquivo (pré-filtro
+     * por bytes é confiável). Falso para UTF-16 e EBCDIC.
+     */
+    public boolean isAsciiCompatible() {
+        return asciiCompatible;
+    }
+    
+    /**
+     * Indica se cada caractere ocupa exatamente um byte (ex.: ISO-8859-1).
+     */
+    public boolean isSingleByte() {
+        return singleByte;
+    }
+    
+    public Charset getCharset() {
+        return charset;
+    }
+    
+    public boolean hasBom() {
+        return bom;
+    }
+    
+    @Override
+    public String toString() {
+        return bom ? charset.name() + " (BOM)" : charset.name();
+    }
+}
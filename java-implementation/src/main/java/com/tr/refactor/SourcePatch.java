@@ -0,0 +1,312 @@
+package com.tr.refactor;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Saída por patch de texto (--output-mode patch).
+ * 
+ * Em vez de reimprimir o arquivo inteiro com o DefaultPrettyPrinter, as regras
+ * registram cada edição com a posição original do nó, e a saída é o original
+ * com os trechos editados substituídos. Os trechos intactos são copiados byte
+ * a byte do buffer original, sem decodificar nem reformatar: o diff mostra só
+ * as linhas editadas, e o custo da saída cresce com o número de edições, não
+ * com o tamanho do arquivo.
+ * 
+ * As posições do JavaParser (linha e coluna em unidades UTF-16) são
+ * convertidas em offsets de bytes por um índice de linhas montado sob
+ * demanda, só até a última linha editada.
+ * 
+ * O patch não se aplica (e o arquivo é reimpresso) quando:
+ * - a codificação não é UTF-8 nem de um byte por caractere (ex.: UTF-16);
+ * - uma linha editada tem escapes Unicode (\\uXXXX), que deslocam as colunas;
+ * - um nó editado não tem posição (criado por outra regra);
+ * - duas edições se sobrepõem sem uma conter a outra.
+ * 
+ * Uma instância por RefactorWorker, reaproveitada entre arquivos.
+ */
+public class SourcePatch {
+    
+    private static final Comparator<Edit> EDIT_ORDER = Comparator.comparingInt((Edit edit) -> edit.start)
+        .thenComparing(Comparator.comparingInt((Edit edit) -> edit.end).reversed())
+        .thenComparing(Comparator.comparingInt((Edit edit) -> edit.sequence).reversed());
+    
+    private final List<Edit> edits = new ArrayList<>();
+    private int[] lineStarts = new int[256];
+    private ByteBuffer source;
+    private SourceEncoding encoding;
+    private boolean utf8;
+    private int lines;
+    private int scanned;
+    private String failure;
+    
+    /**
+     * Prepara o patch de um arquivo.
+     * 
+     * @param source Bytes do arquivo, de position até limit (com o BOM, se houver)
+     * @return false se a codificação não permite o patch; o arquivo deve ser reimpresso
+     */
+    public boolean begin(ByteBuffer source, SourceEncoding encoding) {
+        clear();
+        boolean utf8Encoding = StandardCharsets.UTF_8.equals(encoding.getCharset());
+        if (!encoding.isAsciiCompatible() || (!utf8Encoding && !encoding.isSingleByte())) {
+            return false;
+        }
+        
+        this.source = source;
+        this.encoding = encoding;
+        this.utf8 = utf8Encoding;
+        lineStarts[0] = source.position() + encoding.getBomLength();
+        lines = 1;
+        scanned = lineStarts[0];
+        return true;
+    }
+    
+    /**
+     * Descarta o arquivo atual; o patch fica inativo até o próximo begin().
+     */
+    public void clear() {
+        edits.clear();
+        source = null;
+        encoding = null;
+        failure = null;
+    }
+    
+    public boolean isActive() {
+        return source != null;
+    }
+    
+    /**
+     * Substitui o texto original do nó.
+     */
+    public void replace(Node node, String text) {
+        replace(rangeOf(node), text);
+    }
+    
+    /**
+     * Substitui o texto original no intervalo (ex.: o token de um nome, no
+     * modo léxico). Com range null o patch não se aplica ao arquivo.
+     */
+    public void replace(Range range, String text) {
+        if (range == null) {
+            if (failure == null) {
+                failure = "trecho sem posição no original";
+            }
+            return;
+        }
+        add(offset(range.begin, false), offset(range.end, true), text);
+    }
+    
+    /**
+     * Substitui o nó por um dos seus descendentes, opcionalmente precedido de
+     * um prefixo: isTrue(x) → x, not(x) → !x. Só o texto em volta do
+     * descendente é editado, então as edições dentro dele continuam valendo.
+     */
+    public void unwrap(Node wrapper, Node kept, String prefix) {
+        Range outer = rangeOf(wrapper);
+        Range inner = rangeOf(kept);
+        if (outer != null && inner != null) {
+            add(offset(outer.begin, false), offset(inner.begin, false), prefix);
+            add(offset(inner.end, true), offset(outer.end, true), "");
+        }
+    }
+    
+    private Range rangeOf(Node node) {
+        Range range = node.getRange().orElse(null);
+        if (range == null && failure == null) {
+            failure = "nó sem posição no original: " + node.getClass().getSimpleName();
+        }
+        return range;
+    }
+    
+    private void add(int start, int end, String text) {
+        if (start >= 0 && end >= start) {
+            edits.add(new Edit(start, end, text, edits.size()));
+        }
+    }
+    
+    /**
+     * Offset em bytes do início (ou do fim, inclusive) da posição; -1 se a
+     * linha não pode ser mapeada.
+     */
+    private int offset(Position position, boolean after) {
+        if (failure != null) {
+            return -1;
+        }
+        int lineStart = lineStart(position.line);
+        if (lineStart < 0) {
+            failure = "linha " + position.line + " fora do arquivo";
+            return -1;
+        }
+        
+        int limit = source.limit();
+        int units = after ? position.column : position.column - 1;
+        int i = lineStart;
+        for (int consumed = 0; consumed < units; ) {
+            if (i >= limit) {
+                failure = "coluna " + position.column + " fora da linha " + position.line;
+                return -1;
+            }
+            int b = source.get(i);
+            if (b == '\\' && i + 1 < limit && source.get(i + 1) == 'u') {
+                failure = "escape Unicode na linha " + position.line;
+                return -1;
+            }
+            if (!utf8 || b >= 0) {
+                i++;
+                consumed++;
+            } else if ((b & 0xE0) == 0xC0) {
+                i += 2;
+                consumed++;
+            } else if ((b & 0xF0) == 0xE0) {
+                i += 3;
+                consumed++;
+            } else {
+                // Fora do BMP: um par de surrogates, duas colunas
+                i += 4;
+                consumed += 2;
+            }
+        }
+        return Math.min(i, limit);
+    }
+    
+    /**
+     * Início da linha (1-based), estendendo o índice só até ela.
+     */
+    private int lineStart(int line) {
+        int limit = source.limit();
+        while (lines < line && scanned < limit) {
+            byte b = source.get(scanned++);
+            if (b == '\r' && scanned < limit && source.get(scanned) == '\n') {
+                scanned++;
+            } else if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (lines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+            }
+            lineStarts[lines++] = scanned;
+        }
+        return line <= lines ? lineStarts[line - 1] : -1;
+    }
+    
+    /**
+     * Monta a saída do arquivo: o original com as edições aplicadas. Edições
+     * contidas em outra (nó removido junto com o pai) são descartadas.
+     * 
+     * @return null se o patch não se aplica ao arquivo (ver getFailure)
+     */
+    public OutputContent build() {
+        if (failure != null) {
+            return null;
+        }
+        
+        Edit[] sorted = edits.toArray(new Edit[0]);
+        Arrays.sort(sorted, EDIT_ORDER);
+        List<Edit> applied = new ArrayList<>(sorted.length);
+        int lastEnd = -1;
+        for (Edit edit : sorted) {
+            if (edit.start >= lastEnd) {
+                applied.add(edit);
+                lastEnd = Math.max(lastEnd, edit.end);
+            } else if (edit.end > lastEnd) {
+                failure = "edições sobrepostas";
+                return null;
+            }
+        }
+        // As substituições entram no meio do arquivo: sem BOM (só UTF-8 tem BOM aqui)
+        SourceEncoding replacementEncoding = encoding.hasBom() ? SourceEncoding.UTF_8 : encoding;
+        return new PatchedContent(source.duplicate(), applied.toArray(new Edit[0]), replacementEncoding);
+    }
+    
+    /**
+     * Motivo de o patch não se aplicar ao arquivo atual, ou null.
+     */
+    public String getFailure() {
+        return failure;
+    }
+    
+    /**
+     * Edições registradas no arquivo atual.
+     */
+    public int getEdits() {
+        return edits.size();
+    }
+    
+    private static final class Edit {
+        final int start;
+        final int end;
+        final String text;
+        final int sequence;
+        
+        Edit(int start, int end, String text, int sequence) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+            this.sequence = sequence;
+        }
+    }
+    
+    /**
+     * O original intercalado com as substituições. Guarda só referências: o
+     * buffer original e os textos de cada edição.
+     */
+    private static final class PatchedContent implements OutputContent {
+        
+        private final ByteBuffer source;
+        private final Edit[] edits;
+        private final SourceEncoding replacementEncoding;
+        
+        PatchedContent(ByteBuffer source, Edit[] edits, SourceEncoding replacementEncoding) {
+            this.source = source;
+            this.edits = edits;
+            this.replacementEncoding = replacementEncoding;
+        }
+        
+        @Override
+        public long length() {
+            long length = source.remaining();
+            for (Edit edit : edits) {
+                long replacement = OutputEncoder.encodedLength(edit.text, replacementEncoding);
+                if (replacement < 0) {
+                    return -1;
+                }
+                length += replacement - (edit.end - edit.start);
+            }
+            return length;
+        }
+        
+        @Override
+        public boolean writeTo(OutputEncoder encoder, OutputEncoder.ChunkSink sink) throws IOException {
+            int position = source.position();
+            for (Edit edit : edits) {
+                if (!copy(position, edit.start, sink)) {
+                    return false;
+                }
+                if (!edit.text.isEmpty() && !encoder.encode(edit.text, replacementEncoding, sink)) {
+                    return false;
+                }
+                position = edit.end;
+            }
+            return copy(position, source.limit(), sink);
+        }
+        
+        private boolean copy(int from, int to, OutputEncoder.ChunkSink sink) throws IOException {
+            if (from >= to) {
+                return true;
+            }
+            ByteBuffer slice = source.duplicate();
+            slice.limit(to).position(from);
+            return sink.accept(slice);
+        }
+    }
+}
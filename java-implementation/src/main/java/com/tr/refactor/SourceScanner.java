@@ -0,0 +1,176 @@
+package com.tr.refactor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Descoberta paralela dos arquivos .java de uma árvore de diretórios.
+ * 
+ * Cada diretório é uma tarefa fork-join, então subárvores largas são listadas
+ * por várias threads ao mesmo tempo (útil em discos de rede, onde cada
+ * listagem custa uma ida e volta). Os arquivos são entregues ao consumidor,
+ * com o tamanho lido na própria varredura, assim que encontrados.
+ * 
+ * Globs de exclusão podam a árvore: um diretório excluído nunca é listado.
+ * Um glob sem '/' compara com o nome do arquivo ou diretório em qualquer
+ * nível (ex.: "build", ".git", "*-generated"); com '/' compara com o caminho
+ * relativo à raiz (ex.: "src/test/generated/**").
+ */
+public class SourceScanner {
+    
+    private final Path root;
+    private final List<PathMatcher> nameIncludes = new ArrayList<>();
+    private final List<PathMatcher> pathIncludes = new ArrayList<>();
+    private final List<PathMatcher> nameExcludes = new ArrayList<>();
+    private final List<PathMatcher> pathExcludes = new ArrayList<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    public SourceScanner(Path root) {
+        this.root = root;
+    }
+    
+    /**
+     * Só arquivos .java que casam com algum destes globs são entregues
+     * (lista vazia: todos os .java).
+     */
+    public void setIncludes(List<String> globs) {
+        compile(globs, nameIncludes, pathIncludes);
+    }
+    
+    /**
+     * Arquivos e diretórios que casam com algum destes globs são ignorados.
+     */
+    public void setExcludes(List<String> globs) {
+        compile(globs, nameExcludes, pathExcludes);
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
+    private void compile(List<String> globs, List<PathMatcher> byName, List<PathMatcher> byPath) {
+        byName.clear();
+        byPath.clear();
+        FileSystem fileSystem = root.getFileSystem();
+        for (String glob : globs) {
+            String normalized = glob.endsWith("/") ? glob.substring(0, glob.length() - 1) : glob;
+            PathMatcher matcher = fileSystem.getPathMatcher("glob:" + normalized);
+            (normalized.contains("/") ? byPath : byName).add(matcher);
+        }
+    }
+    
+    /**
+     * Varre a árvore e entrega cada arquivo encontrado, com o seu tamanho em
+     * bytes, ao consumidor, que pode ser chamado por várias threads ao mesmo tempo.
+     * 
+     * @throws IOException Se algum diretório não puder ser listado
+     */
+    public void scan(ObjLongConsumer<Path> sink) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(root, sink));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Varre a árvore inteira e retorna os arquivos em ordem de caminho.
+     */
+    public List<Path> scan() throws IOException {
+        ConcurrentLinkedQueue<Path> found = new ConcurrentLinkedQueue<>();
+        scan((file, size) -> found.add(file));
+        List<Path> files = new ArrayList<>(found);
+        Collections.sort(files);
+        return files;
+    }
+    
+    private boolean isExcluded(Path path) {
+        return matches(path, nameExcludes, pathExcludes);
+    }
+    
+    private boolean isIncluded(Path file) {
+        if (!file.getFileName().toString().endsWith(".java")) {
+            return false;
+        }
+        if (nameIncludes.isEmpty() && pathIncludes.isEmpty()) {
+            return true;
+        }
+        return matches(file, nameIncludes, pathIncludes);
+    }
+    
+    private boolean matches(Path path, List<PathMatcher> byName, List<PathMatcher> byPath) {
+        if (!byName.isEmpty()) {
+            Path name = path.getFileName();
+            for (PathMatcher matcher : byName) {
+                if (matcher.matches(name)) {
+                    return true;
+                }
+            }
+        }
+        if (!byPath.isEmpty()) {
+            Path relative = root.relativize(path);
+            for (PathMatcher matcher : byPath) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Lista um diretório: entrega os arquivos e cria uma subtarefa por subdiretório.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final Path dir;
+        private final ObjLongConsumer<Path> sink;
+        
+        DirectoryTask(Path dir, ObjLongConsumer<Path> sink) {
+            this.dir = dir;
+            this.sink = sink;
+        }
+        
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (isExcluded(entry)) {
+                        continue;
+                    }
+                    // Como Files.walk: links simbólicos não são seguidos
+                    BasicFileAttributes attributes =
+                        Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        subtasks.add(new DirectoryTask(entry, sink));
+                    } else if (isIncluded(entry)) {
+                        sink.accept(entry, attributes.size());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tr.refactor;
+
+import com.github.javaparser.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registro de uma transformação: limpeza de wrapper (MobilizeWrapperCleaner)
+ * ou renomeação (RefactorEngine).
+ * 
+ * Guarda só a regra, a posição do nó no arquivo original e os identificadores
+ * envolvidos; a mensagem é montada apenas quando o logger de transformações
+ * está em DEBUG (--verbose), sem imprimir subárvores da AST.
+ */
+public final class TransformationEvent {
+    
+    /**
+     * Logger das transformações; em INFO (padrão) nenhum evento é criado.
+     */
+    public static final String LOGGER_NAME = "com.tr.refactor.transformations";
+    
+    static final Logger LOG = LoggerFactory.getLogger(LOGGER_NAME);
+    
+    /**
+     * Regra que gerou a transformação.
+     */
+    public enum Kind {
+        IS_TRUE, MATH_HELPER, TYPE_WRAPPER, CREATE_DECIMAL, NOT,
+        CLASS_NAME, METHOD_NAME, PARAMETER_NAME, FIELD_NAME;
+        
+        /**
+         * Renomeações já aparecem no log verbose do engine; só vão para o relatório.
+         */
+        public boolean isRename() {
+            return ordinal() >= CLASS_NAME.ordinal();
+        }
+    }
+    
+    private final Kind kind;
+    private final Range range;
+    private final String identifier;
+    private final String replacement;
+    
+    /**
+     * @param kind Regra aplicada
+     * @param range Posição do nó no código original (null se desconhecida)
+     * @param identifier Identificador removido ou substituído
+     * @param replacement Identificador que o substituiu (null se apenas removido)
+     */
+    public TransformationEvent(Kind kind, Range range, String identifier, String replacement) {
+        this.kind = kind;
+        this.range = range;
+        this.identifier = identifier;
+        this.replacement = replacement;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public Range getRange() {
+        return range;
+    }
+    
+    public String getIdentifier() {
+        return identifier;
+    }
+    
+    public String getReplacement() {
+        return replacement;
+    }
+    
+    @Override
+    public String toString() {
+        String message = switch (kind) {
+            case IS_TRUE -> "  🔥 Removido isTrue()";
+            case MATH_HELPER -> "  🧮 Math helper: setScale(" + identifier + ") → " + replacement + "()";
+            case TYPE_WRAPPER -> "  📦 Tipo simplificado: " + identifier + " → " + replacement;
+            case CREATE_DECIMAL -> replacement == null
+                ? "  💰 createDecimal removido"
+                : "  💰 createDecimal removido → " + replacement;
+            case NOT -> "  ❗ Removido not() → !";
+            case CLASS_NAME -> "    📝 Classe: " + identifier + " → " + replacement;
+            case METHOD_NAME -> "    🔧 Método: " + identifier + " → " + replacement;
+            case PARAMETER_NAME -> "    📋 Parâmetro: " + identifier + " → " + replacement;
+            case FIELD_NAME -> "    🏷️  Campo: " + identifier + " → " + replacement;
+        };
+        if (range == null) {
+            return message;
+        }
+        return message + " [" + range.begin.line + ":" + range.begin.column
+            + "-" + range.end.line + ":" + range.end.column + "]";
+    }
+}
@@ -0,0 +1,194 @@
+package com.tr.refactor;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Pré-filtro que procura, direto nos bytes do arquivo, os tokens que as
+ * regras de transformação precisam para disparar.
+ * 
+ * Arquivos sem nenhum token não precisam ser parseados; regras sem token são
+ * desligadas para o arquivo. O filtro é conservador: comentários e strings
+ * também contam, e só são considerados inícios de identificador (o byte
+ * anterior não é letra, dígito, '_', '$' nem byte não-ASCII):
+ * - isTrue, setScale, createDecimal, WebMapAtomicReference (palavra inteira)
+ * - of_ (métodos) e gi, gl, gs, gdc, ao_, as_, adc_, ab_, al_, ai_ (campos e parâmetros)
+ * - class/interface seguido de nome minúsculo, In_ ou Iuo_ (classes)
+ * 
+ * Arquivos com escapes Unicode (\\uXXXX) podem esconder qualquer token, então
+ * todas as regras ficam ativas.
+ */
+public final class TriggerScanner {
+    
+    private static final byte[] IS_TRUE = ascii("isTrue");
+    private static final byte[] SET_SCALE = ascii("setScale");
+    private static final byte[] CREATE_DECIMAL = ascii("createDecimal");
+    private static final byte[] WEB_MAP_ATOMIC_REFERENCE = ascii("WebMapAtomicReference");
+    private static final byte[] CLASS = ascii("class");
+    private static final byte[] INTERFACE = ascii("interface");
+    
+    private TriggerScanner() {
+    }
+    
+    /**
+     * Retorna as regras que podem disparar no conteúdo informado.
+     * 
+     * @param source Bytes do arquivo (UTF-8 ou outra codificação compatível com ASCII)
+     * @return Regras com pelo menos um token; vazio se o arquivo pode ser pulado
+     */
+    public static Set<RefactorRule> scan(byte[] source) {
+        return scan(ByteBuffer.wrap(source));
+    }
+    
+    /**
+     * Igual a scan(byte[]), de position até limit, sem copiar o conteúdo
+     * (ex.: arquivo mapeado em memória). Não altera o buffer.
+     */
+    public static Set<RefactorRule> scan(ByteBuffer source) {
+        EnumSet<RefactorRule> rules = EnumSet.noneOf(RefactorRule.class);
+        int length = source.limit();
+        int i = source.position();
+        
+        while (i < length) {
+            byte b = source.get(i);
+            
+            if (b == '\\' && i + 1 < length && source.get(i + 1) == 'u') {
+                return RefactorRule.all();
+            }
+            
+            if (!isIdentifierPart(b)) {
+                i++;
+                continue;
+            }
+            
+            // Início de identificador: examina e pula até o fim dele
+            int end = i + 1;
+            while (end < length && isIdentifierPart(source.get(end))) {
+                end++;
+            }
+            matchIdentifier(source, i, end, rules);
+            i = end;
+        }
+        
+        return rules;
+    }
+    
+    private static void matchIdentifier(ByteBuffer source, int start, int end, Set<RefactorRule> rules) {
+        int length = end - start;
+        byte c1 = length > 1 ? source.get(start + 1) : 0;
+        byte c2 = length > 2 ? source.get(start + 2) : 0;
+        byte c3 = length > 3 ? source.get(start + 3) : 0;
+        
+        switch (source.get(start)) {
+            case 'i':
+                if (equals(source, start, end, IS_TRUE)) {
+                    rules.add(RefactorRule.IS_TRUE);
+                } else if (equals(source, start, end, INTERFACE) && declaresPowerBuilderClass(source, end)) {
+                    rules.add(RefactorRule.CLASS_NAMES);
+                }
+                break;
+            case 's':
+                if (equals(source, start, end, SET_SCALE)) {
+                    rules.add(RefactorRule.MATH_HELPERS);
+                }
+                break;
+            case 'c':
+                if (equals(source, start, end, CREATE_DECIMAL)) {
+                    rules.add(RefactorRule.CREATE_DECIMAL);
+                } else if (equals(source, start, end, CLASS) && declaresPowerBuilderClass(source, end)) {
+                    rules.add(RefactorRule.CLASS_NAMES);
+                }
+                break;
+            case 'W':
+                if (equals(source, start, end, WEB_MAP_ATOMIC_REFERENCE)) {
+                    rules.add(RefactorRule.TYPE_WRAPPERS);
+                }
+                break;
+            case 'o':
+                if (c1 == 'f' && c2 == '_') {
+                    rules.add(RefactorRule.METHOD_NAMES);
+                }
+                break;
+            case 'g':
+                if (c1 == 'i' || c1 == 'l' || c1 == 's' || (c1 == 'd' && c2 == 'c')) {
+                    addVariableRules(rules);
+                }
+                break;
+            case 'a':
+                if ((c2 == '_' && (c1 == 'o' || c1 == 's' || c1 == 'b' || c1 == 'l' || c1 == 'i'))
+                        || (c1 == 'd' && c2 == 'c' && c3 == '_')) {
+                    addVariableRules(rules);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Campos e parâmetros: a regra de métodos também renomeia parâmetros.
+     */
+    private static void addVariableRules(Set<RefactorRule> rules) {
+        rules.add(RefactorRule.FIELD_NAMES);
+        rules.add(RefactorRule.METHOD_NAMES);
+    }
+    
+    /**
+     * Verifica o nome após class/interface: minúsculo ([a-z]...), In_ ou Iuo_.
+     * Comentário entre a palavra-chave e o nome conta como possível declaração.
+     */
+    private static boolean declaresPowerBuilderClass(ByteBuffer source, int from) {
+        int i = from;
+        while (i < source.limit() && isWhitespace(source.get(i))) {
+            i++;
+        }
+        if (i >= source.limit()) {
+            return false;
+        }
+        
+        byte first = source.get(i);
+        if (first == '/') {
+            return true;
+        }
+        if (first >= 'a' && first <= 'z') {
+            return true;
+        }
+        return first == 'I' && i + 3 < source.limit()
+            && ((source.get(i + 1) == 'n' && source.get(i + 2) == '_')
+                || (source.get(i + 1) == 'u' && source.get(i + 2) == 'o' && source.get(i + 3) == '_'));
+    }
+    
+    private static boolean equals(ByteBuffer source, int start, int end, byte[] token) {
+        if (end - start != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (source.get(start + i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Letras, dígitos, '_', '$' e qualquer byte não-ASCII (parte de um
+     * identificador Unicode em UTF-8).
+     */
+    private static boolean isIdentifierPart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+            || b == '_' || b == '$' || b < 0;
+    }
+    
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+    
+    private static byte[] ascii(String token) {
+        byte[] bytes = new byte[token.length()];
+        for (int i = 0; i < token.length(); i++) {
+            bytes[i] = (byte) token.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+package com.tr.refactor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pesos de agendamento (--weights): tempo de processamento de cada arquivo
+ * na execução anterior, usado para começar pelos arquivos mais demorados.
+ * 
+ * Arquivos sem histórico recebem um peso estimado pelo tamanho, na mesma
+ * unidade (nanossegundos), usando a média de nanossegundos por byte do
+ * manifesto; sem histórico nenhum, o peso é o próprio tamanho.
+ * 
+ * Formato (TSV, uma linha por arquivo, ordenado por caminho):
+ * caminho-relativo  bytes  nanossegundos
+ */
+public class WeightsManifest {
+    
+    private static final String HEADER = "# payroll-refactor weights v1";
+    
+    private final Path weightsFile;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new TreeMap<>();
+    private final double nanosPerByte;
+    
+    private WeightsManifest(Path weightsFile, Map<String, Entry> previous) {
+        this.weightsFile = weightsFile;
+        this.previous = previous;
+        
+        long bytes = 0;
+        long nanos = 0;
+        for (Entry entry : previous.values()) {
+            bytes += entry.bytes;
+            nanos += entry.nanos;
+        }
+        this.nanosPerByte = bytes > 0 ? (double) nanos / bytes : 1.0;
+    }
+    
+    /**
+     * Caminho padrão dos pesos: ao lado do diretório de saída.
+     */
+    public static Path defaultLocation(Path outputDir) {
+        Path manifest = RefactorManifest.defaultLocation(outputDir);
+        String name = manifest.getFileName().toString().replace(".refactor-manifest", ".refactor-weights");
+        return manifest.resolveSibling(name);
+    }
+    
+    /**
+     * Carrega os pesos existentes; arquivo ausente resulta em pesos vazios.
+     */
+    public static WeightsManifest load(Path weightsFile) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        
+        if (Files.exists(weightsFile)) {
+            List<String> lines = Files.readAllLines(weightsFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length == 3) {
+                    try {
+                        entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                    } catch (NumberFormatException e) {
+                        // Linha corrompida: o arquivo volta a ser estimado pelo tamanho
+                    }
+                }
+            }
+        }
+        
+        return new WeightsManifest(weightsFile, Collections.unmodifiableMap(entries));
+    }
+    
+    /**
+     * Peso de um arquivo. Thread-safe: só lê os pesos carregados.
+     * 
+     * @param relativePath Caminho relativo ao diretório de entrada
+     * @param size Tamanho atual do arquivo em bytes
+     * @return Tempo da execução anterior, ou estimativa pelo tamanho
+     */
+    public long weightOf(String relativePath, long size) {
+        Entry entry = previous.get(relativePath);
+        if (entry != null && entry.bytes == size) {
+            return entry.nanos;
+        }
+        return (long) (size * nanosPerByte);
+    }
+    
+    /**
+     * Registra o tempo medido nesta execução.
+     */
+    public void record(String relativePath, long bytes, long nanos) {
+        current.put(relativePath, new Entry(bytes, nanos));
+    }
+    
+    /**
+     * Mantém o peso anterior de um arquivo que não foi medido (ex.: pulado
+     * pelo modo incremental).
+     */
+    public void keep(String relativePath) {
+        Entry entry = previous.get(relativePath);
+        if (entry != null) {
+            current.put(relativePath, entry);
+        }
+    }
+    
+    /**
+     * Grava os pesos de forma atômica (arquivo temporário + rename).
+     */
+    public void save() throws IOException {
+        Path tempFile = weightsFile.resolveSibling(weightsFile.getFileName() + ".tmp");
+        
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> e : current.entrySet()) {
+                writer.write(e.getKey() + "\t" + e.getValue().bytes + "\t" + e.getValue().nanos);
+                writer.newLine();
+            }
+        }
+        
+        Files.move(tempFile, weightsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public Path getWeightsFile() {
+        return weightsFile;
+    }
+    
+    private static final class Entry {
+        final long bytes;
+        final long nanos;
+        
+        Entry(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+    }
+}
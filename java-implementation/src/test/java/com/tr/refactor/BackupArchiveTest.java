@@ -0,0 +1,67 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para o BackupArchive (--backup-mode archive).
+ */
+class BackupArchiveTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void shouldMakeDeliveredOriginalsDurableBeforeClose() throws IOException {
+        Path zipFile = tempDir.resolve("backup.zip");
+        BackupArchive archive = new BackupArchive(zipFile, 1);
+        try {
+            long first = archive.add("pkg/A.java", utf8("class A {}"));
+            archive.awaitDurable(first);
+            assertThat(readLocalEntries(zipFile)).containsEntry("pkg/A.java", "class A {}");
+            
+            archive.add("pkg/B.java", ByteBuffer.allocateDirect(16).put(utf8("class B {}")).flip());
+            archive.add("pkg/C.java", utf8("class C {}"));
+            archive.flush();
+            // Sem o diretório central: as entradas são lidas pelos cabeçalhos locais
+            assertThat(readLocalEntries(zipFile)).containsOnlyKeys("pkg/A.java", "pkg/B.java", "pkg/C.java");
+        } finally {
+            archive.close();
+        }
+        
+        assertThat(archive.getEntries()).isEqualTo(3);
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            assertThat(zip.size()).isEqualTo(3);
+        }
+        // Depois de fechado não há o que esperar
+        archive.flush();
+    }
+    
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Map<String, String> readLocalEntries(Path zipFile) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (InputStream in = Files.newInputStream(zipFile); ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para o ConversionCache e seu uso pelo NameConverter.
+ */
+class ConversionCacheTest {
+    
+    @Test
+    void shouldCountHitsAndMissesPerKind() {
+        ConversionCache cache = new ConversionCache(100);
+        NameConverter converter = new NameConverter(cache);
+        
+        converter.convertVariableName("adc_valor");
+        converter.convertVariableName("adc_valor");
+        converter.convertMethodName("of_get_valor");
+        converter.convertMethodName("of_get_valor");
+        // Mesmo nome, outro tipo de conversão: nova entrada
+        converter.convertClassName("of_get_valor");
+        
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(3);
+    }
+    
+    @Test
+    void shouldEvictWhenFull() {
+        ConversionCache cache = new ConversionCache(10);
+        
+        for (int i = 0; i < 25; i++) {
+            cache.get(ConversionCache.Kind.VARIABLE, "gs_nome_" + i, String::toUpperCase);
+        }
+        
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.getEvictions()).isEqualTo(25 - cache.size());
+    }
+    
+    @Test
+    void shouldReturnSameConversionsAsUncachedConverter() throws Exception {
+        NameConverter uncached = new NameConverter(new ConversionCache(0));
+        NameConverter cached = new NameConverter(new ConversionCache(64));
+        String[] names = {"giCodSis", "gsCgcEmp", "adc_valor", "as_memoria_calculo_base", "ao_arg_parser"};
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        String name = names[i % names.length];
+                        if (!cached.convertVariableName(name).equals(uncached.convertVariableName(name))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertThat(cached.getCache().getHits()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.tr.refactor;
+
+import com.github.javaparser.Providers;
+import com.github.javaparser.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para o DeclarationLexer (modo léxico, --lexer-renames).
+ */
+class DeclarationLexerTest {
+    
+    @Test
+    void shouldFindTheDeclarationsTheAstPathRenames() {
+        String code = "package folha;\n\n"
+            + "import java.util.*;\n\n"
+            + "/** Cálculo da folha */\n"
+            + "@SuppressWarnings({\"unused\", \"rawtypes\"})\n"
+            + "public class uo_folha<T extends Comparable<T>> extends Base implements Cloneable {\n"
+            + "    private Map<String, List<Short>> ids_mapa = new HashMap<>(), ids_outro;\n"
+            + "    protected int[] ii_valores = {1, 2}, ii_vazio;\n"
+            + "    static String is_texto = \"class x { void f() {} }\"; // int il_comentario;\n"
+            + "    public uo_folha(int ai_inicial) { int li_local = ai_inicial; }\n"
+            + "    @Override\n"
+            + "    public <R> List<R> of_mapear(@Deprecated final Map<String, ? extends R> aa_mapa, int... ai_args)\n"
+            + "            throws Exception {\n"
+            + "        Runnable lr = new Runnable() { int ii_anonimo; public void run() {} };\n"
+            + "        class uo_local { String is_local; }\n"
+            + "        return null;\n"
+            + "    }\n"
+            + "    abstract void of_abstrato(long al_valor);\n"
+            + "    interface ui_interno { void of_interno(); }\n"
+            + "}\n";
+        DeclarationLexer lexer = new DeclarationLexer();
+        
+        assertThat(lexer.scan(Providers.provider(code))).isTrue();
+        
+        assertThat(describe(lexer.getDeclarations())).containsExactly(
+            "CLASS_NAME uo_folha 7:14",
+            "FIELD_NAME ids_mapa 8:38",
+            "FIELD_NAME ids_outro 8:66",
+            "FIELD_NAME ii_valores 9:21",
+            "FIELD_NAME ii_vazio 9:42",
+            "FIELD_NAME is_texto 10:19",
+            "METHOD_NAME of_mapear 13:24",
+            "PARAMETER_NAME aa_mapa 13:77",
+            "PARAMETER_NAME ai_args 13:93",
+            "FIELD_NAME ii_anonimo 15:44",
+            "METHOD_NAME run 15:68",
+            "CLASS_NAME uo_local 16:15",
+            "FIELD_NAME is_local 16:33",
+            "METHOD_NAME of_abstrato 19:19",
+            "PARAMETER_NAME al_valor 19:36",
+            "CLASS_NAME ui_interno 20:15",
+            "METHOD_NAME of_interno 20:33");
+    }
+    
+    @Test
+    void shouldCoverOnlyTheIdentifierInArrayDeclarators() {
+        DeclarationLexer lexer = new DeclarationLexer();
+        
+        assertThat(lexer.scan(Providers.provider(
+            "class A { int giA[], giB[][] = {}; void of_m(int ai_m[], String as_s[][]) { int li_x[]; } }"))).isTrue();
+        
+        assertThat(lexer.getDeclarations())
+            .extracting(declaration -> declaration.getName() + " " + declaration.getRange())
+            .containsExactly(
+                "A (line 1,col 7)-(line 1,col 7)",
+                "giA (line 1,col 15)-(line 1,col 17)",
+                "giB (line 1,col 22)-(line 1,col 24)",
+                "of_m (line 1,col 41)-(line 1,col 44)",
+                "ai_m (line 1,col 50)-(line 1,col 53)",
+                "as_s (line 1,col 65)-(line 1,col 68)");
+    }
+    
+    @Test
+    void shouldNotTreatConstructorReferencesAsCreations() {
+        DeclarationLexer lexer = new DeclarationLexer();
+        
+        assertThat(lexer.scan(Providers.provider("class A {\n"
+            + "    Supplier<A> io_fab = A::new, io_outra = null;\n"
+            + "    void of_m(boolean ab_ok) {\n"
+            + "        Supplier<A> lr_fab = A::new;\n"
+            + "        if (ab_ok) { Short giCodSis = 0; }\n"
+            + "        Object lo_anonimo = new Object() { int ii_anonimo; };\n"
+            + "    }\n"
+            + "}\n"))).isTrue();
+        
+        // O local do bloco do if continua local; o campo da classe anônima é renomeado
+        assertThat(lexer.getDeclarations())
+            .extracting(DeclarationLexer.Declaration::getName)
+            .containsExactly("A", "io_fab", "io_outra", "of_m", "ab_ok", "ii_anonimo");
+    }
+    
+    @Test
+    void shouldPromoteFilesThatNeedTheTree() {
+        DeclarationLexer lexer = new DeclarationLexer();
+        
+        assertThat(lexer.scan(Providers.provider(
+            "class A { boolean f(boolean b) { return isTrue(b); } }"))).isFalse();
+        assertThat(lexer.getPromotion()).contains("isTrue");
+        assertThat(lexer.scan(Providers.provider("enum uo_tipo { A, B }"))).isFalse();
+        assertThat(lexer.scan(Providers.provider("@interface ui_marca { }"))).isFalse();
+        assertThat(lexer.scan(Providers.provider("class uo_quebrado { void quebrado( }"))).isFalse();
+        assertThat(lexer.scan(Providers.provider("class uo_aberto { void f() {"))).isFalse();
+        assertThat(lexer.scan(Providers.provider("class uo_invalido { char c = '; }"))).isFalse();
+        
+        // Tokens estruturais em comentários e strings não promovem
+        assertThat(lexer.scan(Providers.provider(
+            "class A { /* isTrue(x) */ String s = \"setScale\"; }"))).isTrue();
+        assertThat(lexer.getPromotion()).isNull();
+        assertThat(describe(lexer.getDeclarations())).containsExactly("CLASS_NAME A 1:7", "FIELD_NAME s 1:34");
+    }
+    
+    private static List<String> describe(List<DeclarationLexer.Declaration> declarations) {
+        return declarations.stream()
+            .map(declaration -> {
+                Range range = declaration.getRange();
+                return declaration.getKind() + " " + declaration.getName() + " "
+                    + range.begin.line + ":" + range.begin.column;
+            })
+            .collect(Collectors.toList());
+    }
+}
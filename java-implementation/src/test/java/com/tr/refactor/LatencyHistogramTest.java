@@ -0,0 +1,55 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Testes para o LatencyHistogram.
+ */
+class LatencyHistogramTest {
+    
+    @Test
+    void shouldBeEmptyInitially() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.percentile(99)).isZero();
+        assertThat(histogram.getMax()).isZero();
+    }
+    
+    @Test
+    void shouldKeepSmallValuesExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        
+        assertThat(histogram.percentile(50)).isEqualTo(5);
+        assertThat(histogram.percentile(100)).isEqualTo(10);
+        assertThat(histogram.getTotal()).isEqualTo(55);
+    }
+    
+    @Test
+    void shouldApproximatePercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1_000 + (long) (random.nextDouble() * 50_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        
+        for (double p : new double[] {50, 95, 99}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            assertThat((double) histogram.percentile(p)).isCloseTo(exact, within(exact * 0.0625));
+        }
+        assertThat(histogram.getMax()).isEqualTo(values[values.length - 1]);
+        assertThat(histogram.getCount()).isEqualTo(values.length);
+    }
+}
@@ -0,0 +1,84 @@
+package com.tr.refactor;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testes para o MobilizeCorpusGenerator.
+ */
+class MobilizeCorpusGeneratorTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void shouldBeDeterministicForTheSameSeed() {
+        MobilizeCorpusGenerator first = new MobilizeCorpusGenerator();
+        MobilizeCorpusGenerator second = new MobilizeCorpusGenerator();
+        second.setFiles(3);
+        MobilizeCorpusGenerator otherSeed = new MobilizeCorpusGenerator();
+        otherSeed.setSeed(7);
+        
+        // O arquivo N não depende de quantos arquivos são gerados
+        assertThat(second.generateFile(5)).isEqualTo(first.generateFile(5));
+        assertThat(otherSeed.generateFile(5)).isNotEqualTo(first.generateFile(5));
+    }
+    
+    @Test
+    void shouldGenerateParseableFilesWithTargetLineCount() throws IOException {
+        MobilizeCorpusGenerator generator = new MobilizeCorpusGenerator();
+        generator.setFiles(12);
+        generator.setLinesPerFile(200);
+        
+        List<Path> files = generator.generate(tempDir);
+        
+        assertThat(files).hasSize(12);
+        JavaParser parser = new JavaParser();
+        for (Path file : files) {
+            List<String> lines = Files.readAllLines(file);
+            assertThat(lines.size()).isBetween(190, 200);
+            assertThat(parser.parse(file).isSuccessful()).as(file.toString()).isTrue();
+        }
+    }
+    
+    @Test
+    void shouldFollowConfiguredDensities() {
+        MobilizeCorpusGenerator generator = new MobilizeCorpusGenerator();
+        generator.setLinesPerFile(1_000);
+        generator.setIsTrueDensity(0);
+        generator.setWebMapDensity(0.5);
+        
+        String code = generator.generateFile(0);
+        
+        assertThat(code).doesNotContain("isTrue(this");
+        assertThat(code.split("new WebMapAtomicReference", -1).length - 1).isGreaterThan(100);
+        
+        generator.setSetScaleDensity(0.9);
+        assertThatThrownBy(() -> generator.generateFile(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void shouldProduceCorpusTheEngineRefactors() throws IOException {
+        MobilizeCorpusGenerator generator = new MobilizeCorpusGenerator();
+        generator.setFiles(5);
+        generator.setLinesPerFile(150);
+        generator.generate(tempDir.resolve("input"));
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        RefactorResult result = new RefactorEngine(tempDir.resolve("input"), tempDir.resolve("out"), options).execute();
+        
+        assertThat(result.getProcessedFiles()).isEqualTo(5);
+        assertThat(result.getWarnings()).isEmpty();
+        assertThat(result.getTransformationsApplied()).isGreaterThan(50);
+    }
+}
@@ -5,6 +5,9 @@ import com.github.javaparser.ast.CompilationUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -185,6 +188,58 @@ class MobilizeWrapperCleanerTest {
         System.out.println(refactoredCode);
     }
     
+    @Test
+    void testSinglePassKeepsRuleOrderSemantics() {
+        String code = """
+            public class Test {
+                public void method() {
+                    BigDecimal a = createDecimal(createDecimal(BigDecimal.ZERO, 2), 2);
+                    boolean b = foo(createDecimal(x, 2)).isTrue(flag);
+                    boolean c = isTrue(createDecimal(isTrue(y), 2));
+                }
+            }
+            """;
+        
+        CompilationUnit cu = parser.parse(code).getResult().get();
+        cleaner.cleanMobilizeWrappers(cu);
+        
+        // 2 createDecimal aninhados + 1 isTrue (o createDecimal do escopo descartado
+        // não conta) + 2 isTrue e 1 createDecimal na última linha
+        assertEquals(6, cleaner.getTransformationsCount());
+        
+        String refactoredCode = cu.toString();
+        assertTrue(refactoredCode.contains("BigDecimal a = BigDecimal.ZERO;"));
+        assertTrue(refactoredCode.contains("boolean b = flag;"));
+        assertTrue(refactoredCode.contains("boolean c = y;"));
+    }
+    
+    @Test
+    void testTransformationEventsCarryRuleAndRange() {
+        String code = """
+            public class Test {
+                private WebMapAtomicReference<String> ref;
+                public boolean method() {
+                    return isTrue(condition);
+                }
+            }
+            """;
+        
+        List<TransformationEvent> events = new ArrayList<>();
+        cleaner.setEventSink(events::add);
+        
+        CompilationUnit cu = parser.parse(code).getResult().get();
+        cleaner.cleanMobilizeWrappers(cu);
+        
+        assertEquals(2, events.size());
+        TransformationEvent isTrue = events.get(0);
+        assertEquals(TransformationEvent.Kind.IS_TRUE, isTrue.getKind());
+        assertEquals(4, isTrue.getRange().begin.line);
+        assertEquals(16, isTrue.getRange().begin.column);
+        assertEquals(TransformationEvent.Kind.TYPE_WRAPPER, events.get(1).getKind());
+        assertEquals("AtomicReference", events.get(1).getReplacement());
+        assertTrue(isTrue.toString().contains("[4:16-4:32]"));
+    }
+    
     @Test
     void testResetCounter() {
         String code = """
@@ -0,0 +1,92 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testes para o OutputEncoder e a gravação em blocos do OutputWriter.
+ */
+class OutputEncoderTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void shouldEncodeInChunksLikeGetBytes() throws IOException {
+        // Blocos pequenos forçam surrogates e acentos partidos entre blocos
+        OutputEncoder encoder = new OutputEncoder(16);
+        String text = sample();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean completed = encoder.encode(text, SourceEncoding.UTF_8, chunk -> {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            out.write(bytes);
+            return true;
+        });
+        
+        assertThat(completed).isTrue();
+        assertThat(out.toByteArray()).isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+        assertThat(OutputEncoder.encodedLength(text, SourceEncoding.UTF_8))
+            .isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(RefactorManifest.hash(printed(text), encoder))
+            .isEqualTo(RefactorManifest.hash(text.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    @Test
+    void shouldWriteAndDetectIdenticalOutput() throws IOException {
+        OutputEncoder encoder = new OutputEncoder(16);
+        OutputWriter writer = new OutputWriter();
+        Path target = tempDir.resolve("pkg/Folha.java");
+        String text = sample();
+        
+        assertThat(writer.isUnchanged(target, printed(text), encoder)).isFalse();
+        writer.write(target, printed(text), encoder);
+        writer.flush();
+        
+        assertThat(Files.readString(target)).isEqualTo(text);
+        assertThat(writer.isUnchanged(target, printed(text), encoder)).isTrue();
+        assertThat(writer.isUnchanged(target, printed(text.replace('ç', 'c')), encoder)).isFalse();
+        assertThat(writer.isUnchanged(target, printed(text + " "), encoder)).isFalse();
+        
+        // Mesmo tamanho, diferença só no último bloco
+        String sameLength = text.substring(0, text.length() - 1) + "?";
+        assertThat(writer.isUnchanged(target, printed(sameLength), encoder)).isFalse();
+        try (Stream<Path> files = Files.list(target.getParent())) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+    
+    @Test
+    void shouldFailOnUnmappableCharacters() {
+        OutputEncoder encoder = new OutputEncoder(16);
+        
+        assertThatThrownBy(() -> encoder.encode("salário \uD83D", SourceEncoding.UTF_8, chunk -> true))
+            .isInstanceOf(CharacterCodingException.class);
+        assertThatThrownBy(() -> encoder.encode("€ líquido", SourceEncoding.ISO_8859_1, chunk -> true))
+            .isInstanceOf(CharacterCodingException.class);
+    }
+    
+    private static OutputContent printed(String text) {
+        return OutputContent.printed(text, SourceEncoding.UTF_8);
+    }
+    
+    private static String sample() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("int salárioLíquido").append(i).append(" = cálculo(💰, \"ção\");\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para o PayrollTermTranslator - deve traduzir exatamente o que o
+ * algoritmo original (replaceAll por termo) traduzia.
+ */
+class PayrollTermTranslatorTest {
+    
+    private static final String[][] TERMS = {
+        {"folha", "Payroll"}, {"calculo", "Calculation"}, {"salario", "Salary"},
+        {"desconto", "Discount"}, {"imposto", "Tax"}, {"inss", "Inss"},
+        {"empresa", "Company"}, {"empregado", "Employee"}, {"base", "Base"},
+        {"valor", "Value"}, {"taxa", "Rate"}, {"codigo", "Code"},
+        {"sistema", "System"}, {"config", "Config"}, {"dados", "Data"},
+        {"teste", "Test"}, {"executor", "Executor"}, {"memoria", "Memory"}
+    };
+    
+    private static final String[] FRAGMENTS = {
+        "_", "1", "x", "A", "de", "Calc", "sis", "a", "e", "o", "$", "-", "ç", "İ"
+    };
+    
+    @Test
+    void shouldTranslatePrefixesAndSuffixes() {
+        PayrollTermTranslator translator = new PayrollTermTranslator(dictionary(new Random(0), false));
+        
+        assertThat(translator.translate("folhaPagamento")).isEqualTo("PayrollPagamento");
+        assertThat(translator.translate("nomeEmpresa")).isEqualTo("nomeCompany");
+        assertThat(translator.translate("VALOR")).isEqualTo("Value");
+        assertThat(translator.translate("semTermos")).isEqualTo("semTermos");
+        assertThat(translator.translate("")).isEmpty();
+        assertThat(translator.translate(null)).isNull();
+    }
+    
+    @Test
+    void shouldMatchOriginalAlgorithmOnRandomIdentifiers() {
+        Random random = new Random(42);
+        
+        for (int round = 0; round < 20; round++) {
+            Map<String, String> dictionary = dictionary(random, round > 0);
+            PayrollTermTranslator translator = new PayrollTermTranslator(dictionary);
+            
+            for (int i = 0; i < 2_000; i++) {
+                String identifier = randomIdentifier(random);
+                assertThat(translator.translate(identifier))
+                    .as("identificador %s", identifier)
+                    .isEqualTo(originalTranslate(dictionary, identifier));
+            }
+        }
+    }
+    
+    /**
+     * Cópia literal do algoritmo original de NameConverter.translatePayrollTerms.
+     */
+    private static String originalTranslate(Map<String, String> terms, String input) {
+        String result = input;
+        
+        for (Map.Entry<String, String> entry : terms.entrySet()) {
+            String portuguese = entry.getKey();
+            String english = entry.getValue();
+            
+            result = result.replaceAll("(?i)\\b" + portuguese + "\\b", english);
+            
+            if (result.toLowerCase().startsWith(portuguese.toLowerCase())) {
+                result = english + result.substring(portuguese.length());
+            }
+            
+            if (result.toLowerCase().endsWith(portuguese.toLowerCase())) {
+                result = result.substring(0, result.length() - portuguese.length()) + english;
+            }
+        }
+        
+        return result;
+    }
+    
+    private static Map<String, String> dictionary(Random random, boolean shuffle) {
+        List<String[]> entries = new ArrayList<>(List.of(TERMS));
+        if (shuffle) {
+            Collections.shuffle(entries, random);
+        }
+        
+        Map<String, String> dictionary = new LinkedHashMap<>();
+        entries.forEach(entry -> dictionary.put(entry[0], entry[1]));
+        return dictionary;
+    }
+    
+    /**
+     * Gera identificadores combinando termos (em caixa variada), traduções e
+     * fragmentos, para exercitar sobreposições entre prefixo e sufixo.
+     */
+    private static String randomIdentifier(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int parts = 1 + random.nextInt(4);
+        
+        for (int i = 0; i < parts; i++) {
+            int kind = random.nextInt(3);
+            String[] term = TERMS[random.nextInt(TERMS.length)];
+            String piece = kind == 0 ? term[0] : kind == 1 ? term[1] : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+            
+            if (random.nextBoolean()) {
+                piece = piece.toUpperCase();
+            } else if (random.nextBoolean() && !piece.isEmpty()) {
+                piece = Character.toUpperCase(piece.charAt(0)) + piece.substring(1);
+            }
+            
+            // Às vezes corta o termo para gerar sobreposições parciais
+            if (random.nextInt(4) == 0 && piece.length() > 2) {
+                piece = random.nextBoolean()
+                    ? piece.substring(1)
+                    : piece.substring(0, piece.length() - 1);
+            }
+            sb.append(piece);
+        }
+        
+        return sb.toString();
+    }
+}
@@ -2,6 +2,10 @@ package com.tr.refactor;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -77,4 +81,57 @@ public class PowerBuilderPatternMatcherTest {
         assertThat(matcher.isPowerBuilderGetter("getValor")).isFalse();
         assertThat(matcher.isPowerBuilderSetter("setValor")).isFalse();
     }
-}
\ No newline at end of file
+    
+    @Test
+    void shouldClassifyInOneCall() {
+        NameClassification getter = matcher.classify("of_get_valor");
+        assertThat(getter.isMethodName()).isTrue();
+        assertThat(getter.isClassName()).isTrue();
+        assertThat(getter.isVariableName()).isFalse();
+        assertThat(getter.getMethodKind()).isEqualTo(NameClassification.MethodKind.GETTER);
+        assertThat(getter.getPrefixType()).isNull();
+        
+        NameClassification decimal = matcher.classify(new StringBuilder("adc_valor"));
+        assertThat(decimal.isVariableName()).isTrue();
+        assertThat(decimal.getPrefixType()).isEqualTo(PowerBuilderPrefixType.ARGUMENT_DECIMAL);
+        
+        NameClassification iuo = matcher.classify("Iuo_base");
+        assertThat(iuo.isClassName()).isTrue();
+        assertThat(iuo.getPrefixType()).isEqualTo(PowerBuilderPrefixType.INTERFACE_USER_OBJECT);
+        
+        // Instâncias compartilhadas: nenhuma alocação por chamada
+        assertThat(matcher.classify("gsCgcEmp")).isSameAs(matcher.classify("gsNome"));
+        assertThat(matcher.classify("")).isSameAs(NameClassification.NONE);
+        assertThat(matcher.classify(null)).isSameAs(NameClassification.NONE);
+    }
+    
+    @Test
+    void shouldMatchOriginalRegexes() {
+        Pattern classPattern = Pattern.compile("^[a-z][a-z0-9_]*$");
+        Pattern classPrefixes = Pattern.compile("^(uo_|str_|s_|n_|dfc_|In_|Iuo_).*");
+        Pattern methodPattern = Pattern.compile("^of_.*");
+        Pattern variablePattern = Pattern.compile("^(gi|gl|gs|gdc|ao_|as_|adc_|ab_|al_|ai_).*");
+        String[] pieces = {"g", "i", "l", "s", "dc", "a", "o", "_", "d", "b", "u", "str", "n", "f", "c",
+                           "I", "of_", "get_", "set_", "is_", "X", "1", "\n", "$"};
+        Random random = new Random(7);
+        
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 1 + random.nextInt(5);
+            for (int p = 0; p < parts; p++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String name = sb.toString();
+            
+            assertThat(matcher.isPowerBuilderClassName(name)).as(name)
+                .isEqualTo(classPattern.matcher(name).matches() || classPrefixes.matcher(name).matches());
+            assertThat(matcher.isPowerBuilderMethodName(name)).as(name)
+                .isEqualTo(methodPattern.matcher(name).matches());
+            assertThat(matcher.isPowerBuilderVariableName(name)).as(name)
+                .isEqualTo(variablePattern.matcher(name).matches());
+            assertThat(matcher.isPowerBuilderGetter(name)).as(name).isEqualTo(name.startsWith("of_get_"));
+            assertThat(matcher.isPowerBuilderSetter(name)).as(name).isEqualTo(name.startsWith("of_set_"));
+            assertThat(matcher.isPowerBuilderBooleanMethod(name)).as(name).isEqualTo(name.startsWith("of_is_"));
+        }
+    }
+}
@@ -0,0 +1,701 @@
+package com.tr.refactor;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testes para o RefactorEngine - execução sequencial e paralela.
+ */
+class RefactorEngineTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void shouldProduceSameResultWithAnyNumberOfThreads() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 24);
+        
+        RefactorResult sequential = run(input, tempDir.resolve("out-1"), 1);
+        RefactorResult parallel = run(input, tempDir.resolve("out-4"), 4);
+        
+        assertThat(parallel.getProcessedFiles()).isEqualTo(sequential.getProcessedFiles());
+        assertThat(parallel.getTransformationsApplied()).isEqualTo(sequential.getTransformationsApplied());
+        assertThat(parallel.getWarnings()).containsExactlyElementsOf(sequential.getWarnings());
+        
+        for (int i = 0; i < 24; i++) {
+            Path relative = Path.of("pkg" + (i % 3), "Arquivo" + i + ".java");
+            if (i % 5 == 0) {
+                assertThat(tempDir.resolve("out-4").resolve(relative)).doesNotExist();
+            } else {
+                assertThat(Files.readString(tempDir.resolve("out-4").resolve(relative)))
+                    .isEqualTo(Files.readString(tempDir.resolve("out-1").resolve(relative)));
+            }
+        }
+    }
+    
+    @Test
+    void shouldApplyBackpressureWithSmallPipelineQueues() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 30);
+        RefactorResult sequential = run(input, tempDir.resolve("out-1"), 1);
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(3);
+        options.setReadThreads(1);
+        options.setWriteThreads(1);
+        options.setQueueCapacity(1);
+        options.setMetrics(true);
+        RefactorResult pipelined = new RefactorEngine(input, tempDir.resolve("out-2"), options).execute();
+        
+        assertThat(pipelined.getTransformationsApplied()).isEqualTo(sequential.getTransformationsApplied());
+        assertThat(pipelined.getWarnings()).containsExactlyElementsOf(sequential.getWarnings());
+        
+        PipelineStats stats = pipelined.getMetrics().getPipelineStats();
+        assertThat(stats.getStages()).extracting(PipelineStats.Stage::getName)
+            .containsExactly("leitura", "cpu", "escrita");
+        assertThat(stats.getStages()).extracting(PipelineStats.Stage::getItems)
+            .containsExactly(30L, 30L, 24L);
+        assertThat(stats.getStages().get(0).getMaxQueueSize()).isLessThanOrEqualTo(1);
+        assertThat(pipelined.getSummary()).contains("Pipeline", "bloqueado na saída");
+    }
+    
+    @Test
+    void shouldNotProcessExcludedDirectories() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 12);
+        
+        for (int threads : new int[] {1, 3}) {
+            RefactorOptions options = new RefactorOptions();
+            options.setCreateBackup(false);
+            options.setThreads(threads);
+            options.setExcludes(List.of("pkg1"));
+            Path output = tempDir.resolve("out-" + threads);
+            RefactorResult result = new RefactorEngine(input, output, options).execute();
+            
+            // pkg1 tem os arquivos 1, 4, 7 e 10; pkg0 e pkg2 têm os quebrados 0 e 5
+            assertThat(result.getProcessedFiles()).isEqualTo(6);
+            assertThat(result.getWarnings()).hasSize(2);
+            assertThat(output.resolve("pkg1")).doesNotExist();
+        }
+    }
+    
+    @Test
+    void shouldScheduleByWeightAndRecordTimingsForNextRun() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 12);
+        Path weightsFile = tempDir.resolve("pesos.tsv");
+        RefactorResult discoveryOrder = runScheduled(input, tempDir.resolve("out-1"),
+                                                     RefactorOptions.Schedule.DISCOVERY, null);
+        
+        RefactorResult firstRun = runScheduled(input, tempDir.resolve("out-2"),
+                                               RefactorOptions.Schedule.LARGEST_FIRST, weightsFile);
+        List<String> weights = Files.readAllLines(weightsFile);
+        assertThat(weights).hasSize(13).first().asString().startsWith("#");
+        assertThat(weights.get(1)).matches("pkg0/Arquivo0\\.java\\t\\d+\\t\\d+");
+        
+        WeightsManifest loaded = WeightsManifest.load(weightsFile);
+        long size = Files.size(input.resolve("pkg0/Arquivo3.java"));
+        long measured = Long.parseLong(weights.stream().filter(line -> line.startsWith("pkg0/Arquivo3.java"))
+                                           .findFirst().orElseThrow().split("\t")[2]);
+        assertThat(loaded.weightOf("pkg0/Arquivo3.java", size)).isEqualTo(measured);
+        // Arquivo novo ou alterado: estimado pelo tamanho com a média de ns/byte
+        assertThat(loaded.weightOf("pkg9/Novo.java", 10 * size)).isPositive();
+        
+        RefactorResult secondRun = runScheduled(input, tempDir.resolve("out-3"),
+                                                RefactorOptions.Schedule.LARGEST_FIRST, weightsFile);
+        for (RefactorResult result : List.of(firstRun, secondRun)) {
+            assertThat(result.getTransformationsApplied()).isEqualTo(discoveryOrder.getTransformationsApplied());
+            assertThat(result.getWarnings()).containsExactlyElementsOf(discoveryOrder.getWarnings());
+        }
+    }
+    
+    @Test
+    void shouldCancelFilesOverTimeLimitAndKeepProcessingTheBatch() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        StringBuilder huge = new StringBuilder("public class uo_gigante {\n");
+        for (int i = 0; i < 60_000; i++) {
+            huge.append("    public boolean of_metodo_").append(i).append("(Short adc_valor) {\n")
+                .append("        return isTrue(adc_valor > ").append(i).append(");\n")
+                .append("    }\n");
+        }
+        Files.writeString(input.resolve("pkg0").resolve("Gigante.java"), huge.append("}\n"));
+        
+        for (int threads : new int[] {1, 3}) {
+            RefactorOptions options = new RefactorOptions();
+            options.setCreateBackup(false);
+            options.setThreads(threads);
+            options.setFileTimeout(Duration.ofMillis(500));
+            options.setSlowFileThreshold(Duration.ofMillis(100));
+            Path output = tempDir.resolve("out-" + threads);
+            RefactorResult result = new RefactorEngine(input, output, options).execute();
+            
+            assertThat(result.getTimedOutFiles()).isEqualTo(1);
+            assertThat(result.getSlowFiles()).isPositive();
+            assertThat(result.getWarnings()).anyMatch(warning ->
+                warning.startsWith("Tempo limite de 500 ms excedido") && warning.contains("Gigante.java"));
+            assertThat(output.resolve("pkg0").resolve("Gigante.java")).doesNotExist();
+            // Os outros arquivos seguem normalmente (0 e 5 têm erro de sintaxe)
+            assertThat(result.getProcessedFiles()).isEqualTo(8);
+            assertThat(result.getSummary()).contains("1 cancelados por tempo limite");
+        }
+    }
+    
+    @Test
+    void shouldResumeInterruptedRunFromProgressJournal() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 12);
+        Path journalFile = tempDir.resolve("diario.tsv");
+        
+        // Execução interrompida: três arquivos concluídos e uma linha cortada no fim
+        try (ProgressJournal journal = ProgressJournal.open(journalFile, input, false)) {
+            for (String name : List.of("pkg1/Arquivo1.java", "pkg2/Arquivo2.java", "pkg0/Arquivo3.java")) {
+                Path file = input.resolve(name);
+                journal.record(name, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        Files.writeString(journalFile, "pkg1/Arquivo4.java\t2", StandardOpenOption.APPEND);
+        // Alterado depois da interrupção: é refeito
+        Files.writeString(input.resolve("pkg0/Arquivo3.java"), "\n", StandardOpenOption.APPEND);
+        
+        for (int threads : new int[] {1, 3}) {
+            RefactorOptions options = new RefactorOptions();
+            options.setCreateBackup(false);
+            options.setThreads(threads);
+            options.setResume(true);
+            Path output = tempDir.resolve("out-" + threads);
+            Files.copy(journalFile, ProgressJournal.defaultLocation(output));
+            RefactorResult result = new RefactorEngine(input, output, options).execute();
+            
+            assertThat(result.getResumedFiles()).isEqualTo(2);
+            assertThat(result.getProcessedFiles()).isEqualTo(7);
+            assertThat(output.resolve("pkg1/Arquivo1.java")).doesNotExist();
+            assertThat(output.resolve("pkg0/Arquivo3.java")).exists();
+            assertThat(output.resolve("pkg1/Arquivo4.java")).exists();
+            // Execução concluída: não há mais o que retomar
+            assertThat(ProgressJournal.defaultLocation(output)).doesNotExist();
+        }
+    }
+    
+    @Test
+    void shouldResumeInterruptedInPlaceRun() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        String original = Files.readString(input.resolve("pkg1/Arquivo1.java"));
+        // Interrompe a execução depois de processar os arquivos: a gravação JFR não pode ser salva
+        Path blocked = Files.createDirectories(tempDir.resolve("jfr-ocupado"));
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setThreads(3);
+        options.setJfrFile(blocked);
+        assertThatThrownBy(() -> new RefactorEngine(input, input, options).execute())
+            .isInstanceOf(IOException.class);
+        assertThat(ProgressJournal.defaultLocation(input)).exists();
+        String refactored = Files.readString(input.resolve("pkg1/Arquivo1.java"));
+        assertThat(refactored).isNotEqualTo(original);
+        
+        options.setJfrFile(null);
+        options.setResume(true);
+        RefactorResult resumed = new RefactorEngine(input, input, options).execute();
+        
+        // Os arquivos gravados in-place não são refatorados de novo; só os com erro de parse
+        assertThat(resumed.getResumedFiles()).isEqualTo(8);
+        assertThat(resumed.getWarnings()).hasSize(2);
+        assertThat(input.resolve("pkg1/Arquivo1.java")).hasContent(refactored);
+        assertThat(input.resolve("pkg1/Arquivo1.java.backup")).hasContent(original);
+    }
+    
+    @Test
+    void shouldNotRewriteIdenticalOutput() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Path output = tempDir.resolve("out");
+        RefactorResult first = run(input, output, 1);
+        assertThat(first.getUnchangedWrites()).isZero();
+        
+        Path unchanged = output.resolve("pkg1/Arquivo1.java");
+        Path edited = output.resolve("pkg2/Arquivo2.java");
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000);
+        Files.setLastModifiedTime(unchanged, past);
+        Files.writeString(edited, "// editado à mão\n", StandardOpenOption.APPEND);
+        
+        RefactorResult second = run(input, output, 3);
+        
+        assertThat(second.getProcessedFiles()).isEqualTo(first.getProcessedFiles());
+        assertThat(second.getUnchangedWrites()).isEqualTo(first.getProcessedFiles() - 1);
+        assertThat(second.getSummary()).contains("Gravações evitadas (saída idêntica): 7");
+        assertThat(Files.getLastModifiedTime(unchanged)).isEqualTo(past);
+        assertThat(Files.readString(edited)).doesNotContain("editado");
+        // Nenhum temporário sobra no diretório de saída
+        try (Stream<Path> files = Files.walk(output)) {
+            assertThat(files.filter(Files::isRegularFile)).allMatch(file -> file.toString().endsWith(".java"));
+        }
+    }
+    
+    @Test
+    void shouldBackUpOriginalsAsLinksOrSingleArchive() throws IOException {
+        for (RefactorOptions.BackupMode mode : List.of(RefactorOptions.BackupMode.LINK,
+                                                       RefactorOptions.BackupMode.ARCHIVE)) {
+            // Refatoração in-place: o backup precisa sobreviver à troca do arquivo
+            Path input = createCorpus(tempDir.resolve(mode.name()).resolve("src"), 5);
+            String original = Files.readString(input.resolve("pkg1/Arquivo1.java"));
+            
+            RefactorOptions options = new RefactorOptions();
+            options.setThreads(2);
+            options.setBackupMode(mode);
+            RefactorResult result = new RefactorEngine(input, input, options).execute();
+            assertThat(result.getProcessedFiles()).isEqualTo(4);
+            assertThat(Files.readString(input.resolve("pkg1/Arquivo1.java"))).isNotEqualTo(original);
+            
+            Path backup = input.resolve("pkg1/Arquivo1.java.backup");
+            if (mode == RefactorOptions.BackupMode.LINK) {
+                assertThat(Files.readString(backup)).isEqualTo(original);
+            } else {
+                assertThat(backup).doesNotExist();
+                List<Path> archives;
+                try (Stream<Path> files = Files.list(input.getParent())) {
+                    archives = files.filter(file -> file.getFileName().toString().matches("src\\.backup-.*\\.zip"))
+                                    .collect(Collectors.toList());
+                }
+                assertThat(archives).hasSize(1);
+                try (ZipFile zip = new ZipFile(archives.get(0).toFile())) {
+                    assertThat(zip.size()).isEqualTo(4);
+                    ZipEntry entry = zip.getEntry("pkg1/Arquivo1.java");
+                    assertThat(new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8))
+                        .isEqualTo(original);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void shouldKeepSourceEncodingAndReadLargeFilesMapped() throws IOException {
+        Path input = tempDir.resolve("input");
+        Files.createDirectories(input);
+        String code = "// Cálculo da folha: ação, líquido\n"
+            + "public class uo_calculo {\n"
+            + "    protected Short giCodSis = 0;\n"
+            + "    String descricao = \"Salário líquido\";\n"
+            + "}\n";
+        Files.write(input.resolve("Latin1.java"), code.getBytes(StandardCharsets.ISO_8859_1));
+        Files.writeString(input.resolve("ComBom.java"), "\uFEFF" + code.replace("uo_calculo", "uo_bom"));
+        // Acima do limite de mapeamento em memória
+        StringBuilder large = new StringBuilder("public class uo_grande {\n");
+        String padding = "x".repeat(100);
+        for (int i = 0; large.length() < 300 * 1024; i++) {
+            large.append("    protected Short giCampo").append(i).append(" = 0; // ação ").append(padding).append('\n');
+        }
+        Files.writeString(input.resolve("Grande.java"), large.append("}\n"));
+        
+        Path output = tempDir.resolve("out");
+        RefactorResult result = run(input, output, 2);
+        
+        assertThat(result.getProcessedFiles()).isEqualTo(3);
+        assertThat(result.getWarnings()).isEmpty();
+        
+        byte[] latin1 = Files.readAllBytes(output.resolve("Latin1.java"));
+        String latin1Text = new String(latin1, StandardCharsets.ISO_8859_1);
+        assertThat(latin1Text).contains("Cálculo da folha: ação, líquido", "\"Salário líquido\"")
+            .doesNotContain("uo_calculo", "giCodSis");
+        assertThat(SourceEncoding.detect(ByteBuffer.wrap(latin1), SourceEncoding.ISO_8859_1))
+            .isSameAs(SourceEncoding.ISO_8859_1);
+        
+        byte[] bom = Files.readAllBytes(output.resolve("ComBom.java"));
+        assertThat(bom).startsWith(0xEF, 0xBB, 0xBF);
+        String bomText = new String(bom, StandardCharsets.UTF_8);
+        assertThat(bomText.substring(1)).doesNotContain("\uFEFF").contains("\"Salário líquido\"")
+            .doesNotContain("uo_bom");
+        
+        assertThat(Files.readString(output.resolve("Grande.java"))).contains("// ação " + padding)
+            .doesNotContain("giCampo");
+    }
+    
+    @Test
+    void shouldDropCommentsOnlyWhenNotPreserving() throws IOException {
+        Path input = tempDir.resolve("input");
+        Files.createDirectories(input);
+        Files.writeString(input.resolve("Comentado.java"), "// Gerado pelo Mobilize: não editar\n"
+            + "/** Cálculo da folha. */\n"
+            + "public class uo_comentado {\n"
+            + "    /* código do sistema */\n"
+            + "    protected Short giCodSis = 0;\n"
+            + "}\n");
+        
+        for (boolean preserve : new boolean[] {true, false}) {
+            Path output = tempDir.resolve("out-" + preserve);
+            RefactorOptions options = new RefactorOptions();
+            options.setCreateBackup(false);
+            options.setPreserveComments(preserve);
+            RefactorResult result = new RefactorEngine(input, output, options).execute();
+            
+            assertThat(result.getProcessedFiles()).isEqualTo(1);
+            String refactored = Files.readString(output.resolve("Comentado.java"));
+            assertThat(refactored).doesNotContain("uo_comentado", "giCodSis");
+            if (preserve) {
+                assertThat(refactored).contains("// Gerado pelo Mobilize", "/**", "Cálculo da folha", "código do sistema");
+            } else {
+                assertThat(refactored).doesNotContain("//", "/*", "Mobilize", "Cálculo", "código");
+            }
+        }
+    }
+    
+    @Test
+    void shouldPatchOnlyTransformedCodeInPatchMode() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 12);
+        String formatted = "import java.util.List;\nimport java.math.BigDecimal;\n\n"
+            + "public class uo_formatado {\n"
+            + "    protected Short   giCodSis = 0;   // alinhado à mão\n"
+            + "    public boolean of_valida(List<String> as_lista) { return isTrue(isTrue(as_lista.isEmpty())); }\n"
+            + "}\n";
+        Files.writeString(input.resolve("Formatado.java"), formatted);
+        
+        Path reprinted = tempDir.resolve("out-reprint");
+        run(input, reprinted, 1);
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(3);
+        options.setOutputMode(RefactorOptions.OutputMode.PATCH);
+        Path patched = tempDir.resolve("out-patch");
+        RefactorResult result = new RefactorEngine(input, patched, options).execute();
+        
+        assertThat(result.getReprintedFiles()).isZero();
+        // Só os nomes declarados e os wrappers mudam; espaços, comentário e imports ficam
+        assertThat(Files.readString(patched.resolve("Formatado.java"))).isEqualTo(formatted
+            .replace("class uo_formatado", "class Formatado")
+            .replace("giCodSis", "Codecodsis")
+            .replace("of_valida(List<String> as_lista)", "valida(List<String> lista)")
+            .replace("isTrue(isTrue(as_lista.isEmpty()))", "as_lista.isEmpty()"));
+        
+        // Mesmas transformações que a reimpressão; só a formatação muda
+        try (Stream<Path> files = Files.walk(reprinted)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                CompilationUnit expected = StaticJavaParser.parse(file);
+                CompilationUnit actual = StaticJavaParser.parse(patched.resolve(reprinted.relativize(file)));
+                assertThat(actual.getTypes()).isEqualTo(expected.getTypes());
+            }
+        }
+    }
+    
+    @Test
+    void shouldKeepArrayBracketsInPatchMode() throws IOException {
+        Path input = tempDir.resolve("input");
+        Files.createDirectories(input);
+        String arrays = "public class uo_vetores {\n"
+            + "    int giA[]; int giB[] = {1}, giC[][];\n"
+            + "    void of_m(int ai_m[], String as_s[][]) { int li_local[] = ai_m; }\n"
+            + "}\n";
+        Files.writeString(input.resolve("Vetores.java"), arrays);
+        
+        Path reprinted = tempDir.resolve("out-reprint");
+        run(input, reprinted, 1);
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setOutputMode(RefactorOptions.OutputMode.PATCH);
+        Path patched = tempDir.resolve("out-patch");
+        new RefactorEngine(input, patched, options).execute();
+        
+        // Só os identificadores mudam; os colchetes depois do nome ficam
+        assertThat(Files.readString(patched.resolve("Vetores.java"))).isEqualTo(arrays
+            .replace("uo_vetores", "Vetores")
+            .replace("giA[]", "Codea[]")
+            .replace("giB[]", "Codeb[]")
+            .replace("giC[][]", "Codec[][]")
+            .replace("of_m(int ai_m[], String as_s[][])", "m(int m[], String s[][])"));
+        // Mesmos tipos que a reimpressão (que move os colchetes para o tipo)
+        assertThat(StaticJavaParser.parse(patched.resolve("Vetores.java")).toString())
+            .isEqualTo(StaticJavaParser.parse(reprinted.resolve("Vetores.java")).toString());
+    }
+    
+    @Test
+    void shouldRenameByTokensLikeTheAstPath() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 12);
+        for (int i = 0; i < 4; i++) {
+            Files.writeString(input.resolve("Nomes" + i + ".java"), "package folha;\n\n"
+                + "public class uo_nomes_" + i + "<T extends Comparable<T>> {\n"
+                + "    private   Short   ii_total = 0, ii_parcial;   // alinhado à mão\n"
+                + "    int ii_a[], ii_b[] = {1};  String is_s[][];\n"
+                + "    void of_vetor(int ai_m[], String as_s[][]) { int li_local[] = ai_m; }\n"
+                + "    java.util.function.Supplier<Object> io_fabrica = Object::new, io_outra = null;\n"
+                + "    void of_fabrica(boolean ab_ok) {\n"
+                + "        java.util.function.Supplier<Object> lr_fabrica = Object::new;\n"
+                + "        if (ab_ok) { Short giCodSis = 0; }\n"
+                + "    }\n"
+                + "    public uo_nomes_" + i + "(Short ai_inicial) { ii_total = ai_inicial; }\n"
+                + "    protected <R> R of_converter(java.util.Map<String, ? extends R> aa_mapa, int... ai_args) {\n"
+                + "        Runnable lr_tarefa = new Runnable() { int ii_anonimo; public void run() {} };\n"
+                + "        return null;\n"
+                + "    }\n"
+                + "}\n");
+        }
+        
+        for (boolean prefilter : new boolean[] {true, false}) {
+            RefactorOptions options = new RefactorOptions();
+            options.setCreateBackup(false);
+            options.setThreads(3);
+            options.setPrefilter(prefilter);
+            options.setOutputMode(RefactorOptions.OutputMode.PATCH);
+            Path viaTree = tempDir.resolve("out-tree-" + prefilter);
+            RefactorResult treeResult = new RefactorEngine(input, viaTree, options).execute();
+            options.setLexerRenames(true);
+            Path viaTokens = tempDir.resolve("out-tokens-" + prefilter);
+            RefactorResult tokenResult = new RefactorEngine(input, viaTokens, options).execute();
+            
+            // Só os arquivos sem wrappers dispensam a árvore; os quebrados caem no parse e dão warning
+            assertThat(treeResult.getLexedFiles()).isZero();
+            assertThat(tokenResult.getLexedFiles()).isEqualTo(4);
+            assertThat(tokenResult.getTransformationsApplied()).isEqualTo(treeResult.getTransformationsApplied());
+            assertThat(tokenResult.getWarnings()).isEqualTo(treeResult.getWarnings());
+            try (Stream<Path> files = Files.walk(viaTree)) {
+                for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    assertThat(viaTokens.resolve(viaTree.relativize(file))).hasSameBinaryContentAs(file);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void shouldReportWarningsInPathOrder() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 24);
+        
+        RefactorResult result = run(input, tempDir.resolve("out"), 8);
+        
+        assertThat(result.getWarnings()).hasSize(5);
+        assertThat(result.getWarnings()).isSortedAccordingTo(String::compareTo);
+    }
+    
+    @Test
+    void shouldSkipUnchangedFilesInIncrementalMode() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Path output = tempDir.resolve("out");
+        
+        RefactorResult first = run(input, output, 2, true);
+        assertThat(first.getSkippedFiles()).isZero();
+        assertThat(RefactorManifest.defaultLocation(output)).exists();
+        
+        RefactorResult second = run(input, output, 2, true);
+        assertThat(second.getSkippedFiles()).isEqualTo(8);
+        assertThat(second.getProcessedFiles()).isZero();
+        // Arquivos com erro de parse não entram no manifesto
+        assertThat(second.getWarnings()).hasSize(2);
+        
+        Files.writeString(input.resolve("pkg1").resolve("Arquivo1.java"),
+            "public class uo_novo { protected Short giNovo = 0; }");
+        
+        RefactorResult third = run(input, output, 2, true);
+        assertThat(third.getSkippedFiles()).isEqualTo(7);
+        assertThat(third.getProcessedFiles()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldReprocessFilesWhenOutputOptionsChange() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Path output = tempDir.resolve("out");
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(2);
+        options.setIncremental(true);
+        
+        assertThat(new RefactorEngine(input, output, options).execute().getProcessedFiles()).isEqualTo(8);
+        
+        options.setOutputMode(RefactorOptions.OutputMode.PATCH);
+        RefactorResult patchMode = new RefactorEngine(input, output, options).execute();
+        assertThat(patchMode.getSkippedFiles()).isZero();
+        assertThat(patchMode.getProcessedFiles()).isEqualTo(8);
+        
+        // Opções que não mudam a saída mantêm o manifesto válido
+        options.setLexerRenames(true);
+        options.setThreads(3);
+        assertThat(new RefactorEngine(input, output, options).execute().getSkippedFiles()).isEqualTo(8);
+        
+        options.setPreserveComments(false);
+        assertThat(new RefactorEngine(input, output, options).execute().getSkippedFiles()).isZero();
+        
+        options.setFallbackEncoding(StandardCharsets.UTF_8);
+        assertThat(new RefactorEngine(input, output, options).execute().getSkippedFiles()).isZero();
+    }
+    
+    @Test
+    void shouldSkipFilesWithoutTriggersWithoutChangingOutput() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Files.writeString(input.resolve("pkg0").resolve("Limpo.java"),
+            "public class Limpo {\n    private String nome;\n}\n");
+        Files.writeString(input.resolve("pkg1").resolve("SoTipo.java"),
+            "public class SoTipo {\n    WebMapAtomicReference<String> ref;\n}\n");
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setPrefilter(false);
+        RefactorResult unfiltered = new RefactorEngine(input, tempDir.resolve("out-full"), options).execute();
+        RefactorResult filtered = run(input, tempDir.resolve("out"), 2);
+        
+        assertThat(filtered.getPrefilteredFiles()).isEqualTo(1);
+        assertThat(filtered.getSkippedRules()).isGreaterThan(0);
+        assertThat(filtered.getTransformationsApplied()).isEqualTo(unfiltered.getTransformationsApplied());
+        assertThat(Files.readString(tempDir.resolve("out").resolve("pkg1").resolve("SoTipo.java")))
+            .isEqualTo(Files.readString(tempDir.resolve("out-full").resolve("pkg1").resolve("SoTipo.java")));
+        
+        // Sem nenhum token de regra: o arquivo nem é parseado
+        Files.writeString(input.resolve("pkg2").resolve("Quebrado.java"), "public class Quebrado { void x( }");
+        RefactorResult withBroken = run(input, tempDir.resolve("out-2"), 2);
+        assertThat(withBroken.getPrefilteredFiles()).isEqualTo(2);
+        assertThat(withBroken.getWarnings()).hasSize(2);
+    }
+    
+    @Test
+    void shouldStreamJsonLinesReport() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Path reportFile = tempDir.resolve("relatorio").resolve("report.jsonl");
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(3);
+        options.setReportFile(reportFile);
+        RefactorResult result = new RefactorEngine(input, tempDir.resolve("out"), options).execute();
+        
+        List<String> lines = Files.readAllLines(reportFile);
+        assertThat(lines.stream().filter(line -> line.startsWith("{\"type\":\"file\""))).hasSize(10);
+        assertThat(lines.stream().filter(line -> line.startsWith("{\"type\":\"transformation\"")))
+            .hasSize(result.getTransformationsApplied());
+        assertThat(lines.stream().filter(line -> line.contains("\"status\":\"failed\""))).hasSize(2);
+        assertThat(lines).contains("{\"type\":\"transformation\",\"path\":\"pkg1/Arquivo1.java\","
+            + "\"rule\":\"IS_TRUE\",\"line\":4,\"column\":16,\"endLine\":4,\"endColumn\":43,"
+            + "\"identifier\":\"isTrue\",\"replacement\":null}");
+        assertThat(lines.get(lines.size() - 1))
+            .startsWith("{\"type\":\"summary\",\"processed\":8,")
+            .contains("\"warnings\":2");
+    }
+    
+    @Test
+    void shouldMeasurePhaseTimingsWhenMetricsEnabled() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 10);
+        Path metricsFile = tempDir.resolve("metricas").resolve("metrics.json");
+        
+        RefactorResult withoutMetrics = run(input, tempDir.resolve("out-1"), 2);
+        assertThat(withoutMetrics.getMetrics()).isNull();
+        assertThat(withoutMetrics.getSummary()).doesNotContain("MÉTRICAS");
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(2);
+        options.setMetricsFile(metricsFile);
+        RefactorResult result = new RefactorEngine(input, tempDir.resolve("out-2"), options).execute();
+        
+        RefactorMetrics metrics = result.getMetrics();
+        assertThat(metrics).isNotNull();
+        assertThat(metrics.getFiles()).isEqualTo(10);
+        assertThat(metrics.getBytes()).isPositive();
+        assertThat(metrics.getHistogram(RefactorMetrics.Phase.READ).getCount()).isEqualTo(10);
+        // Os dois arquivos quebrados param no parse
+        assertThat(metrics.getHistogram(RefactorMetrics.Phase.WRITE).getCount()).isEqualTo(8);
+        assertThat(metrics.getHistogram(RefactorMetrics.Phase.BACKUP).getCount()).isZero();
+        assertThat(metrics.getSlowest()).hasSize(10);
+        assertThat(result.getSummary()).contains("MÉTRICAS", "arquivos/s", "Arquivos mais lentos");
+        
+        String json = Files.readString(metricsFile);
+        assertThat(json).contains("\"files\": 10", "\"PARSE\": {\"count\": 10", "\"slowest\": [");
+    }
+    
+    @Test
+    void shouldRecordFlightRecorderEvents() throws IOException {
+        Path input = createCorpus(tempDir.resolve("input"), 5);
+        Path jfrFile = tempDir.resolve("gravacao").resolve("refactor.jfr");
+        
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(2);
+        options.setJfrFile(jfrFile);
+        new RefactorEngine(input, tempDir.resolve("out"), options).execute();
+        
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+        List<RecordedEvent> files = eventsOfType(events, "com.tr.refactor.FileProcessed");
+        assertThat(files).hasSize(5);
+        assertThat(files).extracting(event -> event.getString("outcome"))
+            .containsOnly("refactored", "failed");
+        assertThat(eventsOfType(events, "com.tr.refactor.Phase"))
+            .extracting(event -> event.getString("phase"))
+            .contains("READ", "PARSE", "TRANSFORM", "PRINT", "WRITE");
+        // Arquivo1: isTrue, classe, método, parâmetro e campo
+        assertThat(eventsOfType(events, "com.tr.refactor.RuleApplied"))
+            .filteredOn(event -> event.getString("path").equals("pkg1/Arquivo1.java"))
+            .extracting(event -> event.getString("rule") + "=" + event.getInt("count"))
+            .containsExactlyInAnyOrder("IS_TRUE=1", "CLASS_NAME=1", "METHOD_NAME=1", "PARAMETER_NAME=1",
+                                       "FIELD_NAME=1");
+    }
+    
+    private static List<RecordedEvent> eventsOfType(List<RecordedEvent> events, String type) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(type))
+            .collect(Collectors.toList());
+    }
+    
+    @Test
+    void shouldKeepOnlyFirstWarningsInMemory() {
+        RefactorResult result = new RefactorResult();
+        for (int i = 0; i < RefactorResult.MAX_RETAINED_WARNINGS + 50; i++) {
+            result.addWarning("Falha ao parsear: Arquivo" + i + ".java");
+        }
+        
+        assertThat(result.getWarningCount()).isEqualTo(RefactorResult.MAX_RETAINED_WARNINGS + 50);
+        assertThat(result.getWarnings()).hasSize(RefactorResult.MAX_RETAINED_WARNINGS);
+        assertThat(result.getSummary()).contains("Warnings: " + (RefactorResult.MAX_RETAINED_WARNINGS + 50))
+            .contains("e mais 50 warnings");
+    }
+    
+    private RefactorResult run(Path input, Path output, int threads) throws IOException {
+        return run(input, output, threads, false);
+    }
+    
+    private RefactorResult run(Path input, Path output, int threads, boolean incremental) throws IOException {
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(threads);
+        options.setIncremental(incremental);
+        return new RefactorEngine(input, output, options).execute();
+    }
+    
+    private RefactorResult runScheduled(Path input, Path output, RefactorOptions.Schedule schedule,
+                                        Path weightsFile) throws IOException {
+        RefactorOptions options = new RefactorOptions();
+        options.setCreateBackup(false);
+        options.setThreads(3);
+        options.setSchedule(schedule);
+        options.setWeightsFile(weightsFile);
+        return new RefactorEngine(input, output, options).execute();
+    }
+    
+    /**
+     * Gera arquivos no estilo Mobilize; um em cada cinco tem erro de sintaxe.
+     */
+    private Path createCorpus(Path root, int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            Path dir = root.resolve("pkg" + (i % 3));
+            Files.createDirectories(dir);
+            String code = i % 5 == 0
+                ? "public class uo_quebrado_" + i + " { void quebrado( }"
+                : "public class uo_arquivo_" + i + " {\n"
+                  + "    protected Short giCodSis = 0;\n"
+                  + "    public boolean of_is_valido(Short adc_valor) {\n"
+                  + "        return isTrue(adc_valor > giCodSis);\n"
+                  + "    }\n"
+                  + "}\n";
+            Files.writeString(dir.resolve("Arquivo" + i + ".java"), code);
+        }
+        return root;
+    }
+}
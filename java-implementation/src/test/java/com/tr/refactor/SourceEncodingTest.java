@@ -0,0 +1,57 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para a detecção de codificação do SourceEncoding.
+ */
+class SourceEncodingTest {
+    
+    private static final SourceEncoding FALLBACK = SourceEncoding.ISO_8859_1;
+    
+    @Test
+    void shouldDetectUtf8AndFallBackOnInvalidBytes() {
+        assertThat(detect("class Folha {}".getBytes(StandardCharsets.US_ASCII))).isSameAs(SourceEncoding.UTF_8);
+        assertThat(detect("// cálculo 💰 ação".getBytes(StandardCharsets.UTF_8))).isSameAs(SourceEncoding.UTF_8);
+        assertThat(detect("// cálculo".getBytes(StandardCharsets.ISO_8859_1))).isSameAs(FALLBACK);
+        
+        // Sequência cortada no fim, forma não mínima, surrogate codificado e acima de U+10FFFF
+        assertThat(detect(new byte[] {'a', (byte) 0xC3})).isSameAs(FALLBACK);
+        assertThat(detect(new byte[] {(byte) 0xC0, (byte) 0xAF})).isSameAs(FALLBACK);
+        assertThat(detect(new byte[] {(byte) 0xE0, (byte) 0x80, (byte) 0xAF})).isSameAs(FALLBACK);
+        assertThat(detect(new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80})).isSameAs(FALLBACK);
+        assertThat(detect(new byte[] {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80})).isSameAs(FALLBACK);
+    }
+    
+    @Test
+    void shouldDetectByteOrderMarks() {
+        SourceEncoding utf8 = detect(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'});
+        assertThat(utf8.getCharset()).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(utf8.getBomLength()).isEqualTo(3);
+        assertThat(utf8.isAsciiCompatible()).isTrue();
+        
+        SourceEncoding utf16 = detect(new byte[] {(byte) 0xFF, (byte) 0xFE, 'a', 0});
+        assertThat(utf16.getCharset()).isEqualTo(StandardCharsets.UTF_16LE);
+        assertThat(utf16.getBomLength()).isEqualTo(2);
+        assertThat(utf16.isAsciiCompatible()).isFalse();
+        assertThat(detect(new byte[] {(byte) 0xFE, (byte) 0xFF, 0, 'a'}).getCharset())
+            .isEqualTo(StandardCharsets.UTF_16BE);
+    }
+    
+    @Test
+    void shouldOnlyLookBetweenPositionAndLimit() {
+        ByteBuffer content = ByteBuffer.wrap("x// cálculo".getBytes(StandardCharsets.ISO_8859_1));
+        content.limit(5);
+        assertThat(SourceEncoding.detect(content, FALLBACK)).isSameAs(SourceEncoding.UTF_8);
+        assertThat(content.position()).isZero();
+    }
+    
+    private static SourceEncoding detect(byte[] content) {
+        return SourceEncoding.detect(ByteBuffer.wrap(content), FALLBACK);
+    }
+}
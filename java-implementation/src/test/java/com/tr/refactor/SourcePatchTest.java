@@ -0,0 +1,103 @@
+package com.tr.refactor;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para a saída por patch de texto do SourcePatch.
+ */
+class SourcePatchTest {
+    
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    
+    @Test
+    void shouldEditOnlyTransformedRanges() throws IOException {
+        String code = "class Folha {\r\n"
+            + "\tboolean ok() {\r\n"
+            + "\t\tString s = \"💰 ção\"; if (isTrue(isTrue(a) && not(b))) { return isTrue(c); }\r\n"
+            + "\t\tWebMapAtomicReference<String>   ref = null;   // manter\r\n"
+            + "\t\treturn createDecimal(BigDecimal.ZERO, 2) == createDecimal(valor, 2);\r\n"
+            + "\t}\r\n"
+            + "}\r\n";
+        String expected = "class Folha {\r\n"
+            + "\tboolean ok() {\r\n"
+            + "\t\tString s = \"💰 ção\"; if (a && !b) { return c; }\r\n"
+            + "\t\tAtomicReference<String>   ref = null;   // manter\r\n"
+            + "\t\treturn BigDecimal.ZERO == valor;\r\n"
+            + "\t}\r\n"
+            + "}\r\n";
+        byte[] source = concat(BOM, code.getBytes(StandardCharsets.UTF_8));
+        SourceEncoding encoding = SourceEncoding.detect(ByteBuffer.wrap(source), SourceEncoding.ISO_8859_1);
+        
+        SourcePatch patch = new SourcePatch();
+        byte[] patched = apply(patch, source, code, encoding);
+        
+        assertThat(patch.getFailure()).isNull();
+        assertThat(patched).isEqualTo(concat(BOM, expected.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    @Test
+    void shouldPatchSingleByteEncodings() throws IOException {
+        String code = "class Cálculo {\n    boolean líquido = isTrue(x);\n}\n";
+        SourcePatch patch = new SourcePatch();
+        
+        byte[] patched = apply(patch, code.getBytes(StandardCharsets.ISO_8859_1), code, SourceEncoding.ISO_8859_1);
+        
+        assertThat(patched).isEqualTo("class Cálculo {\n    boolean líquido = x;\n}\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(patch.begin(ByteBuffer.wrap(new byte[0]), new SourceEncoding(StandardCharsets.UTF_16LE, true)))
+            .isFalse();
+    }
+    
+    @Test
+    void shouldRefuseLinesWithUnicodeEscapes() throws IOException {
+        // O escape numa linha sem edições não atrapalha
+        String code = "class Folha {\n    String a = \"\\u00e7\";\n    boolean v = isTrue(x);\n}\n";
+        SourcePatch patch = new SourcePatch();
+        assertThat(apply(patch, code.getBytes(StandardCharsets.UTF_8), code, SourceEncoding.UTF_8))
+            .isEqualTo(code.replace("isTrue(x)", "x").getBytes(StandardCharsets.UTF_8));
+        
+        String sameLine = "class Folha {\n    String a = \"\\u00e7\"; boolean v = isTrue(x);\n}\n";
+        assertThat(apply(patch, sameLine.getBytes(StandardCharsets.UTF_8), sameLine, SourceEncoding.UTF_8)).isNull();
+        assertThat(patch.getFailure()).contains("escape Unicode na linha 2");
+    }
+    
+    private static byte[] apply(SourcePatch patch, byte[] source, String code, SourceEncoding encoding)
+            throws IOException {
+        CompilationUnit cu = new JavaParser().parse(code).getResult().orElseThrow();
+        assertThat(patch.begin(ByteBuffer.wrap(source), encoding)).isTrue();
+        
+        MobilizeWrapperCleaner cleaner = new MobilizeWrapperCleaner();
+        cleaner.setPatch(patch);
+        cleaner.cleanMobilizeWrappers(cu);
+        cleaner.removeNotWrappers(cu);
+        
+        OutputContent content = patch.build();
+        if (content == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.writeTo(new OutputEncoder(16), chunk -> {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            out.write(bytes);
+            return true;
+        });
+        assertThat(content.length()).isEqualTo(out.size());
+        return out.toByteArray();
+    }
+    
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testes para o SourceScanner.
+ */
+class SourceScannerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void shouldFindSameFilesAsSequentialWalk() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            touch("modulo" + (i % 4) + "/src/pkg" + (i % 7) + "/Arquivo" + i + ".java");
+        }
+        touch("modulo0/README.md");
+        touch("modulo1/src/Antigo.java.backup");
+        
+        SourceScanner scanner = new SourceScanner(tempDir);
+        scanner.setParallelism(4);
+        
+        List<Path> expected;
+        try (Stream<Path> paths = Files.walk(tempDir)) {
+            expected = paths.filter(path -> path.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        assertThat(scanner.scan()).hasSize(40).containsExactlyElementsOf(expected);
+    }
+    
+    @Test
+    void shouldSkipExcludedSubtreesAndApplyIncludes() throws IOException {
+        touch("src/main/java/Folha.java");
+        touch("src/test/java/FolhaTest.java");
+        touch("src/test/generated/Gerado.java");
+        touch("build/classes/Copia.java");
+        touch(".git/objects/Objeto.java");
+        touch("modulo/build/Outro.java");
+        touch("modulo/src/Calculo.java");
+        
+        SourceScanner scanner = new SourceScanner(tempDir);
+        scanner.setExcludes(List.of("build/", ".git", "src/test/generated/**"));
+        assertThat(relative(scanner.scan()))
+            .containsExactly("modulo/src/Calculo.java", "src/main/java/Folha.java", "src/test/java/FolhaTest.java");
+        
+        scanner.setIncludes(List.of("*Test.java", "modulo/**"));
+        assertThat(relative(scanner.scan()))
+            .containsExactly("modulo/src/Calculo.java", "src/test/java/FolhaTest.java");
+    }
+    
+    @Test
+    void shouldFailWhenRootIsMissing() {
+        SourceScanner scanner = new SourceScanner(tempDir.resolve("inexistente"));
+        
+        assertThatThrownBy(scanner::scan).isInstanceOf(IOException.class);
+    }
+    
+    private void touch(String relative) throws IOException {
+        Path file = tempDir.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "class X {}");
+    }
+    
+    private List<String> relative(List<Path> files) {
+        return files.stream()
+            .map(file -> RefactorManifest.key(tempDir.relativize(file)))
+            .collect(Collectors.toList());
+    }
+}
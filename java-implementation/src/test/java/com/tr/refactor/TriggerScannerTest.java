@@ -0,0 +1,71 @@
+package com.tr.refactor;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes para o TriggerScanner (pré-filtro de tokens).
+ */
+class TriggerScannerTest {
+    
+    @Test
+    void shouldDetectWrapperCalls() {
+        assertThat(scan("if (isTrue (x)) {}")).containsExactly(RefactorRule.IS_TRUE);
+        assertThat(scan("a = setScale(a, minus(a, b));")).containsExactly(RefactorRule.MATH_HELPERS);
+        assertThat(scan("x = Helpers.createDecimal(v, 2);")).containsExactly(RefactorRule.CREATE_DECIMAL);
+        assertThat(scan("java.util.List<WebMapAtomicReference<String>> refs;"))
+            .containsExactly(RefactorRule.TYPE_WRAPPERS);
+    }
+    
+    @Test
+    void shouldOnlyMatchWholeIdentifiers() {
+        assertThat(scan("if (xisTrue(x) && isTrueValue) { setScaleX(); }")).isEmpty();
+        assertThat(scan("String logs = signal + prof_x + aao_x;")).isEmpty();
+    }
+    
+    @Test
+    void shouldDetectPowerBuilderNames() {
+        assertThat(scan("void of_calcular() {}")).containsExactly(RefactorRule.METHOD_NAMES);
+        assertThat(scan("Short giCodSis = 0;"))
+            .containsExactlyInAnyOrder(RefactorRule.FIELD_NAMES, RefactorRule.METHOD_NAMES);
+        assertThat(scan("void calcular(BigDecimal adc_valor) {}"))
+            .containsExactlyInAnyOrder(RefactorRule.FIELD_NAMES, RefactorRule.METHOD_NAMES);
+    }
+    
+    @Test
+    void shouldDetectPowerBuilderClassDeclarations() {
+        assertThat(scan("public class s_base {}")).containsExactly(RefactorRule.CLASS_NAMES);
+        assertThat(scan("interface\n\tIn_servico {}")).containsExactly(RefactorRule.CLASS_NAMES);
+        assertThat(scan("class /* legado */ Base {}")).containsExactly(RefactorRule.CLASS_NAMES);
+        assertThat(scan("public class Base { Class<?> c = Base.class; }")).isEmpty();
+    }
+    
+    @Test
+    void shouldEnableAllRulesWhenUnicodeEscapesArePresent() {
+        assertThat(scan("if (\\u0069sTrue(x)) {}")).isEqualTo(RefactorRule.all());
+    }
+    
+    @Test
+    void shouldFindEveryRuleUsedByTheExample() throws IOException {
+        Path example = Path.of("..", "examples", "before-refactoring", "s_base.java");
+        if (!Files.exists(example)) {
+            return;
+        }
+        
+        Set<RefactorRule> rules = TriggerScanner.scan(Files.readAllBytes(example));
+        
+        assertThat(rules).contains(RefactorRule.CREATE_DECIMAL,
+            RefactorRule.CLASS_NAMES, RefactorRule.FIELD_NAMES, RefactorRule.METHOD_NAMES);
+    }
+    
+    private static Set<RefactorRule> scan(String source) {
+        return TriggerScanner.scan(source.getBytes(StandardCharsets.UTF_8));
+    }
+}